@@ -0,0 +1,18 @@
+package com.gitglebach.mercs.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// ===================== ТОЧКА ВХОДА БЕНЧМАРКОВ =====================
+// Точка входа benchmarks.jar: обычные опции JMH из командной строки
+// плюс всегда включённый профайлер аллокаций (эквивалент -prof gc).
+public final class BenchMain {
+    private BenchMain() {}
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cli = new CommandLineOptions(args);
+        new Runner(new OptionsBuilder().parent(cli).addProfiler(GCProfiler.class).build()).run();
+    }
+}
@@ -0,0 +1,60 @@
+package com.gitglebach.mercs.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// ===================== БЕНЧМАРК: УДАР =====================
+// Один удар Warrior.attack для каждой пары стойка × стратегия.
+// AGGRESSIVE — атакующая стойка атакующего (сбрасывается после удара, поэтому ставится заново),
+// DEFENSIVE — защитная стойка цели. Стратегия действует на команду A (атакующий — [A]).
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CombatBenchmark {
+
+    @Param({"NONE", "AGGRESSIVE", "DEFENSIVE"})
+    public String stance;
+
+    @Param({"STANDARD", "CAUTIOUS", "AGGRESSIVE"})
+    public String strategy;
+
+    @Param({"2"})
+    public int tier;
+
+    Object rng, attacker, defender;
+    Object aggressive, defensive, none;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Engine.silence();
+        rng = Engine.rng(42L);
+        attacker = Engine.randomWarrior(rng);
+        defender = Engine.randomWarrior(rng);
+        Engine.setTeamTag(attacker, "[A]");
+        Engine.setTeamTag(defender, "[B]");
+        none = Engine.enumValue("StanceType", "NONE");
+        aggressive = Engine.enumValue("StanceType", "AGGRESSIVE");
+        defensive = Engine.enumValue("StanceType", "DEFENSIVE");
+        Engine.setStrategy(strategy, "STANDARD".equals(strategy) ? 0 : tier);
+        Engine.setDefenseStance(defender, "DEFENSIVE".equals(stance) ? defensive : none);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Engine.setStrategy("STANDARD", 0);
+    }
+
+    @Benchmark
+    public void attack() {
+        // Цель всегда живая и без накопленной усталости у атакующего — меряем обычный удар, а не добивание
+        Engine.setHp(defender, 1_000_000);
+        Engine.setFatigue(attacker, 0);
+        Engine.setStunned(defender, false);
+        if ("AGGRESSIVE".equals(stance)) Engine.setNextTurnStance(attacker, aggressive);
+        Engine.attack(attacker, defender, rng);
+    }
+}
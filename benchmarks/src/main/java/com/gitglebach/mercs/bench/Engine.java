@@ -0,0 +1,216 @@
+package com.gitglebach.mercs.bench;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+// ===================== МОСТ К ИГРЕ =====================
+// Игра лежит в пакете по умолчанию, а JMH требует именованный пакет,
+// поэтому движок вызывается через MethodHandle, разрешённые один раз в static final.
+// JIT встраивает такие вызовы; примитивы передаются без упаковки, так что -prof gc
+// показывает аллокации самой игры, а не моста.
+final class Engine {
+    private static final MethodHandles.Lookup L = MethodHandles.lookup();
+
+    static final Class<?> WARRIOR = cls("Warrior");
+
+    private static final MethodHandle RNG_SEEDED        = method("Rng", "seeded", long.class);
+    private static final MethodHandle RANDOM_WARRIOR    = method("Warrior", "randomWarrior", cls("Rng"));
+    private static final MethodHandle ATTACK            = method("Warrior", "attack", WARRIOR, cls("Rng"));
+    private static final MethodHandle TURN_SCHEDULER    = method("TurnScheduler", "of", cls("TurnOrder"), arr(WARRIOR), arr(WARRIOR));
+    private static final MethodHandle BEGIN_ROUND       = method("TurnScheduler", "beginRound", cls("Rng"));
+    private static final MethodHandle HAS_NEXT_TURN     = method("TurnScheduler", "hasNext");
+    private static final MethodHandle NEXT_TURN         = method("TurnScheduler", "next");
+    private static final MethodHandle RANDOM_ALIVE      = method("Main", "randomAlive", arr(WARRIOR), cls("Rng"));
+    private static final MethodHandle TEAM_ALIVE        = method("Main", "teamAlive", arr(WARRIOR));
+    private static final MethodHandle RECRUIT_POOL      = method("Main", "generateRecruitPool", int.class, arr(WARRIOR), arr(WARRIOR), int.class, cls("Rng"));
+    private static final MethodHandle GENERATE_PATH     = method("Main", "generatePath", int.class, cls("Rng"));
+    private static final MethodHandle SAVE_GAME         = method("Main", "saveGameToNewSlot", String.class, arr(WARRIOR), arr(WARRIOR), int.class);
+    private static final MethodHandle LOAD_SAVE         = method("Main", "loadSaveByNumber", int.class);
+    private static final MethodHandle READ_INDEX        = method("Main", "readSaveIndex");
+    private static final MethodHandle FLUSH_SAVES       = method("Main", "flushSaves");
+    private static final MethodHandle BATTLE_STATE_NEW  = constructor("BattleState", arr(WARRIOR), arr(WARRIOR));
+    private static final MethodHandle BATTLE_RESET      = method("BattleState", "reset");
+    private static final MethodHandle BATTLE_PLAY       = method("BattleState", "playBattle", cls("Rng"), int.class);
+
+    private static final MethodHandle SET_HP            = setter("Warrior", "hp");
+    private static final MethodHandle SET_FATIGUE       = setter("Warrior", "fatigue");
+    private static final MethodHandle SET_STUNNED       = setter("Warrior", "stunned");
+    private static final MethodHandle SET_TEAM_TAG      = setter("Warrior", "teamTag");
+    private static final MethodHandle SET_NEXT_STANCE   = setter("Warrior", "nextTurnStance");
+    private static final MethodHandle SET_DEF_STANCE    = setter("Warrior", "defenseStance");
+    private static final MethodHandle SET_ATTACK_COUNT  = setter("Warrior", "battleAttackCount");
+    private static final MethodHandle SESSION           = method("GameSession", "current");
+    private static final MethodHandle SET_STRATEGY      = setter("GameSession", "strategy");
+    private static final MethodHandle SET_STRATEGY_TIER = setter("GameSession", "tier");
+    private static final MethodHandle SET_LOG_LEVEL     = setter("GameSession", "logLevel");
+
+    private Engine() {}
+
+    // ===== Игровые вызовы =====
+    static Object rng(long seed) {
+        try { return RNG_SEEDED.invokeExact(seed); } catch (Throwable t) { throw rethrow(t); }
+    }
+    static Object randomWarrior(Object rng) {
+        try { return RANDOM_WARRIOR.invokeExact(rng); } catch (Throwable t) { throw rethrow(t); }
+    }
+    static void attack(Object w, Object enemy, Object rng) {
+        try { ATTACK.invokeExact(w, enemy, rng); } catch (Throwable t) { throw rethrow(t); }
+    }
+    static Object turnScheduler(String order, Object a, Object b) {
+        try { return TURN_SCHEDULER.invokeExact(enumValue("TurnOrder", order), a, b); } catch (Throwable t) { throw rethrow(t); }
+    }
+    static void beginRound(Object turns, Object rng) {
+        try { BEGIN_ROUND.invokeExact(turns, rng); } catch (Throwable t) { throw rethrow(t); }
+    }
+    static boolean hasNextTurn(Object turns) {
+        try { return (boolean) HAS_NEXT_TURN.invokeExact(turns); } catch (Throwable t) { throw rethrow(t); }
+    }
+    static Object nextTurn(Object turns) {
+        try { return NEXT_TURN.invokeExact(turns); } catch (Throwable t) { throw rethrow(t); }
+    }
+    static Object randomAlive(Object team, Object rng) {
+        try { return RANDOM_ALIVE.invokeExact(team, rng); } catch (Throwable t) { throw rethrow(t); }
+    }
+    static boolean teamAlive(Object team) {
+        try { return (boolean) TEAM_ALIVE.invokeExact(team); } catch (Throwable t) { throw rethrow(t); }
+    }
+    static Object generateRecruitPool(int count, Object roster, Object reserve, int rotLevel, Object rng) {
+        try { return RECRUIT_POOL.invokeExact(count, roster, reserve, rotLevel, rng); } catch (Throwable t) { throw rethrow(t); }
+    }
+    static Object generatePath(int length, Object rng) {
+        try { return GENERATE_PATH.invokeExact(length, rng); } catch (Throwable t) { throw rethrow(t); }
+    }
+    static void saveGameToNewSlot(String name, Object a, Object b, int round) {
+        try { SAVE_GAME.invokeExact((Object) name, a, b, round); } catch (Throwable t) { throw rethrow(t); }
+    }
+    static Object loadSaveByNumber(int number) {
+        try { return LOAD_SAVE.invokeExact(number); } catch (Throwable t) { throw rethrow(t); }
+    }
+    static Object readSaveIndex() {
+        try { return READ_INDEX.invokeExact(); } catch (Throwable t) { throw rethrow(t); }
+    }
+    static void flushSaves() {
+        try { FLUSH_SAVES.invokeExact(); } catch (Throwable t) { throw rethrow(t); }
+    }
+    static Object newBattleState(Object a, Object b) {
+        try { return BATTLE_STATE_NEW.invokeExact(a, b); } catch (Throwable t) { throw rethrow(t); }
+    }
+    static void resetBattle(Object s) {
+        try { BATTLE_RESET.invokeExact(s); } catch (Throwable t) { throw rethrow(t); }
+    }
+    static int playBattle(Object s, Object rng, int maxRounds) {
+        try { return (int) BATTLE_PLAY.invokeExact(s, rng, maxRounds); } catch (Throwable t) { throw rethrow(t); }
+    }
+
+    // ===== Поля =====
+    static void setHp(Object w, int hp) {
+        try { SET_HP.invokeExact(w, hp); } catch (Throwable t) { throw rethrow(t); }
+    }
+    static void setFatigue(Object w, int f) {
+        try { SET_FATIGUE.invokeExact(w, f); } catch (Throwable t) { throw rethrow(t); }
+    }
+    static void setStunned(Object w, boolean s) {
+        try { SET_STUNNED.invokeExact(w, s); } catch (Throwable t) { throw rethrow(t); }
+    }
+    static void setTeamTag(Object w, String tag) {
+        try { SET_TEAM_TAG.invokeExact(w, (Object) tag); } catch (Throwable t) { throw rethrow(t); }
+    }
+    static void setNextTurnStance(Object w, Object stance) {
+        try { SET_NEXT_STANCE.invokeExact(w, stance); } catch (Throwable t) { throw rethrow(t); }
+    }
+    static void setDefenseStance(Object w, Object stance) {
+        try { SET_DEF_STANCE.invokeExact(w, stance); } catch (Throwable t) { throw rethrow(t); }
+    }
+    static void setAttackCount(Object w, int c) {
+        try { SET_ATTACK_COUNT.invokeExact(w, c); } catch (Throwable t) { throw rethrow(t); }
+    }
+    // Сессия потока; потоки JMH не привязаны к сессии и видят общую консольную
+    static Object session() {
+        try { return SESSION.invokeExact(); } catch (Throwable t) { throw rethrow(t); }
+    }
+    static void setStrategy(String plan, int tier) {
+        Object v = enumValue("StrategyPlan", plan);
+        Object s = session();
+        try {
+            SET_STRATEGY.invokeExact(s, v);
+            SET_STRATEGY_TIER.invokeExact(s, tier);
+        } catch (Throwable t) { throw rethrow(t); }
+    }
+
+    // Глушим вывод игры: уровень лога ниже BRIEF и System.out в никуда
+    static void silence() {
+        try { SET_LOG_LEVEL.invokeExact(session(), -1); } catch (Throwable t) { throw rethrow(t); }
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    static Object team(Object rng, int size, String tag) {
+        Object arr = Array.newInstance(WARRIOR, size);
+        for (int i = 0; i < size; i++) {
+            Object w = randomWarrior(rng);
+            setTeamTag(w, tag);
+            Array.set(arr, i, w);
+        }
+        return arr;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static Object enumValue(String cls, String name) { return Enum.valueOf((Class) cls(cls), name); }
+
+    // ===== Разрешение =====
+    private static RuntimeException rethrow(Throwable t) {
+        if (t instanceof RuntimeException) return (RuntimeException) t;
+        if (t instanceof Error) throw (Error) t;
+        return new IllegalStateException(t);
+    }
+
+    static Class<?> cls(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Класс игры не найден: " + name, e);
+        }
+    }
+
+    private static Class<?> arr(Class<?> c) { return c.arrayType(); }
+
+    private static MethodHandle method(String cls, String name, Class<?>... params) {
+        try {
+            Method m = cls(cls).getDeclaredMethod(name, params);
+            m.setAccessible(true);
+            return generic(L.unreflect(m));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Метод игры не найден: " + cls + "." + name, e);
+        }
+    }
+
+    private static MethodHandle constructor(String cls, Class<?>... params) {
+        try {
+            Constructor<?> c = cls(cls).getDeclaredConstructor(params);
+            c.setAccessible(true);
+            return generic(L.unreflectConstructor(c));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Конструктор игры не найден: " + cls, e);
+        }
+    }
+
+    private static MethodHandle setter(String cls, String name) {
+        try {
+            Field f = cls(cls).getDeclaredField(name);
+            f.setAccessible(true);
+            return generic(L.unreflectSetter(f));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Поле игры не найдено: " + cls + "." + name, e);
+        }
+    }
+
+    // Ссылочные типы игры → Object, примитивы остаются: invokeExact без упаковки
+    private static MethodHandle generic(MethodHandle mh) {
+        return mh.asType(mh.type().erase());
+    }
+}
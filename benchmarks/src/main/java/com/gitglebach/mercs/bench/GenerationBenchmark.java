@@ -0,0 +1,39 @@
+package com.gitglebach.mercs.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// ===================== БЕНЧМАРК: ГЕНЕРАЦИЯ =====================
+// Пул найма и генерация маршрута кампании.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GenerationBenchmark {
+
+    @Param({"8"})
+    public int pathLength;
+
+    Object rng, roster, reserve;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Engine.silence();
+        rng = Engine.rng(11L);
+        roster = Engine.team(rng, 5, "[A]");
+        reserve = Engine.team(rng, 5, "[A]");
+    }
+
+    @Benchmark
+    public Object generateRecruitPool() {
+        return Engine.generateRecruitPool(5, roster, reserve, 3, rng);
+    }
+
+    @Benchmark
+    public Object generatePath() {
+        return Engine.generatePath(pathLength, rng);
+    }
+}
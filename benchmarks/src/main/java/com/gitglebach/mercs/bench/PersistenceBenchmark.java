@@ -0,0 +1,76 @@
+package com.gitglebach.mercs.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// ===================== БЕНЧМАРК: СЕЙВЫ =====================
+// Пути слотов: сохранение в новый слот, загрузка по номеру, чтение index.json.
+// Слоты пишутся в отдельный каталог (mercs.savesDir), не в настоящие saves/. Перед каждой
+// итерацией он очищается и заполняется slots слотами, чтобы стоимость не зависела от длины прогона.
+// Сохранение асинхронное (SaveWriter): замер — это цена для игрового потока с учётом обратного
+// давления очереди; перед очисткой каталога фоновая запись дожидается.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dmercs.savesDir=" + PersistenceBenchmark.SAVES_DIR)
+@State(Scope.Thread)
+public class PersistenceBenchmark {
+    static final String SAVES_DIR = "target/bench-saves";
+
+
+    @Param({"10", "200"})
+    public int slots;
+
+    Object rng, teamA, teamB;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Engine.silence();
+        rng = Engine.rng(3L);
+        teamA = Engine.team(rng, 5, "[A]");
+        teamB = Engine.team(rng, 5, "[B]");
+    }
+
+    @Setup(Level.Iteration)
+    public void fillSlots() throws IOException {
+        wipeSaves();
+        for (int i = 0; i < slots; i++) Engine.saveGameToNewSlot("bench-" + i, teamA, teamB, 1);
+        Engine.flushSaves();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        wipeSaves();
+    }
+
+    @Benchmark
+    public void saveGameToNewSlot() {
+        Engine.saveGameToNewSlot("bench", teamA, teamB, 3);
+    }
+
+    @Benchmark
+    public Object loadSaveByNumber() {
+        return Engine.loadSaveByNumber(1);
+    }
+
+    @Benchmark
+    public Object readSaveIndex() {
+        return Engine.readSaveIndex();
+    }
+
+    static void wipeSaves() throws IOException {
+        Engine.flushSaves();
+        Path dir = Path.of(System.getProperty("mercs.savesDir", SAVES_DIR));
+        if (!Files.exists(dir)) return;
+        try (Stream<Path> s = Files.walk(dir)) {
+            for (Path p : (Iterable<Path>) s.sorted(Comparator.reverseOrder())::iterator) Files.delete(p);
+        }
+    }
+}
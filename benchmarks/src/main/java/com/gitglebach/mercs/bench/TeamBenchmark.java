@@ -0,0 +1,65 @@
+package com.gitglebach.mercs.bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// ===================== БЕНЧМАРК: КОМАНДНЫЙ БОЙ =====================
+// Порядок ходов (перемешивание и инициатива), выбор цели, проверка живых и полный бой на BattleState.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TeamBenchmark {
+
+    @Param({"5"})
+    public int teamSize;
+
+    Object rng, teamA, teamB, battle, shuffleTurns, initiativeTurns;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Engine.silence();
+        rng = Engine.rng(7L);
+        teamA = Engine.team(rng, teamSize, "[A]");
+        teamB = Engine.team(rng, teamSize, "[B]");
+        battle = Engine.newBattleState(teamA, teamB);
+        shuffleTurns = Engine.turnScheduler("SHUFFLE", teamA, teamB);
+        initiativeTurns = Engine.turnScheduler("INITIATIVE", teamA, teamB);
+    }
+
+    // Очередь раунда целиком: построить и выбрать всех по порядку
+    @Benchmark
+    public void shuffleRound(Blackhole bh) {
+        drainRound(shuffleTurns, bh);
+    }
+
+    @Benchmark
+    public void initiativeRound(Blackhole bh) {
+        drainRound(initiativeTurns, bh);
+    }
+
+    private void drainRound(Object turns, Blackhole bh) {
+        Engine.beginRound(turns, rng);
+        while (Engine.hasNextTurn(turns)) bh.consume(Engine.nextTurn(turns));
+    }
+
+    @Benchmark
+    public Object randomAlive() {
+        return Engine.randomAlive(teamB, rng);
+    }
+
+    @Benchmark
+    public boolean teamAlive() {
+        return Engine.teamAlive(teamA);
+    }
+
+    @Benchmark
+    public void battleStateFullBattle(Blackhole bh) {
+        Engine.resetBattle(battle);
+        bh.consume(Engine.playBattle(battle, rng, 500));
+    }
+}
@@ -0,0 +1,73 @@
+// ===================== ЖИВЫЕ БОЙЦЫ КОМАНДЫ =====================
+// Для массовых боёв (сотни и тысячи бойцов на сторону): teamAlive, randomAlive (два прохода),
+// firstAliveIndex1Based и teamMiniSummary сканировали весь Warrior[] на каждом ходу — раунд стоил O(n²).
+// Здесь живые — индексы в alive[0, count) с обратным отображением pos; смерть — swap-remove за O(1),
+// случайная цель — один nextInt, конец боя — count == 0. Сумма hp и число живых ведутся на ходу:
+// Warrior.attack и зелья сообщают об изменении hp через changed (боец знает свой набор — Warrior.side).
+// Порядок в alive не совпадает с порядком в массиве, поэтому при том же сиде цели выбираются не те же,
+// что у Main.randomAlive (распределение то же — равномерное по живым); BattleState ведёт тот же порядок.
+final class AliveSet {
+    private final Warrior[] team;
+    private final int[] alive;   // индексы живых бойцов в team; [0, count)
+    private final int[] pos;     // индекс в team → место в alive; -1 — мёртв или пустой слот
+    private int count;
+    private long hp;             // сумма hp живых
+    private int first;           // нижняя граница индекса первого живого (зелья не воскрешают — только растёт)
+
+    AliveSet(Warrior[] team) {
+        this.team = team;
+        this.alive = new int[team.length];
+        this.pos = new int[team.length];
+        for (int i = 0; i < team.length; i++) {
+            Warrior w = team[i];
+            if (w != null && w.hp > 0) {
+                pos[i] = count;
+                alive[count++] = i;
+                hp += w.hp;
+                w.side = this;
+                w.sideIndex = i;
+            } else {
+                pos[i] = -1;
+                if (w != null) w.side = null;
+            }
+        }
+    }
+
+    int count() { return count; }
+    boolean any() { return count > 0; }
+    long hp() { return hp; }
+
+    // Равномерно случайный живой боец; null — живых нет
+    Warrior random(Rng rng) {
+        return count == 0 ? null : team[alive[rng.nextInt(count)]];
+    }
+
+    // Первый живой по порядку в команде, с 1 (как Main.firstAliveIndex1Based); амортизированно O(1)
+    Integer firstIndex1Based() {
+        while (first < team.length && pos[first] < 0) first++;
+        return first < team.length ? first + 1 : null;
+    }
+
+    // hp бойца изменилось на delta (уже применено к w.hp)
+    void changed(Warrior w, int delta) {
+        int i = w.sideIndex;
+        if (pos[i] < 0) return;
+        hp += delta;
+        if (w.hp <= 0) remove(i);
+    }
+
+    // Бой окончен: бойцы больше не ссылаются на набор (зелья в лагере не трогают его, а ростер не держит
+    // через него команду противника)
+    void detach() {
+        for (Warrior w : team) {
+            if (w != null && w.side == this) { w.side = null; w.sideIndex = 0; }
+        }
+    }
+
+    private void remove(int i) {
+        int p = pos[i], last = alive[--count];
+        alive[p] = last;
+        pos[last] = p;
+        pos[i] = -1;
+    }
+}
@@ -0,0 +1,269 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// ===================== ЛИГА АРХЕТИПОВ (ВСЕ ПРОТИВ ВСЕХ) =====================
+// Архетип — тип бойца (Warrior.ofType: Landsknecht … Conquistador) × Role × Weapon. Каждая пара архетипов
+// играет matchesPerPair боёв отрядами по teamSize одинаковых бойцов: половину — с первым архетипом за A,
+// половину — со вторым (на каждую половину свои броски статов типа). Бои идут на BattleState без вывода;
+// диапазоны пар раздаются fork-join задачам, у каждой пары свои ячейки результата, поэтому счётчики без гонок,
+// а дерево split() по диапазонам делает итог независимым от числа ядер при сидированном Rng.
+// Рейтинги — Bradley-Terry по всей матрице в шкале Эло (ничья = пол-победы): порядок партий в параллельном
+// прогоне произвольный, а последовательный Эло от него зависит. «±» — стандартная ошибка по информации Фишера.
+final class ArchetypeLeague {
+    static final int LEAF_PAIRS = 32;          // пар архетипов на листовую задачу
+    static final int FIT_ITERATIONS = 500;
+    static final double ELO_BASE = 1500, ELO_SCALE = 400 / Math.log(10);
+    static final String CSV_PATH = Main.SAVES_DIR + "/league.csv";
+
+    private ArchetypeLeague() {}
+
+    static final class Archetype {
+        final int type;
+        final Role role;
+        final Weapon weapon;
+
+        Archetype(int type, Role role, Weapon weapon) { this.type = type; this.role = role; this.weapon = weapon; }
+
+        String label() { return Warrior.TYPE_NAMES[type] + "/" + role + "/" + weapon; }
+
+        // Статы типа (со своим разбросом), затем выбранные роль и оружие вместо типовых
+        Warrior build(Rng rng, String tag) {
+            Warrior w = Warrior.ofType(type, label(), rng);
+            w.role = role;
+            w.weapon = weapon;
+            w.role.applyTo(w);
+            w.weapon.applyTo(w);
+            w.teamTag = tag;
+            return w;
+        }
+    }
+
+    static List<Archetype> all() {
+        List<Archetype> out = new ArrayList<>();
+        for (int t = 0; t < Warrior.TYPE_NAMES.length; t++)
+            for (Role r : Role.values())
+                for (Weapon w : Weapon.values()) out.add(new Archetype(t, r, w));
+        return out;
+    }
+
+    // ===================== ИТОГИ =====================
+    static final class Result {
+        final List<Archetype> archetypes;
+        final int teamSize, matchesPerPair;
+        final TurnOrder turnOrder;  // порядок ходов во всех матчах
+        final int[] wins;    // wins[i*n+j] — победы i над j
+        final int[] draws;   // draws[i*n+j] при i<j
+        final double[] elo, eloErr;
+        long elapsedMs;
+
+        Result(List<Archetype> archetypes, int teamSize, int matchesPerPair, TurnOrder turnOrder) {
+            this.archetypes = archetypes; this.teamSize = teamSize; this.matchesPerPair = matchesPerPair;
+            this.turnOrder = turnOrder;
+            int n = archetypes.size();
+            wins = new int[n * n];
+            draws = new int[n * n];
+            elo = new double[n];
+            eloErr = new double[n];
+        }
+
+        int size() { return archetypes.size(); }
+
+        long totalMatches() { long n = size(); return n * (n - 1) / 2 * matchesPerPair; }
+
+        // Очки i против j (ничья — пол-очка)
+        double score(int i, int j) {
+            int n = size();
+            return wins[i * n + j] + 0.5 * draws[Math.min(i, j) * n + Math.max(i, j)];
+        }
+
+        double winRate(int i, int j) { return i == j ? 0.5 : score(i, j) / matchesPerPair; }
+
+        double overall(int i) {
+            double s = 0;
+            for (int j = 0; j < size(); j++) if (j != i) s += score(i, j);
+            return s / ((double) matchesPerPair * (size() - 1));
+        }
+
+        Integer[] ranking() {
+            Integer[] idx = new Integer[size()];
+            for (int i = 0; i < idx.length; i++) idx[i] = i;
+            Arrays.sort(idx, (a, b) -> Double.compare(elo[b], elo[a]));
+            return idx;
+        }
+
+        String format(int top) {
+            Integer[] rank = ranking();
+            StringBuilder sb = new StringBuilder();
+            sb.append("\n🏟 Лига: ").append(size()).append(" архетипов, отряды по ").append(teamSize)
+              .append(", ").append(turnOrder.label).append(", ").append(totalMatches()).append(" боёв за ").append(elapsedMs).append(" мс")
+              .append(String.format(Locale.ROOT, " (%.0f боёв/мин)%n", elapsedMs == 0 ? 0.0 : totalMatches() * 60_000.0 / elapsedMs));
+            sb.append("  Лучшие:\n");
+            for (int k = 0; k < Math.min(top, rank.length); k++) line(sb, k + 1, rank[k]);
+            sb.append("  Худшие:\n");
+            for (int k = Math.max(top, rank.length - top); k < rank.length; k++) line(sb, k + 1, rank[k]);
+            sb.append("  Средний процент побед по осям:\n");
+            axis(sb, "тип", Warrior.TYPE_NAMES.length, a -> a.type, t -> Warrior.TYPE_NAMES[t]);
+            axis(sb, "роль", Role.values().length, a -> a.role.ordinal(), r -> Role.values()[r].toString());
+            axis(sb, "оружие", Weapon.values().length, a -> a.weapon.ordinal(), w -> Weapon.values()[w].toString());
+            return sb.toString();
+        }
+
+        private void line(StringBuilder sb, int place, int i) {
+            sb.append(String.format(Locale.ROOT, "  %3d. %-36s Эло %6.0f ±%3.0f | побед %5.1f%%%n",
+                    place, archetypes.get(i).label(), elo[i], 1.96 * eloErr[i], overall(i) * 100));
+        }
+
+        private void axis(StringBuilder sb, String title, int buckets,
+                          java.util.function.ToIntFunction<Archetype> key, java.util.function.IntFunction<String> name) {
+            double[] sum = new double[buckets];
+            int[] cnt = new int[buckets];
+            for (int i = 0; i < size(); i++) {
+                int b = key.applyAsInt(archetypes.get(i));
+                sum[b] += overall(i);
+                cnt[b]++;
+            }
+            sb.append("    ").append(title).append(':');
+            for (int b = 0; b < buckets; b++)
+                if (cnt[b] > 0) sb.append(String.format(Locale.ROOT, " %s %.1f%%", name.apply(b), sum[b] / cnt[b] * 100));
+            sb.append('\n');
+        }
+
+        // Матрица процентов побед строки над столбцом + рейтинг
+        void writeCsv(Path path) throws IOException {
+            if (path.getParent() != null) Files.createDirectories(path.getParent());
+            try (BufferedWriter w = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+                w.write("archetype,elo,elo_err");
+                for (Archetype a : archetypes) { w.write(','); w.write(a.label()); }
+                w.newLine();
+                for (int i = 0; i < size(); i++) {
+                    w.write(archetypes.get(i).label());
+                    w.write(String.format(Locale.ROOT, ",%.1f,%.1f", elo[i], eloErr[i]));
+                    for (int j = 0; j < size(); j++) w.write(String.format(Locale.ROOT, ",%.4f", winRate(i, j)));
+                    w.newLine();
+                }
+            }
+        }
+    }
+
+    // ===================== ПРОГОН =====================
+    static Result run(int teamSize, int matchesPerPair) {
+        return run(all(), teamSize, matchesPerPair, Main.rng().split(), ForkJoinPool.commonPool());
+    }
+
+    static Result run(List<Archetype> archetypes, int teamSize, int matchesPerPair, Rng rng, ForkJoinPool pool) {
+        long t0 = System.nanoTime();
+        Result res = new Result(archetypes, teamSize, matchesPerPair, Main.session().turnOrder);
+        int n = archetypes.size();
+        int pairs = n * (n - 1) / 2;
+        int[] pi = new int[pairs], pj = new int[pairs];
+        int k = 0;
+        for (int i = 0; i < n; i++) for (int j = i + 1; j < n; j++) { pi[k] = i; pj[k] = j; k++; }
+        pool.invoke(new Pairs(res, pi, pj, 0, pairs, rng));
+        fitRatings(res);
+        res.elapsedMs = (System.nanoTime() - t0) / 1_000_000L;
+        return res;
+    }
+
+    private static final class Pairs extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        final Result res;
+        final int[] pi, pj;
+        final int from, to;
+        final Rng rng;
+
+        Pairs(Result res, int[] pi, int[] pj, int from, int to, Rng rng) {
+            this.res = res; this.pi = pi; this.pj = pj; this.from = from; this.to = to; this.rng = rng;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= LEAF_PAIRS) {
+                for (int p = from; p < to; p++) playPair(res, pi[p], pj[p], rng.split());
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new Pairs(res, pi, pj, from, mid, rng.split()), new Pairs(res, pi, pj, mid, to, rng.split()));
+        }
+    }
+
+    private static void playPair(Result res, int i, int j, Rng rng) {
+        int n = res.size();
+        int firstHalf = (res.matchesPerPair + 1) / 2;
+        int[] out = new int[3]; // победы i, победы j, ничьи
+        playHalf(res, i, j, firstHalf, rng, out, false);
+        playHalf(res, j, i, res.matchesPerPair - firstHalf, rng, out, true);
+        res.wins[i * n + j] = out[0];
+        res.wins[j * n + i] = out[1];
+        res.draws[i * n + j] = out[2];
+    }
+
+    private static void playHalf(Result res, int a, int b, int matches, Rng rng, int[] out, boolean swapped) {
+        if (matches <= 0) return;
+        Warrior[] teamA = new Warrior[res.teamSize], teamB = new Warrior[res.teamSize];
+        for (int s = 0; s < res.teamSize; s++) {
+            teamA[s] = res.archetypes.get(a).build(rng, "[A]");
+            teamB[s] = res.archetypes.get(b).build(rng, "[B]");
+        }
+        BattleState st = new BattleState(teamA, teamB);
+        st.strategy = StrategyPlan.STANDARD;
+        st.tier = 0;
+        st.turnOrder = res.turnOrder;
+        for (int m = 0; m < matches; m++) {
+            st.reset();
+            st.playBattle(rng, BattleSimulator.MAX_ROUNDS);
+            boolean aAlive = st.aliveA > 0, bAlive = st.aliveB > 0;
+            if (aAlive && !bAlive) out[swapped ? 1 : 0]++;
+            else if (bAlive && !aAlive) out[swapped ? 0 : 1]++;
+            else out[2]++;
+        }
+    }
+
+    // ===================== РЕЙТИНГ =====================
+    // MM-итерации Bradley-Terry (Hunter, 2004) с одной виртуальной ничьей против «среднего» соперника,
+    // чтобы архетип без побед не уходил в −∞; сила нормируется на среднее геометрическое = 1 (Эло 1500).
+    static void fitRatings(Result res) {
+        int n = res.size();
+        int m = res.matchesPerPair;
+        double[] gamma = new double[n];
+        double[] score = new double[n];
+        Arrays.fill(gamma, 1.0);
+        for (int i = 0; i < n; i++) {
+            double s = 0.5;
+            for (int j = 0; j < n; j++) if (j != i) s += res.score(i, j);
+            score[i] = s;
+        }
+        double[] next = new double[n];
+        for (int it = 0; it < FIT_ITERATIONS; it++) {
+            double maxDelta = 0;
+            for (int i = 0; i < n; i++) {
+                double denom = 1.0 / (gamma[i] + 1.0);
+                for (int j = 0; j < n; j++) if (j != i) denom += m / (gamma[i] + gamma[j]);
+                next[i] = score[i] / denom;
+            }
+            double logMean = 0;
+            for (int i = 0; i < n; i++) logMean += Math.log(next[i]);
+            double norm = Math.exp(logMean / n);
+            for (int i = 0; i < n; i++) {
+                double g = next[i] / norm;
+                maxDelta = Math.max(maxDelta, Math.abs(Math.log(g / gamma[i])));
+                gamma[i] = g;
+            }
+            if (maxDelta < 1e-9) break;
+        }
+        for (int i = 0; i < n; i++) {
+            double info = gamma[i] / ((gamma[i] + 1.0) * (gamma[i] + 1.0));
+            for (int j = 0; j < n; j++) {
+                if (j == i) continue;
+                double p = gamma[i] / (gamma[i] + gamma[j]);
+                info += m * p * (1 - p);
+            }
+            res.elo[i] = ELO_BASE + ELO_SCALE * Math.log(gamma[i]);
+            res.eloErr[i] = ELO_SCALE / Math.sqrt(info);
+        }
+    }
+}
@@ -0,0 +1,244 @@
+// ===================== ДВИЖОК КОМАНДНОГО БОЯ =====================
+// Встраиваемый бой A против B: до конца (run), по раунду (playRound) или по одному ходу (step).
+// Решения команды A берутся у DecisionProvider, команда B — ИИ; без провайдера ИИ играет за обе стороны
+// (ровно правила BattleState). Сам движок не читает ввод и ничего не печатает, кроме строк лога боя.
+// Движок без сессии (headless) ведёт бой в своей GameSession: стратегия, ГСЧ и уровень лога
+// не пересекаются с другими боями в том же потоке, лог выключен.
+// Живые каждой стороны ведёт AliveSet: выбор цели, проверка конца боя и сводка — O(1) на ход,
+// так что массовый бой (тысячи бойцов на сторону) стоит O(n) за раунд.
+// Порядок ходов внутри раунда — TurnScheduler (перемешивание или инициатива), выбирается на бой.
+final class BattleEngine {
+    enum Outcome { RUNNING, A_WON, B_WON, DRAW }
+
+    private final Warrior[] teamA, teamB;
+    private final AliveSet aliveA, aliveB;
+    private final DecisionProvider decisions;  // null — ИИ за обе стороны
+    private final GameSession session;         // null — сессия потока (интерактивная игра)
+    private final Rng rng;
+
+    private int round;
+    private TurnOrder turnOrder;
+    private TurnScheduler turns;
+    private RoundOrder orders;
+    private boolean inRound = false;
+    private FlightEvents.Round roundEvent;     // JFR: от начала до конца текущего раунда
+
+    // В сессии текущего потока; firstRound — номер первого раунда (продолжение загруженного боя)
+    BattleEngine(Warrior[] teamA, Warrior[] teamB, DecisionProvider decisions, Rng rng, int firstRound) {
+        this(teamA, teamB, decisions, rng, firstRound, null);
+    }
+
+    private BattleEngine(Warrior[] teamA, Warrior[] teamB, DecisionProvider decisions, Rng rng, int firstRound, GameSession session) {
+        this.teamA = teamA; this.teamB = teamB; this.decisions = decisions; this.rng = rng;
+        this.round = firstRound - 1;
+        this.session = session;
+        this.aliveA = new AliveSet(teamA);
+        this.aliveB = new AliveSet(teamB);
+        this.turnOrder = (session != null ? session : Main.session()).turnOrder;
+        CombatMods.newBattle(teamA, teamB);
+    }
+
+    // Бой без ввода/вывода в собственной сессии (для сервисов и массовых прогонов)
+    static BattleEngine headless(Warrior[] teamA, Warrior[] teamB, DecisionProvider decisions, Rng rng) {
+        GameSession s = new GameSession("engine", null, null);
+        s.logLevel = -1;
+        s.rng = rng;
+        return new BattleEngine(teamA, teamB, decisions, rng, 1, s);
+    }
+
+    // Порядок ходов на этот бой (по умолчанию — из сессии); меняется только между раундами
+    BattleEngine turnOrder(TurnOrder order) {
+        if (!inRound && order != turnOrder) { turnOrder = order; turns = null; }
+        return this;
+    }
+
+    TurnOrder turnOrder() { return turnOrder; }
+
+    Warrior[] teamA() { return teamA; }
+    Warrior[] teamB() { return teamB; }
+    int round() { return round; }
+    boolean finished() { return !aliveA.any() || !aliveB.any(); }
+    int aliveCountA() { return aliveA.count(); }
+    int aliveCountB() { return aliveB.count(); }
+
+    // Первый живой противник (1-based) — для приказа фокуса
+    Integer firstAliveIndexB() { return aliveB.firstIndex1Based(); }
+
+    String summary() { return Main.teamMiniSummary(aliveA.count(), aliveA.hp(), aliveB.count(), aliveB.hp()); }
+
+    Outcome outcome() {
+        boolean a = aliveA.any(), b = aliveB.any();
+        return a && b ? Outcome.RUNNING : a ? Outcome.A_WON : b ? Outcome.B_WON : Outcome.DRAW;
+    }
+
+    // Стратегия на бой от провайдера (tier 0 — только стандарт)
+    StrategyPlan chooseStrategy(int tier) {
+        StrategyPlan plan = decisions == null ? StrategyPlan.STANDARD : decisions.strategy(teamA, teamB, tier);
+        GameSession s = session != null ? session : Main.session();
+        s.strategy = plan;
+        s.tier = plan == StrategyPlan.STANDARD ? 0 : tier;
+        return plan;
+    }
+
+    // Приказ на раунд от провайдера (ИИ приказов не отдаёт)
+    RoundOrder askRoundOrder() {
+        return decisions == null ? new RoundOrder() : decisions.roundOrder(teamA, teamB);
+    }
+
+    // ===================== ХОД ВЫПОЛНЕНИЯ =====================
+    Outcome run(int maxRounds) {
+        GameSession prev = enter();
+        try {
+            while (!finished() && round < maxRounds) playRoundInSession(askRoundOrder());
+            if (finished()) detach();
+        } finally {
+            leave(prev);
+        }
+        return outcome();
+    }
+
+    void playRound(RoundOrder ro) {
+        GameSession prev = enter();
+        try {
+            playRoundInSession(ro);
+        } finally {
+            leave(prev);
+        }
+    }
+
+    // Один ход одного бойца (раунд начинается сам, с приказом от провайдера); false — бой окончен
+    boolean step() {
+        GameSession prev = enter();
+        try {
+            if (finished()) { endRound(); return false; }
+            if (!inRound) beginRound(askRoundOrder());
+            stepInRound();
+            return !finished();
+        } finally {
+            leave(prev);
+        }
+    }
+
+    private void playRoundInSession(RoundOrder ro) {
+        if (!inRound) beginRound(ro);
+        while (inRound) stepInRound();
+    }
+
+    // Лог раунда копится в приёмнике и выводится одной записью в конце (или перед запросом ввода)
+    private void beginRound(RoundOrder ro) {
+        round++;
+        orders = ro;
+        inRound = true;
+        roundEvent = new FlightEvents.Round();
+        roundEvent.begin();
+        Main.LOG_SINK.get().beginBatch();
+        if (Main.logOn(Main.BRIEF)) Main.log(Main.BRIEF, Main.c(Main.CYAN, "\n🎲 — Раунд " + round + " — ("
+                + turnOrder.label + ")"));
+        CombatLog.Writer rec = CombatLog.active();
+        if (rec != null) rec.round(round);
+        if (turns == null) turns = TurnScheduler.of(turnOrder, teamA, teamB);
+        turns.beginRound(rng);
+        if (roundEvent.isEnabled()) {
+            roundEvent.round = round;
+            roundEvent.actors = aliveA.count() + aliveB.count();
+            roundEvent.aliveA = FlightEvents.alive(teamA);
+            roundEvent.aliveB = FlightEvents.alive(teamB);
+            roundEvent.strategyTier = (session != null ? session : Main.session()).tier;
+            roundEvent.focus = ro != null && ro.focusEnemyIndexB != null;
+        }
+    }
+
+    private void stepInRound() {
+        while (turns.hasNext() && !finished()) {
+            Warrior me = turns.next();
+            if (me.hp <= 0) continue;
+            boolean sideA = me.teamTag != null && me.teamTag.contains("[A]");
+            turn(me, sideA ? teamA : teamB, sideA ? teamB : teamA, sideA);
+            break;
+        }
+        if (!turns.hasNext() || finished()) endRound();
+    }
+
+    private void endRound() {
+        if (!inRound) return;
+        inRound = false;
+        Main.LOG_SINK.get().endBatch();
+        roundEvent.commit();
+        roundEvent = null;
+        if (finished()) detach();
+    }
+
+    // Конец боя: снять обратные ссылки Warrior.side / sideIndex
+    private void detach() {
+        aliveA.detach();
+        aliveB.detach();
+    }
+
+    private void turn(Warrior attacker, Warrior[] allyTeam, Warrior[] enemyTeam, boolean sideA) {
+        if (!attacker.tryStartTurn()) return;
+
+        if (sideA && decisions != null) {
+            switch (decisions.action(attacker, allyTeam, enemyTeam, rng)) {
+                case POTION_SELF: {
+                    if (attacker.potions > 0 && attacker.hp < attacker.maxHp) attacker.usePotion();
+                    else Main.log(Main.BRIEF, "Нет зелий или hp полное — действие пропущено.");
+                    return;
+                }
+                case POTION_ALLY: {
+                    if (attacker.potions <= 0) { Main.log(Main.BRIEF, "Нет зелий."); return; }
+                    int idx = decisions.potionTarget(attacker, allyTeam);
+                    if (idx >= 0 && idx < allyTeam.length) attacker.usePotionOn(allyTeam[idx]);
+                    return;
+                }
+                case STANCE_AGGR: {
+                    attacker.nextTurnStance = StanceType.AGGRESSIVE;
+                    CombatLog.Writer rec = CombatLog.active();
+                    if (rec != null) rec.stance(attacker, StanceType.AGGRESSIVE);
+                    if (Main.logOn(Main.BRIEF)) Main.log(Main.BRIEF, "⚔ Стойка: атакующая — эффект на следующий ход " + attacker.label());
+                    return;
+                }
+                case STANCE_DEF: {
+                    attacker.defenseStance = StanceType.DEFENSIVE;
+                    CombatLog.Writer rec = CombatLog.active();
+                    if (rec != null) rec.stance(attacker, StanceType.DEFENSIVE);
+                    if (Main.logOn(Main.BRIEF)) Main.log(Main.BRIEF, "🛡 Стойка: защитная — действует до следующего хода " + attacker.label());
+                    return;
+                }
+                case ATTACK:
+                default:
+                    break;
+            }
+        } else {
+            if (attacker.hp <= Main.LOW_HP_THRESHOLD && attacker.potions > 0) {
+                if (rng.chance(Main.TEAM_HEAL_CHANCE)) { attacker.usePotion(); return; }
+            }
+        }
+
+        Warrior target = null;
+        if (sideA && orders != null && orders.focusEnemyIndexB != null) {
+            int idx = orders.focusEnemyIndexB - 1;
+            if (idx >= 0 && idx < enemyTeam.length) {
+                Warrior cand = enemyTeam[idx];
+                if (cand != null && cand.hp > 0) target = cand;
+            }
+        }
+        if (target == null) target = (sideA ? aliveB : aliveA).random(rng);
+
+        if (target != null) {
+            attacker.attack(target, rng);
+            if (target.hp <= 0 && target.side != null) turns.removed(!sideA, target.sideIndex);
+        }
+    }
+
+    // Своя сессия движка — на время вызова; прежняя восстанавливается
+    private GameSession enter() {
+        if (session == null) return null;
+        GameSession prev = GameSession.current();
+        GameSession.bind(session);
+        return prev;
+    }
+
+    private void leave(GameSession prev) {
+        if (prev != null) GameSession.bind(prev);
+    }
+}
@@ -0,0 +1,149 @@
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// ===================== СИМУЛЯТОР БОЁВ (HEADLESS, MONTE CARLO) =====================
+// Гоняет N командных боёв без Scanner и без вывода. Бои идут на BattleState (SoA) — те же правила
+// и броски, что у BattleEngine без провайдера, — загруженном из глубоких копий исходных бойцов;
+// между боями состояние сбрасывается reset(), так что горячий цикл не выделяет памяти.
+// Случайность: дерево split() от корневого Rng строится по диапазонам, а не по потокам,
+// поэтому при сидированном Rng результат не зависит от числа ядер и порядка кражи задач.
+class BattleSimulator {
+    static final int MAX_ROUNDS = 500;      // страховка от бесконечного боя (считается ничьей)
+    static final int LEAF_BATTLES = 256;    // размер листовой задачи fork-join
+
+    static SimReport simulate(Warrior[] teamA, Warrior[] teamB, int battles) {
+        return simulate(teamA, teamB, battles, Main.rng().split(), ForkJoinPool.commonPool());
+    }
+
+    static SimReport simulate(Warrior[] teamA, Warrior[] teamB, int battles, Rng rng) {
+        return simulate(teamA, teamB, battles, rng, ForkJoinPool.commonPool());
+    }
+
+    static SimReport simulate(Warrior[] teamA, Warrior[] teamB, int battles, Rng rng, ForkJoinPool pool) {
+        Warrior[] protoA = copyTeam(teamA, "[A]");
+        Warrior[] protoB = copyTeam(teamB, "[B]");
+        int[] rounds = new int[Math.max(0, battles)];
+        // Потоки пула не привязаны к сессии — стратегию и порядок ходов берём здесь, в потоке вызывающего
+        GameSession session = Main.session();
+        Tally t = pool.invoke(new Chunk(protoA, protoB, session.strategy, session.tier, session.turnOrder, rounds, 0, rounds.length, rng));
+        return new SimReport(t, rounds, session.turnOrder);
+    }
+
+    static Warrior[] copyTeam(Warrior[] team, String tag) {
+        List<Warrior> out = new ArrayList<>();
+        for (Warrior w : team) {
+            if (w == null) continue;
+            Warrior c = w.copy();
+            c.teamTag = tag;
+            out.add(c);
+        }
+        return out.toArray(new Warrior[0]);
+    }
+
+    // Один бой; число раундов пишет в rounds[i], исход — в tally
+    static void runOne(BattleState s, Tally t, int[] rounds, int i, Rng rng) {
+        s.reset();
+        rounds[i] = s.playBattle(rng, MAX_ROUNDS);
+        boolean aAlive = s.aliveA > 0, bAlive = s.aliveB > 0;
+        if (aAlive && !bAlive) t.winsA++;
+        else if (bAlive && !aAlive) t.winsB++;
+        else t.draws++;
+        t.hpA += s.hpSum(true);
+        t.hpB += s.hpSum(false);
+    }
+
+    // Частичные итоги поддиапазона боёв
+    static class Tally {
+        long winsA, winsB, draws;
+        long hpA, hpB;
+
+        Tally merge(Tally o) {
+            winsA += o.winsA; winsB += o.winsB; draws += o.draws;
+            hpA += o.hpA; hpB += o.hpB;
+            return this;
+        }
+    }
+
+    static class Chunk extends RecursiveTask<Tally> {
+        private static final long serialVersionUID = 1L;
+        final Warrior[] protoA, protoB;
+        final StrategyPlan strategy;
+        final int tier;
+        final TurnOrder turnOrder;
+        final int[] rounds;
+        final int from, to;
+        final Rng rng;
+
+        Chunk(Warrior[] protoA, Warrior[] protoB, StrategyPlan strategy, int tier, TurnOrder turnOrder, int[] rounds, int from, int to, Rng rng) {
+            this.protoA = protoA; this.protoB = protoB; this.strategy = strategy; this.tier = tier; this.turnOrder = turnOrder;
+            this.rounds = rounds; this.from = from; this.to = to;
+            this.rng = rng;
+        }
+
+        @Override
+        protected Tally compute() {
+            if (to - from <= LEAF_BATTLES) {
+                Tally t = new Tally();
+                BattleState s = new BattleState(protoA, protoB);
+                s.strategy = strategy;
+                s.tier = tier;
+                s.turnOrder = turnOrder;
+                for (int i = from; i < to; i++) runOne(s, t, rounds, i, rng.split());
+                return t;
+            }
+            int mid = (from + to) >>> 1;
+            Chunk left = new Chunk(protoA, protoB, strategy, tier, turnOrder, rounds, from, mid, rng.split());
+            Chunk rightTask = new Chunk(protoA, protoB, strategy, tier, turnOrder, rounds, mid, to, rng.split());
+            left.fork();
+            Tally right = rightTask.compute();
+            return right.merge(left.join());
+        }
+    }
+
+    // ===== Отчёт =====
+    static class SimReport {
+        final int battles;
+        final long winsA, winsB, draws;
+        final double meanRounds;
+        final int p50, p90, p99, maxRounds;
+        final double meanHpA, meanHpB;
+        final TurnOrder turnOrder;
+
+        SimReport(Tally t, int[] rounds, TurnOrder turnOrder) {
+            battles = rounds.length;
+            this.turnOrder = turnOrder;
+            winsA = t.winsA; winsB = t.winsB; draws = t.draws;
+            int[] sorted = rounds.clone();
+            Arrays.sort(sorted);
+            long sum = 0;
+            for (int r : sorted) sum += r;
+            meanRounds = battles == 0 ? 0 : (double) sum / battles;
+            p50 = percentile(sorted, 0.50);
+            p90 = percentile(sorted, 0.90);
+            p99 = percentile(sorted, 0.99);
+            maxRounds = battles == 0 ? 0 : sorted[battles - 1];
+            meanHpA = battles == 0 ? 0 : (double) t.hpA / battles;
+            meanHpB = battles == 0 ? 0 : (double) t.hpB / battles;
+        }
+
+        double winRateA() { return battles == 0 ? 0 : (double) winsA / battles; }
+        double winRateB() { return battles == 0 ? 0 : (double) winsB / battles; }
+
+        // nearest-rank
+        static int percentile(int[] sorted, double q) {
+            if (sorted.length == 0) return 0;
+            int idx = (int) Math.ceil(q * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(sorted.length - 1, idx))];
+        }
+
+        String format() {
+            return "\n📈 Симуляция: " + battles + " боёв (" + turnOrder.label + ")\n" +
+                    String.format(Locale.ROOT, "  Победы A: %.1f%% (%d) | Победы B: %.1f%% (%d) | Ничьи: %d%n",
+                            winRateA() * 100, winsA, winRateB() * 100, winsB, draws) +
+                    String.format(Locale.ROOT, "  Раунды: среднее %.2f | p50=%d p90=%d p99=%d max=%d%n",
+                            meanRounds, p50, p90, p99, maxRounds) +
+                    String.format(Locale.ROOT, "  Остаток HP: A %.1f | B %.1f (в среднем за бой)", meanHpA, meanHpB);
+        }
+    }
+}
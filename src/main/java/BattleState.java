@@ -0,0 +1,261 @@
+// ===================== БОЙ В ВИДЕ МАССИВОВ (SoA) =====================
+// Состояние командного боя в примитивных массивах по слотам: 0..nA-1 — команда A, nA..n-1 — команда B.
+// Правила — ровно те же, что в BattleEngine без провайдера (ИИ за обе стороны) и Warrior.attack,
+// и с тем же порядком бросков Rng, поэтому при одинаковом сиде исход совпадает с объектным боем.
+// Модификаторы удара (роль, стойки, клич, стратегия) не переписаны, а взяты из таблиц CombatMods.
+// Живые каждой стороны — список слотов со swap-remove, как AliveSet движка: случайная цель берётся
+// из того же порядка, что и в BattleEngine, а не по возрастанию индекса.
+// Порядок ходов — как у движка (TurnOrder): SHUFFLE тасует живых в заранее выделенном int[],
+// INITIATIVE берёт ту же кучу InitiativeQueue и ту же формулу инициативы, что InitiativeTurns.
+// Раунд не выделяет памяти.
+final class BattleState {
+    static final byte ST_NONE = 0, ST_AGGR = 1, ST_DEF = 2;
+
+    final int nA, n;
+    final Warrior[] source;     // откуда загружено (для writeBack)
+
+    // Неизменные в бою статы
+    final int[] maxHp, attack, minDamage;
+    final double[] miss;
+    final int[] weight;         // вес оружия — для инициативы
+    // Таблицы CombatMods по слотам под текущие strategy/tier (пересобираются, если те поменялись)
+    private final CombatMods[] mods;
+    private StrategyPlan modsStrategy;
+    private int modsTier;
+
+    // Изменяемое состояние
+    final int[] hp, potions, fatigue, attackCount;
+    final boolean[] stunned;
+    final byte[] nextStance, defStance;
+    int aliveA, aliveB;
+
+    // Снимок стартового состояния для reset()
+    private final int[] hp0, potions0, fatigue0, attackCount0;
+    private final boolean[] stunned0;
+    private final byte[] nextStance0, defStance0;
+
+    // Стратегия на бой (для команды A) и порядок ходов; по умолчанию — из сессии потока
+    StrategyPlan strategy;
+    int tier;
+    TurnOrder turnOrder;
+
+    private final int[] order;  // порядок ходов текущего раунда (SHUFFLE)
+    private int orderLen, orderNext;
+    private InitiativeQueue queue;  // очередь раунда (INITIATIVE), создаётся при первом раунде
+    // Живые: слоты A в live[0, aliveA), слоты B в live[nA, nA + aliveB); livePos — место слота в live
+    private final int[] live, livePos;
+
+    BattleState(Warrior[] teamA, Warrior[] teamB) {
+        int ca = 0, cb = 0;
+        for (Warrior w : teamA) if (w != null) ca++;
+        for (Warrior w : teamB) if (w != null) cb++;
+        nA = ca; n = ca + cb;
+        source = new Warrior[n];
+        int k = 0;
+        for (Warrior w : teamA) if (w != null) source[k++] = w;
+        for (Warrior w : teamB) if (w != null) source[k++] = w;
+
+        maxHp = new int[n]; attack = new int[n]; minDamage = new int[n];
+        miss = new double[n]; weight = new int[n];
+        mods = new CombatMods[n];
+        hp = new int[n]; potions = new int[n]; fatigue = new int[n]; attackCount = new int[n];
+        stunned = new boolean[n]; nextStance = new byte[n]; defStance = new byte[n];
+        hp0 = new int[n]; potions0 = new int[n]; fatigue0 = new int[n]; attackCount0 = new int[n];
+        stunned0 = new boolean[n]; nextStance0 = new byte[n]; defStance0 = new byte[n];
+        order = new int[n];
+        live = new int[n]; livePos = new int[n];
+
+        for (int i = 0; i < n; i++) {
+            Warrior w = source[i];
+            maxHp[i] = w.maxHp; attack[i] = w.attack; minDamage[i] = w.minDamage;
+            miss[i] = w.missChance; weight[i] = w.weapon.weight;
+
+            hp0[i] = w.hp; potions0[i] = w.potions; fatigue0[i] = w.fatigue; attackCount0[i] = w.battleAttackCount;
+            stunned0[i] = w.stunned; nextStance0[i] = stanceCode(w.nextTurnStance); defStance0[i] = stanceCode(w.defenseStance);
+        }
+        GameSession session = Main.session();
+        strategy = session.strategy;
+        tier = session.tier;
+        turnOrder = session.turnOrder;
+        mods();
+        reset();
+    }
+
+    static byte stanceCode(StanceType s) {
+        return s == StanceType.AGGRESSIVE ? ST_AGGR : s == StanceType.DEFENSIVE ? ST_DEF : ST_NONE;
+    }
+    static StanceType stanceOf(byte code) {
+        return code == ST_AGGR ? StanceType.AGGRESSIVE : code == ST_DEF ? StanceType.DEFENSIVE : StanceType.NONE;
+    }
+
+    // Вернуть стартовое состояние (для повторных прогонов без выделения памяти)
+    void reset() {
+        System.arraycopy(hp0, 0, hp, 0, n);
+        System.arraycopy(potions0, 0, potions, 0, n);
+        System.arraycopy(fatigue0, 0, fatigue, 0, n);
+        System.arraycopy(attackCount0, 0, attackCount, 0, n);
+        System.arraycopy(stunned0, 0, stunned, 0, n);
+        System.arraycopy(nextStance0, 0, nextStance, 0, n);
+        System.arraycopy(defStance0, 0, defStance, 0, n);
+        aliveA = 0; aliveB = 0;
+        for (int i = 0; i < n; i++) {
+            if (hp[i] <= 0) { livePos[i] = -1; continue; }
+            int p = i < nA ? aliveA++ : nA + aliveB++;
+            live[p] = i;
+            livePos[i] = p;
+        }
+    }
+
+    // Записать изменяемое состояние обратно в исходных бойцов
+    void writeBack() {
+        for (int i = 0; i < n; i++) {
+            Warrior w = source[i];
+            w.hp = hp[i]; w.potions = potions[i]; w.fatigue = fatigue[i]; w.battleAttackCount = attackCount[i];
+            w.stunned = stunned[i]; w.nextTurnStance = stanceOf(nextStance[i]); w.defenseStance = stanceOf(defStance[i]);
+        }
+    }
+
+    boolean finished() { return aliveA == 0 || aliveB == 0; }
+    boolean isA(int slot) { return slot < nA; }
+
+    int hpSum(boolean teamA) {
+        int s = 0;
+        int from = teamA ? 0 : nA, to = teamA ? nA : n;
+        for (int i = from; i < to; i++) s += hp[i];
+        return s;
+    }
+
+    // Бой до конца (или до maxRounds); возвращает число сыгранных раундов
+    int playBattle(Rng rng, int maxRounds) {
+        int round = 0;
+        while (!finished() && round < maxRounds) {
+            playRound(rng, -1);
+            round++;
+        }
+        return round;
+    }
+
+    // Раунд в порядке turnOrder; focusB — индекс цели в команде B (0-based) или -1
+    void playRound(Rng rng, int focusB) {
+        beginRound(rng);
+        while (hasNextTurn() && !finished()) takeTurn(nextTurn(), rng, focusB);
+    }
+
+    // Очередь раунда из живых на его начало — те же броски Rng, что у ShuffleTurns / InitiativeTurns
+    void beginRound(Rng rng) {
+        if (turnOrder == TurnOrder.INITIATIVE) {
+            if (queue == null) queue = new InitiativeQueue(n);
+            queue.clear();
+            for (int i = 0; i < n; i++) {
+                if (hp[i] > 0) queue.add(i, InitiativeTurns.initiative(weight[i], fatigue[i], nextStance[i] == ST_AGGR, defStance[i] == ST_DEF), rng);
+            }
+            queue.build();
+            return;
+        }
+        orderLen = 0; orderNext = 0;
+        for (int i = 0; i < n; i++) if (hp[i] > 0) order[orderLen++] = i;
+        for (int i = orderLen; i > 1; i--) {
+            int j = rng.nextInt(i);
+            int t = order[i - 1]; order[i - 1] = order[j]; order[j] = t;
+        }
+    }
+
+    boolean hasNextTurn() {
+        return turnOrder == TurnOrder.INITIATIVE ? !queue.isEmpty() : orderNext < orderLen;
+    }
+
+    // Следующий по очереди слот (может оказаться уже убитым в SHUFFLE — takeTurn пропустит)
+    int nextTurn() {
+        return turnOrder == TurnOrder.INITIATIVE ? queue.poll() : order[orderNext++];
+    }
+
+    // Ход бойца под управлением ИИ (как BattleEngine.turn без провайдера)
+    void takeTurn(int a, Rng rng, int focusB) {
+        if (hp[a] <= 0) return;
+        if (!tryStartTurn(a)) return;
+        if (hp[a] <= Main.LOW_HP_THRESHOLD && potions[a] > 0) {
+            if (rng.chance(Main.TEAM_HEAL_CHANCE)) { usePotion(a, a); return; }
+        }
+        int target = -1;
+        if (isA(a) && focusB >= 0 && nA + focusB < n && hp[nA + focusB] > 0) target = nA + focusB;
+        if (target == -1) target = randomAlive(!isA(a), rng);
+        if (target != -1) attack(a, target, rng);
+    }
+
+    boolean tryStartTurn(int a) {
+        if (defStance[a] == ST_DEF) defStance[a] = ST_NONE;
+        if (stunned[a]) { stunned[a] = false; return false; }
+        return hp[a] > 0;
+    }
+
+    int randomAlive(boolean teamA, Rng rng) {
+        int alive = teamA ? aliveA : aliveB;
+        if (alive == 0) return -1;
+        return live[(teamA ? 0 : nA) + rng.nextInt(alive)];
+    }
+
+    // Слот погиб: последний живой его стороны встаёт на его место (как AliveSet.remove)
+    private void died(int slot) {
+        int p = livePos[slot];
+        int last = slot < nA ? --aliveA : nA + --aliveB;
+        int moved = live[last];
+        live[p] = moved;
+        livePos[moved] = p;
+        livePos[slot] = -1;
+        if (queue != null) queue.remove(slot);
+    }
+
+    void usePotion(int giver, int target) {
+        if (potions[giver] <= 0 || hp[target] <= 0) return;
+        hp[target] = Math.min(maxHp[target], hp[target] + 8);
+        potions[giver]--;
+    }
+
+    // Таблицы слотов под текущие strategy/tier
+    private CombatMods[] mods() {
+        if (modsStrategy != strategy || modsTier != tier) {
+            for (int i = 0; i < n; i++) mods[i] = CombatMods.forSlot(source[i], strategy, tier, i < nA);
+            modsStrategy = strategy;
+            modsTier = tier;
+        }
+        return mods;
+    }
+
+    // Warrior.attack по слотам: те же броски и те же таблицы CombatMods
+    void attack(int a, int e, Rng rng) {
+        if (rng.nextDouble() < miss[a]) return;
+
+        CombatMods[] t = mods();
+        CombatMods m = t[a], dm = t[e];
+        int ds = defStance[e] == ST_DEF ? 1 : 0;
+        if (rng.nextDouble() < dm.block[ds]) return;
+        if (rng.nextDouble() < dm.dodge[ds]) return;
+
+        int as = nextStance[a] == ST_AGGR ? 1 : 0;
+        if (as == 1) nextStance[a] = ST_NONE;
+
+        int damage = Math.max(minDamage[a], attack[a] - fatigue[a]) + m.dmgBonus[as];
+
+        boolean isCrit = rng.nextDouble() < m.crit[as];
+        if (isCrit) damage *= 2;
+
+        int effectiveArmor = Math.max(0, dm.armor[ds] - m.pierceByParity[(attackCount[a] + 1) & 1]);
+        int finalDamage = Math.max(1, damage - effectiveArmor);
+
+        if (isCrit) finalDamage = (int) Math.max(1, Math.floor(finalDamage * dm.critKeep));
+        finalDamage = (int) Math.max(1, Math.floor(finalDamage * m.outgoing));
+        finalDamage = (int) Math.max(1, Math.floor(finalDamage * dm.incoming));
+
+        hp[e] -= finalDamage;
+        if (hp[e] <= 0) {
+            hp[e] = 0;
+            died(e);
+            fatigue[a]++;
+            attackCount[a]++;
+            return;
+        }
+        if (isCrit && rng.nextDouble() < m.stunProb[as]) stunned[e] = true;
+        fatigue[a]++;
+        attackCount[a]++;
+    }
+}
@@ -0,0 +1,528 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// ===================== БИНАРНЫЙ ФОРМАТ СЕЙВА (.msb) =====================
+// Заголовок: "MSB" + версия формата + версия схемы + флаги (бит 0 — тело сжато Deflate со словарём).
+// Тело — поля с тегами, как в protobuf: ключ = (номер поля << 3) | тип;
+//   VARINT (int/boolean/enum — zigzag или ordinal), FIXED64 (double), BYTES (строка UTF-8),
+//   GROUP (вложенный объект или массив; заканчивается ключом 0).
+// Неизвестные поля пропускаются по типу, отсутствующие остаются значением по умолчанию класса;
+// поля Warrior, совпадающие с умолчаниями, не пишутся вовсе.
+// Порядковые номера enum'ов — часть схемы: при перестановке констант поднимать SCHEMA.
+final class BinarySave {
+    static final byte[] MAGIC = {'M', 'S', 'B'};
+    static final int VERSION = 1;
+    static final int SCHEMA = 1;
+    static final int FLAG_DEFLATE = 1;
+    static final int MAX_BODY = 16 << 20;   // распакованное тело больше — заведомо испорченный заголовок
+    static final int MAX_WARRIORS = 100_000; // длина массива бойцов и индекс слота (больше команд игра не собирает)
+
+    static final String EXT = ".msb";
+
+    private static final int VARINT = 0, FIXED64 = 1, BYTES = 2, GROUP = 3;
+
+    // Значения полей нового бойца — их не пишем
+    private static final Warrior DEF = new Warrior(null, 0, 0);
+
+    private BinarySave() {}
+
+    // ===================== СЛОВАРЬ =====================
+    // Предустановленный словарь Deflate: то, что повторяется в типичных сейвах — имена из пулов, метки команд
+    // и начала описаний узлов карты («Бой #», «Событие #», «Рынок #»; сами описания с номерами в словарь не входят).
+    // Байты словаря заморожены для каждой SCHEMA: пулы имён — данные (NameDeck) и могут меняться, а сейв
+    // распаковывается только тем же словарём, что и сжимался (zlib сверяет его контрольную сумму).
+    // Чтение берёт словарь по номеру схемы из заголовка; новый словарь — только вместе с новой SCHEMA.
+    private static final byte[] DICTIONARY_1 = (
+            "Бой #Событие #Рынок #[A][B]"
+            + "Georg von FrundsbergKaspar von FrundsbergSebastian Schertlin von BurtenbachPaul Dolnstein"
+            + "Peter HagendorfGötz von BerlichingenFranz von SickingenHans KatzianerVeit von Frundsberg"
+            + "Sebastian VogelsbergerHans SteinmetzJörg EisenfaustUlrich DonnerMatthias SturmJakob Reißer"
+            + "Wolfgang HacklKonrad SpießKlaus MesserDieter EisenhutFriedrich GrothmannOtto Sporer"
+            + "Albrecht FalkensteinMartin GrenzhammerHeinrich RotbartPeter DoppelklingeLudwig Lange"
+            + "Bernhard KrauseNiklas HirtTill BleichschmiedRuprecht Kalkstein"
+            + "Hans von HallwylPeter von LuzernClaus von UriJakob von ZürichUeli GerberBeat ImhofJörg Tukker"
+            + "Werner TannerReto LandoltKonrad GmürHeinz RüttimанnPeterli SchmidNiklaus Aebischer"
+            + "Matthias HellerRudolf VögeliJonas BärtschiChristoph ZauggLeonhart VogtUlrich FähJost Amstalden"
+            + "Werner GwerderMelchior KellerHansjörg BrunnerSebastian KünzliFritz OberholzerJakob Gessler"
+            + "Gonzalo Fernández de CórdobaPedro NavarroAntonio de LeyvaDiego García de ParedesHernán Cortés"
+            + "Francisco PizarroPedro de AlvaradoÍñigo López de LoyolaRodrigo de MendozaMartín de Ayala"
+            + "Alonso de VeraJuan de CarvajalDiego de ZúñigaBaltasar de RojasLope de Villalobos"
+            + "Esteban de SalazarNuño de CárdenasHernando de SotomayorPedro de TapiaGaspar de Sandoval"
+            + "Álvaro de OlivaresGil de ArriagaRamiro de QuintanaDomingo de PeñalosaTomás de Barrientos"
+            + "Luis de ArévaloFernando de ValdésJaime de SantángelSancho de BaezaDiego de Haro"
+            + "Domhnall Mac SuibhneNiall Óg Mac SuibhneMaolmhuire Mac Suibhne Fánad"
+            + "Eóin Dubh Mac Suibhne na dTuathAlasdair Mac DomhnaillSomhairle Mac DomhnaillAodh Mac Cába"
+            + "Seán Mac SíthighRuaidhrí Mac SuibhneTadhg Ruadh Mac SuibhneCormac Mac Suibhne Boghaineach"
+            + "Conall Mac SuibhneBrian Mac DomhnaillAonghus Mac DomhnaillLachlann Mac Domhnaill"
+            + "Alasdair Óг Mac DomhnaillDonnchadh Mac DubhghaillNiall Mac DubhghaillEóghan Mac Ruaidhrí"
+            + "Toirdhealbhach Mac RuaidhríEachann Mac Gille EóinFearghal Mac Gille EóinCathal Mac Néill"
+            + "Áedh Mac NéillTurlough Mac CábaDiarmait Mac CábaDomhnall Mac SíthighCian Mac Síthigh"
+            + "Seamus Mac Dómhnaill GhallóglaighMurchadh Mac Leòid"
+            + "Lazarus von SchwendiErnst von MansfeldGottfried Heinrich von PappenheimJohann von NassauMaurice"
+            + "Heinrich von SchönbergWolf von WallenrodtHans von BredowWilhelm von Rantzau"
+            + "Friedrich von HohenloheGeorg von SolmsAlbrecht von WitzlebenKaspar von Wartensleben"
+            + "Sebastian von ArnimUlrich von WedelJoachim von EinsiedelChristoph von der Goltz"
+            + "Maximilian von LöwensteinEitel von KönigsmarkVeit von TrothaKonrad von Plauen"
+            + "Sigismund von DüringBalthasar von SchönfeldLambert von KrosigkRuprecht von Eberstein"
+            + "Dietrich von PentzHartmann von LüttichauJörg EisenhartHans SchwarzreiterKlaus Stahlreuter"
+            + "Hernán CortésFrancisco PizarroPedro de AlvaradoDiego de AlmagroVasco Núñez de Balboa"
+            + "Пánfilo de NarváezPedro de ValdiviaHernando de SotoAlonso de OjedaJuan Ponce de León"
+            + "Francisco de OrellanaSebastián de BelalcázarÁlvar Núñez Cabeza de VacaLope de Aguirre"
+            + "Pedro Menéndez de AvilésMartín de AyalaRodrigo de BarrientosGonzalo de Villalobos"
+            + "Diego de CarvajalÍñigo de ZoritaBaltasar de SandovalCristóbal de LlerenaNuño de Castañeda"
+            + "Tomás de ArriagaJuan de ZaldívarPedro de MondragónGarcía López de CárденasAlonso de Cárденас"
+            + "Miguel de LegazpiJuan de Oñate").getBytes(StandardCharsets.UTF_8);
+
+    // Словарь схемы; null — схема неизвестна
+    private static byte[] dictionary(int schema) {
+        return schema == 1 ? DICTIONARY_1 : null;
+    }
+
+    // ===================== ФАЙЛЫ =====================
+    static boolean isBinary(Path path) {
+        try (InputStream in = Files.newInputStream(path)) {
+            byte[] m = in.readNBytes(MAGIC.length);
+            return java.util.Arrays.equals(m, MAGIC);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    static void write(Path path, SaveGame sg, boolean compress) throws IOException {
+        Files.write(path, encode(sg, compress));
+    }
+
+    static byte[] encode(SaveGame sg, boolean compress) {
+        Out body = new Out(1024);
+        writeSave(body, sg);
+
+        Out file = new Out(body.len / 2 + 16);
+        file.raw(MAGIC, MAGIC.length);
+        file.varint(VERSION);
+        file.varint(SCHEMA);
+        file.varint(compress ? FLAG_DEFLATE : 0);
+        if (compress) {
+            file.varint(body.len);
+            Deflater d = new Deflater(Deflater.BEST_COMPRESSION);
+            try {
+                d.setDictionary(dictionary(SCHEMA));
+                d.setInput(body.buf, 0, body.len);
+                d.finish();
+                byte[] chunk = new byte[4096];
+                while (!d.finished()) {
+                    int n = d.deflate(chunk);
+                    file.raw(chunk, n);
+                }
+            } finally {
+                d.end();
+            }
+        } else {
+            file.raw(body.buf, body.len);
+        }
+        return java.util.Arrays.copyOf(file.buf, file.len);
+    }
+
+    static SaveGame read(Path path) throws IOException {
+        In in = new In(Files.readAllBytes(path));
+        for (byte b : MAGIC) if (in.u8() != b) throw new IOException("не бинарный сейв (нет сигнатуры MSB)");
+        int version = in.varint();
+        if (version != VERSION) throw new IOException("неподдерживаемая версия формата: " + version);
+        int schema = in.varint();
+        if (schema > SCHEMA) throw new IOException("сейв новой схемы (" + schema + "), обновите игру");
+        int flags = in.varint();
+        if ((flags & FLAG_DEFLATE) != 0) {
+            int rawLen = in.varint();
+            // Deflate сжимает не сильнее ~1032:1 — длина, не влезающая в остаток файла, тоже порча
+            if (rawLen < 0 || rawLen > MAX_BODY || rawLen > (long) (in.buf.length - in.pos) * 1032 + 64)
+                throw new IOException("повреждённый заголовок: длина тела " + rawLen);
+            byte[] raw = new byte[rawLen];
+            Inflater inf = new Inflater();
+            try {
+                inf.setInput(in.buf, in.pos, in.buf.length - in.pos);
+                int n = 0;
+                while (n < rawLen) {
+                    int k = inf.inflate(raw, n, rawLen - n);
+                    if (k == 0) {
+                        if (inf.needsDictionary()) {
+                            byte[] dict = dictionary(schema);
+                            if (dict == null) throw new IOException("нет словаря Deflate для схемы " + schema);
+                            inf.setDictionary(dict);
+                        }
+                        else if (inf.finished() || inf.needsInput()) throw new IOException("сейв оборван");
+                    }
+                    n += k;
+                }
+            } catch (DataFormatException | IllegalArgumentException e) {
+                throw new IOException("повреждённое сжатое тело: " + e.getMessage(), e);
+            } finally {
+                inf.end();
+            }
+            in = new In(raw);
+        }
+        return readSave(in);
+    }
+
+    // ===================== СХЕМА =====================
+    // SaveGame: 1 teamA, 2 teamB, 3 round, 4 logLevel, 5 color, 6 saveName, 7 savedAt, 8 campaign
+    private static void writeSave(Out o, SaveGame sg) {
+        writeWarriors(o, 1, sg.teamA);
+        writeWarriors(o, 2, sg.teamB);
+        o.int32(3, sg.round);
+        o.int32(4, sg.logLevel);
+        o.bool(5, sg.color);
+        o.str(6, sg.saveName);
+        o.int64(7, sg.savedAtEpochMillis);
+        if (sg.campaign != null) { o.beginGroup(8); writeCampaign(o, sg.campaign); o.endGroup(); }
+    }
+
+    private static SaveGame readSave(In in) throws IOException {
+        SaveGame sg = new SaveGame();
+        while (!in.eof()) {
+            int key = in.varint();
+            switch (key >>> 3) {
+                case 1 -> sg.teamA = readWarriors(in, 0);
+                case 2 -> sg.teamB = readWarriors(in, 0);
+                case 3 -> sg.round = in.int32();
+                case 4 -> sg.logLevel = in.int32();
+                case 5 -> sg.color = in.varint() != 0;
+                case 6 -> sg.saveName = in.str();
+                case 7 -> sg.savedAtEpochMillis = in.int64();
+                case 8 -> sg.campaign = readCampaign(in);
+                default -> in.skip(key & 7);
+            }
+        }
+        return sg;
+    }
+
+    // Warrior: 1 name, 2 teamTag, 3 hp, 4 maxHp, 5 attack, 6 potions, 7 stunned, 8 fatigue, 9 armor,
+    // 10 pierce, 11 minDamage, 12-16 шансы, 17 role, 18 weapon, 19 level, 20 experience, 21 isRotmeister,
+    // 22 battleCryBonus, 23 pendingLevelUps, 24 isRecruited, 25 tempArmorBonus, 26 nextTurnStance,
+    // 27 defenseStance, 28 battleAttackCount
+    private static void writeWarrior(Out o, Warrior w) {
+        o.str(1, w.name);
+        if (!DEF.teamTag.equals(w.teamTag)) o.str(2, w.teamTag);
+        o.int32(3, w.hp);
+        o.int32(4, w.maxHp);
+        o.int32(5, w.attack);
+        if (w.potions != DEF.potions) o.int32(6, w.potions);
+        if (w.stunned) o.bool(7, true);
+        if (w.fatigue != DEF.fatigue) o.int32(8, w.fatigue);
+        if (w.armor != DEF.armor) o.int32(9, w.armor);
+        if (w.pierce != DEF.pierce) o.int32(10, w.pierce);
+        if (w.minDamage != DEF.minDamage) o.int32(11, w.minDamage);
+        if (w.missChance != DEF.missChance) o.dbl(12, w.missChance);
+        if (w.blockChance != DEF.blockChance) o.dbl(13, w.blockChance);
+        if (w.dodgeChance != DEF.dodgeChance) o.dbl(14, w.dodgeChance);
+        if (w.critChance != DEF.critChance) o.dbl(15, w.critChance);
+        if (w.stunOnCritChance != DEF.stunOnCritChance) o.dbl(16, w.stunOnCritChance);
+        if (w.role != DEF.role) o.enm(17, w.role);
+        if (w.weapon != DEF.weapon) o.enm(18, w.weapon);
+        if (w.level != DEF.level) o.int32(19, w.level);
+        if (w.experience != DEF.experience) o.int32(20, w.experience);
+        if (w.isRotmeister) o.bool(21, true);
+        if (w.battleCryBonus) o.bool(22, true);
+        if (w.pendingLevelUps != DEF.pendingLevelUps) o.int32(23, w.pendingLevelUps);
+        if (w.isRecruited) o.bool(24, true);
+        if (w.tempArmorBonus != DEF.tempArmorBonus) o.int32(25, w.tempArmorBonus);
+        if (w.nextTurnStance != DEF.nextTurnStance) o.enm(26, w.nextTurnStance);
+        if (w.defenseStance != DEF.defenseStance) o.enm(27, w.defenseStance);
+        if (w.battleAttackCount != DEF.battleAttackCount) o.int32(28, w.battleAttackCount);
+    }
+
+    private static Warrior readWarrior(In in) throws IOException {
+        Warrior w = new Warrior(null, 0, 0);
+        for (int key = in.varint(); key != 0; key = in.varint()) {
+            switch (key >>> 3) {
+                case 1 -> w.name = in.str();
+                case 2 -> w.teamTag = in.str();
+                case 3 -> w.hp = in.int32();
+                case 4 -> w.maxHp = in.int32();
+                case 5 -> w.attack = in.int32();
+                case 6 -> w.potions = in.int32();
+                case 7 -> w.stunned = in.varint() != 0;
+                case 8 -> w.fatigue = in.int32();
+                case 9 -> w.armor = in.int32();
+                case 10 -> w.pierce = in.int32();
+                case 11 -> w.minDamage = in.int32();
+                case 12 -> w.missChance = in.dbl();
+                case 13 -> w.blockChance = in.dbl();
+                case 14 -> w.dodgeChance = in.dbl();
+                case 15 -> w.critChance = in.dbl();
+                case 16 -> w.stunOnCritChance = in.dbl();
+                case 17 -> w.role = in.enm(Role.values(), Role.NONE);
+                case 18 -> w.weapon = in.enm(Weapon.values(), Weapon.NONE);
+                case 19 -> w.level = in.int32();
+                case 20 -> w.experience = in.int32();
+                case 21 -> w.isRotmeister = in.varint() != 0;
+                case 22 -> w.battleCryBonus = in.varint() != 0;
+                case 23 -> w.pendingLevelUps = in.int32();
+                case 24 -> w.isRecruited = in.varint() != 0;
+                case 25 -> w.tempArmorBonus = in.int32();
+                case 26 -> w.nextTurnStance = in.enm(StanceType.values(), StanceType.NONE);
+                case 27 -> w.defenseStance = in.enm(StanceType.values(), StanceType.NONE);
+                case 28 -> w.battleAttackCount = in.int32();
+                default -> in.skip(key & 7);
+            }
+        }
+        return w;
+    }
+
+    // Массив слотов: группа { 1 длина, затем пары 2 индекс + 3 боец } — пустые слоты не пишутся
+    private static void writeWarriors(Out o, int field, Warrior[] arr) {
+        if (arr == null) return;
+        o.beginGroup(field);
+        o.int32(1, arr.length);
+        for (int i = 0; i < arr.length; i++) {
+            if (arr[i] == null) continue;
+            o.int32(2, i);
+            o.beginGroup(3); writeWarrior(o, arr[i]); o.endGroup();
+        }
+        o.endGroup();
+    }
+
+    // Длина и индекс приходят из файла: проверяются до выделения памяти. Пустые слоты не пишутся, поэтому
+    // длина сверх стандартной (minLength) должна окупаться байтами тела, как и любой индекс
+    private static Warrior[] readWarriors(In in, int minLength) throws IOException {
+        Warrior[] arr = new Warrior[minLength];
+        int idx = 0;
+        for (int key = in.varint(); key != 0; key = in.varint()) {
+            switch (key >>> 3) {
+                case 1 -> { int n = slotCount(in, minLength, "длина массива бойцов"); if (n > arr.length) arr = java.util.Arrays.copyOf(arr, n); }
+                case 2 -> idx = slotCount(in, minLength, "индекс бойца");
+                case 3 -> {
+                    Warrior w = readWarrior(in);
+                    if (idx >= MAX_WARRIORS) throw new IOException("повреждённый сейв: индекс бойца " + idx);
+                    if (idx >= arr.length) arr = java.util.Arrays.copyOf(arr, idx + 1);
+                    arr[idx++] = w;
+                }
+                default -> in.skip(key & 7);
+            }
+        }
+        return arr;
+    }
+
+    private static int slotCount(In in, int minLength, String what) throws IOException {
+        int v = in.int32();
+        if (v < 0 || v > MAX_WARRIORS || v > minLength + in.remaining())
+            throw new IOException("повреждённый сейв: " + what + " " + v);
+        return v;
+    }
+
+    // CampaignState: 1 day, 2 difficulty, 3-5 валюты, 6-9 запасы, 10 roster, 11 reserve, 12 recruitPool,
+    // 13 recruitPoolDay, 14 focusTarget, 15 path, 16 currentNodeIndex, 17 campaignId
+    private static void writeCampaign(Out o, CampaignState cs) {
+        o.int32(1, cs.day);
+        o.int32(2, cs.difficulty);
+        o.int32(3, cs.gulden);
+        o.int32(4, cs.thaler);
+        o.int32(5, cs.ducat);
+        o.int32(6, cs.stashPotions);
+        o.int32(7, cs.stashArmorPatches);
+        o.int32(8, cs.stashLightArmor);
+        o.int32(9, cs.stashBasicWeapons);
+        writeWarriors(o, 10, cs.roster);
+        writeWarriors(o, 11, cs.reserve);
+        if (cs.recruitPool != null) {
+            o.beginGroup(12);
+            for (Main.RecruitCandidate c : cs.recruitPool) {
+                o.beginGroup(1);
+                if (c.warrior != null) { o.beginGroup(1); writeWarrior(o, c.warrior); o.endGroup(); }
+                o.int32(2, c.costG);
+                o.int32(3, c.costT);
+                o.int32(4, c.costD);
+                o.endGroup();
+            }
+            o.endGroup();
+        }
+        o.int32(13, cs.recruitPoolDay);
+        o.bool(14, cs.focusTarget);
+        if (cs.path != null) {
+            o.beginGroup(15);
+            for (MapNode n : cs.path) {
+                o.beginGroup(1);
+                o.int32(1, n.id);
+                if (n.type != null) o.enm(2, n.type);
+                o.str(3, n.desc);
+                if (n.next1 != null) o.int32(4, n.next1);
+                if (n.next2 != null) o.int32(5, n.next2);
+                o.endGroup();
+            }
+            o.endGroup();
+        }
+        o.int32(16, cs.currentNodeIndex);
+        o.str(17, cs.campaignId);
+    }
+
+    private static CampaignState readCampaign(In in) throws IOException {
+        CampaignState cs = new CampaignState();
+        for (int key = in.varint(); key != 0; key = in.varint()) {
+            switch (key >>> 3) {
+                case 1 -> cs.day = in.int32();
+                case 2 -> cs.difficulty = in.int32();
+                case 3 -> cs.gulden = in.int32();
+                case 4 -> cs.thaler = in.int32();
+                case 5 -> cs.ducat = in.int32();
+                case 6 -> cs.stashPotions = in.int32();
+                case 7 -> cs.stashArmorPatches = in.int32();
+                case 8 -> cs.stashLightArmor = in.int32();
+                case 9 -> cs.stashBasicWeapons = in.int32();
+                case 10 -> cs.roster = readWarriors(in, cs.roster.length);
+                case 11 -> cs.reserve = readWarriors(in, cs.reserve.length);
+                case 12 -> {
+                    List<Main.RecruitCandidate> pool = new ArrayList<>();
+                    for (int k = in.varint(); k != 0; k = in.varint()) {
+                        if (k >>> 3 != 1) { in.skip(k & 7); continue; }
+                        Main.RecruitCandidate c = new Main.RecruitCandidate(null, 0, 0, 0);
+                        for (int f = in.varint(); f != 0; f = in.varint()) {
+                            switch (f >>> 3) {
+                                case 1 -> c.warrior = readWarrior(in);
+                                case 2 -> c.costG = in.int32();
+                                case 3 -> c.costT = in.int32();
+                                case 4 -> c.costD = in.int32();
+                                default -> in.skip(f & 7);
+                            }
+                        }
+                        pool.add(c);
+                    }
+                    cs.recruitPool = pool;
+                }
+                case 13 -> cs.recruitPoolDay = in.int32();
+                case 14 -> cs.focusTarget = in.varint() != 0;
+                case 15 -> {
+                    List<MapNode> path = new ArrayList<>();
+                    for (int k = in.varint(); k != 0; k = in.varint()) {
+                        if (k >>> 3 != 1) { in.skip(k & 7); continue; }
+                        MapNode n = new MapNode();
+                        for (int f = in.varint(); f != 0; f = in.varint()) {
+                            switch (f >>> 3) {
+                                case 1 -> n.id = in.int32();
+                                case 2 -> n.type = in.enm(NodeType.values(), null);
+                                case 3 -> n.desc = in.str();
+                                case 4 -> n.next1 = in.int32();
+                                case 5 -> n.next2 = in.int32();
+                                default -> in.skip(f & 7);
+                            }
+                        }
+                        path.add(n);
+                    }
+                    cs.path = path;
+                }
+                case 16 -> cs.currentNodeIndex = in.int32();
+                case 17 -> cs.campaignId = in.str();
+                default -> in.skip(key & 7);
+            }
+        }
+        return cs;
+    }
+
+    // ===================== КОДИРОВАНИЕ =====================
+    private static final class Out {
+        byte[] buf;
+        int len;
+
+        Out(int cap) { buf = new byte[Math.max(16, cap)]; }
+
+        private void ensure(int n) {
+            if (len + n > buf.length) buf = java.util.Arrays.copyOf(buf, Math.max(buf.length * 2, len + n));
+        }
+
+        void raw(byte[] b, int n) { ensure(n); System.arraycopy(b, 0, buf, len, n); len += n; }
+
+        void varint(long v) {
+            ensure(10);
+            while ((v & ~0x7FL) != 0) { buf[len++] = (byte) ((v & 0x7F) | 0x80); v >>>= 7; }
+            buf[len++] = (byte) v;
+        }
+
+        private void key(int field, int type) { varint(((long) field << 3) | type); }
+
+        void int32(int field, int v) { key(field, VARINT); varint(((v << 1) ^ (v >> 31)) & 0xFFFFFFFFL); }
+        void int64(int field, long v) { key(field, VARINT); varint((v << 1) ^ (v >> 63)); }
+        void bool(int field, boolean v) { key(field, VARINT); varint(v ? 1 : 0); }
+        void enm(int field, Enum<?> e) { key(field, VARINT); varint(e.ordinal()); }
+
+        void dbl(int field, double v) {
+            key(field, FIXED64);
+            long bits = Double.doubleToLongBits(v);
+            ensure(8);
+            for (int i = 0; i < 8; i++) buf[len++] = (byte) (bits >>> (8 * i));
+        }
+
+        void str(int field, String s) {
+            if (s == null) return;
+            byte[] b = s.getBytes(StandardCharsets.UTF_8);
+            key(field, BYTES);
+            varint(b.length);
+            raw(b, b.length);
+        }
+
+        void beginGroup(int field) { key(field, GROUP); }
+        void endGroup() { varint(0); }
+    }
+
+    private static final class In {
+        final byte[] buf;
+        int pos;
+
+        In(byte[] buf) { this.buf = buf; }
+
+        boolean eof() { return pos >= buf.length; }
+        int remaining() { return buf.length - pos; }
+
+        int u8() throws IOException {
+            if (pos >= buf.length) throw new EOFException("сейв оборван");
+            return buf[pos++];
+        }
+
+        long varlong() throws IOException {
+            long v = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = u8();
+                v |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return v;
+            }
+            throw new IOException("слишком длинный varint");
+        }
+
+        int varint() throws IOException { return (int) varlong(); }
+        int int32() throws IOException { int v = varint(); return (v >>> 1) ^ -(v & 1); }
+        long int64() throws IOException { long v = varlong(); return (v >>> 1) ^ -(v & 1); }
+
+        double dbl() throws IOException {
+            long bits = 0;
+            for (int i = 0; i < 8; i++) bits |= (long) (u8() & 0xFF) << (8 * i);
+            return Double.longBitsToDouble(bits);
+        }
+
+        String str() throws IOException {
+            int n = varint();
+            if (n < 0 || pos + n > buf.length) throw new EOFException("сейв оборван");
+            String s = new String(buf, pos, n, StandardCharsets.UTF_8);
+            pos += n;
+            return s;
+        }
+
+        // Неизвестная константа (сейв новой версии) — значение по умолчанию
+        <E extends Enum<E>> E enm(E[] values, E fallback) throws IOException {
+            int o = varint();
+            return o >= 0 && o < values.length ? values[o] : fallback;
+        }
+
+        void skip(int type) throws IOException {
+            switch (type) {
+                case VARINT -> varlong();
+                case FIXED64 -> { if (pos + 8 > buf.length) throw new EOFException("сейв оборван"); pos += 8; }
+                case BYTES -> { int n = varint(); if (n < 0 || pos + n > buf.length) throw new EOFException("сейв оборван"); pos += n; }
+                case GROUP -> { for (int k = varint(); k != 0; k = varint()) skip(k & 7); }
+                default -> throw new IOException("неизвестный тип поля: " + type);
+            }
+        }
+    }
+}
@@ -0,0 +1,281 @@
+import com.google.gson.*;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+// ===================== ЖУРНАЛ КАМПАНИИ (EVENT SOURCING) =====================
+// Вместо полного снимка на каждое сохранение кампания пишет в свой журнал только изменения:
+//   saves/campaigns/<id>/snapshot.json — полный снимок + номер последнего вошедшего коммита (seq)
+//   saves/campaigns/<id>/journal.log   — по строке JSON на коммит: {"seq":N,"ops":[...]}
+// Операции: day, diff, cur (дельты валют), stash (дельты запасов), roster/reserve (слот целиком),
+// node (прогресс по карте), path (новый маршрут), recruits (пул найма), focus.
+// Каждые SNAPSHOT_EVERY коммитов снимок переписывается (атомарно), а журнал обнуляется (компакция).
+// Загрузка: снимок + повтор строк журнала с seq больше снимочного. Коммит считается записанным только
+// вместе со своим переводом строки; оборванный хвост (сбой посреди записи) отрезается по концу последней
+// целой строки, иначе следующий коммит дописался бы к обрывку и пропадал бы при каждой загрузке.
+// Дифф — без сериализации: грязные поля находятся сравнением с запомненным состоянием (бойцы — копии,
+// маршрут и пул найма — ссылки на узлы/кандидатов, они после генерации не меняются); в JSON уходят только они.
+final class CampaignJournal {
+    static final String DIR = Main.SAVES_DIR + "/campaigns";
+    static final int SNAPSHOT_EVERY = 32;
+
+    private static final Gson GSON = SaveCodec.GSON;
+
+    final String id;
+    private final Path dir, snapshotPath, journalPath;
+    private long seq = 0;
+    private int sinceSnapshot = 0;
+
+    // Последнее записанное состояние — база для диффа
+    private int day, difficulty, gulden, thaler, ducat;
+    private int stashPotions, stashArmorPatches, stashLightArmor, stashBasicWeapons;
+    private int currentNodeIndex, recruitPoolDay;
+    private boolean focusTarget;
+    private Warrior[] roster = new Warrior[0], reserve = new Warrior[0];  // копии слотов
+    private Object[] path, recruits;                                       // узлы маршрута и кандидаты по ссылке
+
+    private CampaignJournal(String id) {
+        this.id = id;
+        this.dir = Path.of(DIR, id);
+        this.snapshotPath = dir.resolve("snapshot.json");
+        this.journalPath = dir.resolve("journal.log");
+    }
+
+    static String newCampaignId() {
+        return "campaign-" + java.time.LocalDateTime.now().withNano(0).toString().replace(":", "").replace("-", "");
+    }
+
+    // Новый журнал для кампании (кампании без id или загруженной из слота — как ответвление);
+    // synchronized — чтобы две сессии сервера не заняли один и тот же id
+    static synchronized CampaignJournal create(CampaignState cs) throws IOException {
+        if (cs.campaignId == null || Files.exists(Path.of(DIR, cs.campaignId))) {
+            String base = newCampaignId(), id = base;
+            for (int n = 2; Files.exists(Path.of(DIR, id)); n++) id = base + "-" + n;
+            cs.campaignId = id;
+        }
+        CampaignJournal j = new CampaignJournal(cs.campaignId);
+        Files.createDirectories(j.dir);
+        j.writeSnapshot(cs);
+        return j;
+    }
+
+    static List<String> listIds() {
+        List<String> ids = new ArrayList<>();
+        Path root = Path.of(DIR);
+        if (!Files.isDirectory(root)) return ids;
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(root)) {
+            for (Path p : ds) if (Files.exists(p.resolve("snapshot.json"))) ids.add(p.getFileName().toString());
+        } catch (IOException e) {
+            Main.out().println("⚠️ Не удалось прочитать каталог кампаний: " + e.getMessage());
+        }
+        Collections.sort(ids);
+        return ids;
+    }
+
+    // Открыть журнал: снимок + повтор; состояние возвращается через holder[0]
+    static CampaignJournal open(String id, CampaignState[] holder) throws IOException {
+        CampaignJournal j = new CampaignJournal(id);
+        JsonObject snap = JsonParser.parseString(Files.readString(j.snapshotPath, StandardCharsets.UTF_8)).getAsJsonObject();
+        long snapSeq = snap.get("seq").getAsLong();
+        CampaignState cs = GSON.fromJson(snap.get("campaign"), CampaignState.class);
+        cs.campaignId = id;
+        j.seq = snapSeq;
+        if (Files.exists(j.journalPath)) {
+            byte[] log = Files.readAllBytes(j.journalPath);
+            int start = 0;
+            while (start < log.length) {
+                int end = start;
+                while (end < log.length && log[end] != '\n') end++;
+                JsonObject commit = null;
+                if (end < log.length) {
+                    String line = new String(log, start, end - start, StandardCharsets.UTF_8);
+                    if (line.isBlank()) { start = end + 1; continue; }
+                    try {
+                        commit = JsonParser.parseString(line).getAsJsonObject();
+                    } catch (JsonParseException | IllegalStateException e) {
+                        commit = null;
+                    }
+                }
+                if (commit == null) {
+                    // оборванная запись — всё до неё уже применено; хвост отрезается до новых коммитов
+                    j.truncateJournal(start);
+                    break;
+                }
+                start = end + 1;
+                long s = commit.get("seq").getAsLong();
+                if (s <= snapSeq) continue; // уже вошло в снимок (сбой между снимком и компакцией)
+                for (JsonElement op : commit.getAsJsonArray("ops")) apply(cs, op.getAsJsonObject());
+                j.seq = s;
+                j.sinceSnapshot++;
+            }
+        }
+        j.remember(cs);
+        holder[0] = cs;
+        return j;
+    }
+
+    private void truncateJournal(long size) throws IOException {
+        try (FileChannel ch = FileChannel.open(journalPath, StandardOpenOption.WRITE)) {
+            ch.truncate(size);
+            ch.force(true);
+        }
+    }
+
+    // Снимок + журнал на диске, байт
+    long bytesOnDisk() throws IOException {
+        long n = Files.size(snapshotPath);
+        if (Files.exists(journalPath)) n += Files.size(journalPath);
+        return n;
+    }
+
+    // Дописать изменения с прошлого коммита; возвращает число записанных байт (0 — изменений нет).
+    // Каждый SNAPSHOT_EVERY-й коммит вместо строки журнала переписывает снимок.
+    int commit(CampaignState cs) throws IOException {
+        JsonArray ops = new JsonArray();
+        if (cs.day != day) ops.add(op("day", cs.day));
+        if (cs.difficulty != difficulty) ops.add(op("diff", cs.difficulty));
+        if (cs.gulden != gulden || cs.thaler != thaler || cs.ducat != ducat) {
+            JsonObject o = new JsonObject();
+            o.addProperty("op", "cur");
+            o.addProperty("g", cs.gulden - gulden);
+            o.addProperty("t", cs.thaler - thaler);
+            o.addProperty("d", cs.ducat - ducat);
+            ops.add(o);
+        }
+        if (cs.stashPotions != stashPotions || cs.stashArmorPatches != stashArmorPatches
+                || cs.stashLightArmor != stashLightArmor || cs.stashBasicWeapons != stashBasicWeapons) {
+            JsonObject o = new JsonObject();
+            o.addProperty("op", "stash");
+            o.addProperty("p", cs.stashPotions - stashPotions);
+            o.addProperty("a", cs.stashArmorPatches - stashArmorPatches);
+            o.addProperty("l", cs.stashLightArmor - stashLightArmor);
+            o.addProperty("w", cs.stashBasicWeapons - stashBasicWeapons);
+            ops.add(o);
+        }
+        diffSlots(ops, "roster", roster, cs.roster);
+        diffSlots(ops, "reserve", reserve, cs.reserve);
+        if (!sameRefs(path, cs.path)) {
+            JsonObject o = new JsonObject(); o.addProperty("op", "path"); o.add("v", GSON.toJsonTree(cs.path)); ops.add(o);
+        }
+        if (cs.currentNodeIndex != currentNodeIndex) ops.add(op("node", cs.currentNodeIndex));
+        if (!sameRefs(recruits, cs.recruitPool) || cs.recruitPoolDay != recruitPoolDay) {
+            JsonObject o = new JsonObject();
+            o.addProperty("op", "recruits");
+            o.addProperty("day", cs.recruitPoolDay);
+            o.add("v", GSON.toJsonTree(cs.recruitPool));
+            ops.add(o);
+        }
+        if (cs.focusTarget != focusTarget) {
+            JsonObject o = new JsonObject(); o.addProperty("op", "focus"); o.addProperty("v", cs.focusTarget); ops.add(o);
+        }
+        if (ops.isEmpty()) return 0;
+
+        if (sinceSnapshot + 1 >= SNAPSHOT_EVERY) {
+            seq++;
+            return writeSnapshot(cs);
+        }
+        JsonObject commit = new JsonObject();
+        commit.addProperty("seq", ++seq);
+        commit.add("ops", ops);
+        byte[] bytes = (GSON.toJson(commit) + "\n").getBytes(StandardCharsets.UTF_8);
+        Files.write(journalPath, bytes, StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE);
+        sinceSnapshot++;
+        remember(cs);
+        return bytes.length;
+    }
+
+    // Снимок (tmp + атомарное переименование), затем компакция журнала
+    private int writeSnapshot(CampaignState cs) throws IOException {
+        JsonObject snap = new JsonObject();
+        snap.addProperty("seq", seq);
+        snap.add("campaign", GSON.toJsonTree(cs));
+        Path tmp = dir.resolve("snapshot.json.tmp");
+        byte[] bytes = GSON.toJson(snap).getBytes(StandardCharsets.UTF_8);
+        Files.write(tmp, bytes);
+        try {
+            Files.move(tmp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, snapshotPath, StandardCopyOption.REPLACE_EXISTING);
+        }
+        Files.write(journalPath, new byte[0]);
+        sinceSnapshot = 0;
+        remember(cs);
+        return bytes.length;
+    }
+
+    private void remember(CampaignState cs) {
+        day = cs.day; difficulty = cs.difficulty;
+        gulden = cs.gulden; thaler = cs.thaler; ducat = cs.ducat;
+        stashPotions = cs.stashPotions; stashArmorPatches = cs.stashArmorPatches;
+        stashLightArmor = cs.stashLightArmor; stashBasicWeapons = cs.stashBasicWeapons;
+        currentNodeIndex = cs.currentNodeIndex; recruitPoolDay = cs.recruitPoolDay;
+        focusTarget = cs.focusTarget;
+        roster = Main.copyTeam(cs.roster);
+        reserve = Main.copyTeam(cs.reserve);
+        path = cs.path == null ? null : cs.path.toArray();
+        recruits = cs.recruitPool == null ? null : cs.recruitPool.toArray();
+    }
+
+    // Тот же список тех же объектов (по ссылке); null равен только null
+    private static boolean sameRefs(Object[] before, List<?> now) {
+        if (before == null || now == null) return before == null && now == null;
+        if (before.length != now.size()) return false;
+        for (int i = 0; i < before.length; i++) if (before[i] != now.get(i)) return false;
+        return true;
+    }
+
+    private static void diffSlots(JsonArray ops, String name, Warrior[] before, Warrior[] now) {
+        if (now == null) return;
+        for (int i = 0; i < now.length; i++) {
+            Warrior old = before != null && i < before.length ? before[i] : null;
+            if (now[i] == null ? old == null : now[i].sameState(old)) continue;
+            JsonObject o = new JsonObject();
+            o.addProperty("op", name);
+            o.addProperty("i", i);
+            o.add("w", GSON.toJsonTree(now[i]));
+            ops.add(o);
+        }
+    }
+
+    private static JsonObject op(String name, int v) {
+        JsonObject o = new JsonObject();
+        o.addProperty("op", name);
+        o.addProperty("v", v);
+        return o;
+    }
+
+    private static void apply(CampaignState cs, JsonObject o) {
+        switch (o.get("op").getAsString()) {
+            case "day" -> cs.day = o.get("v").getAsInt();
+            case "diff" -> cs.difficulty = o.get("v").getAsInt();
+            case "cur" -> {
+                cs.gulden += o.get("g").getAsInt();
+                cs.thaler += o.get("t").getAsInt();
+                cs.ducat  += o.get("d").getAsInt();
+            }
+            case "stash" -> {
+                cs.stashPotions += o.get("p").getAsInt();
+                cs.stashArmorPatches += o.get("a").getAsInt();
+                cs.stashLightArmor += o.get("l").getAsInt();
+                cs.stashBasicWeapons += o.get("w").getAsInt();
+            }
+            case "roster" -> cs.roster[o.get("i").getAsInt()] = GSON.fromJson(o.get("w"), Warrior.class);
+            case "reserve" -> cs.reserve[o.get("i").getAsInt()] = GSON.fromJson(o.get("w"), Warrior.class);
+            case "path" -> {
+                MapNode[] nodes = GSON.fromJson(o.get("v"), MapNode[].class);
+                cs.path = nodes == null ? null : new ArrayList<>(Arrays.asList(nodes));
+            }
+            case "node" -> cs.currentNodeIndex = o.get("v").getAsInt();
+            case "recruits" -> {
+                cs.recruitPoolDay = o.get("day").getAsInt();
+                Main.RecruitCandidate[] pool = GSON.fromJson(o.get("v"), Main.RecruitCandidate[].class);
+                cs.recruitPool = pool == null ? null : new ArrayList<>(Arrays.asList(pool));
+            }
+            case "focus" -> cs.focusTarget = o.get("v").getAsBoolean();
+            default -> { /* неизвестная операция из будущей версии — пропускаем */ }
+        }
+    }
+}
@@ -0,0 +1,431 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+
+// ===================== КАМПАНИИ БЕЗ ВВОДА =====================
+// Тысячи полных кампаний параллельно: маршрут (generatePath), узлы (бой, рынок, событие), лагерь, найм,
+// трофеи (applyVictoryLoot) и ротмейстер — те же правила Main, что и в консольной игре, только решения
+// вместо меню принимает политика (Policy), а бои за A ведёт её DecisionProvider.
+// Каждая кампания идёт в своей GameSession (свой ГСЧ, вывод в никуда, лог выключен), поэтому Main.rng()/out()
+// внутри правил видят её, а не консоль. Кампании раздаются пачками по BATCH: после каждой пачки сводка
+// сливается с общей и отдаётся наблюдателю — статистика идёт потоком, не дожидаясь конца прогона.
+// Rng каждой кампании выводится split() по порядку до запуска, поэтому итог не зависит от числа ядер.
+final class CampaignSimulator {
+    static final int BATCH = 256;               // кампаний между промежуточными сводками
+    static final int LEAF = 8;                  // кампаний на листовую задачу
+    static final String CSV_PATH = Main.SAVES_DIR + "/campaigns.csv";
+
+    private CampaignSimulator() {}
+
+    enum Event { TRADER, CART, CHEAP_RECRUIT }
+
+    // ===================== ПОЛИТИКИ =====================
+    // Всё, что в кампании выбирает игрок; правила и броски — в Main
+    interface Policy {
+        String name();
+
+        DecisionProvider battle();
+
+        // Лагерь перед каждым узлом: повышения, резерв, найм, рынок, снаряжение
+        void camp(CampaignState cs);
+
+        // Узел «Рынок»
+        void market(CampaignState cs);
+
+        // Согласиться на предложение события
+        boolean accept(CampaignState cs, Event e);
+
+        // true — идти по развилке во второй узел
+        boolean takeSecondBranch(CampaignState cs, MapNode first, MapNode second);
+
+        // Действие ротмейстера между узлами
+        void rotmeister(CampaignState cs, Warrior rot);
+    }
+
+    // Ничего не покупает и ни на что не соглашается: повышения в HP, первая ветка, бои ИИ — базовая линия экономики
+    static final Policy PASSIVE = new Policy() {
+        @Override public String name() { return "Пассивный"; }
+        @Override public DecisionProvider battle() { return DecisionProvider.AI; }
+
+        @Override
+        public void camp(CampaignState cs) {
+            for (Warrior w : cs.roster) while (w != null && w.pendingLevelUps > 0) Main.applyLevelUp(w, 1);
+        }
+
+        @Override public void market(CampaignState cs) {}
+        @Override public boolean accept(CampaignState cs, Event e) { return false; }
+        @Override public boolean takeSecondBranch(CampaignState cs, MapNode first, MapNode second) { return false; }
+        @Override public void rotmeister(CampaignState cs, Warrior rot) {}
+    };
+
+    // Хозяйственный: держит запас GOLD_FLOOR, нанимает до лимита, покупает зелья и снаряжение,
+    // лечит отряд силами ротмейстера и обходит бои, когда отряд изранен
+    static final Policy STEWARD = new Policy() {
+        static final int GOLD_FLOOR = 30;
+
+        @Override public String name() { return "Хозяйственный"; }
+        @Override public DecisionProvider battle() { return DecisionProvider.AI; }
+
+        @Override
+        public void camp(CampaignState cs) {
+            // повышения: чередуем HP и ATK
+            for (Warrior w : cs.roster) while (w != null && w.pendingLevelUps > 0) Main.applyLevelUp(w, w.level % 2 == 0 ? 2 : 1);
+            // живых из резерва — на места выбитых
+            for (int r = 0; r < cs.reserve.length; r++) {
+                Warrior w = cs.reserve[r];
+                if (w == null || w.hp <= 0) continue;
+                int slot = freeOrFallenSlot(cs.roster);
+                if (slot == -1) break;
+                cs.roster[slot] = w; cs.reserve[r] = null;
+            }
+            hire(cs);
+            market(cs);
+            equip(cs);
+        }
+
+        private void hire(CampaignState cs) {
+            while (Main.hiresLeft(cs) > 0) {
+                Main.RecruitCandidate best = null;
+                for (Main.RecruitCandidate rc : Main.recruitPoolOf(cs))
+                    if (Main.canAfford(cs, rc) && cs.gulden - rc.costG >= GOLD_FLOOR && (best == null || rc.costG < best.costG)) best = rc;
+                if (best == null) return;
+                int slot = freeOrFallenSlot(cs.roster);
+                if (slot != -1) { Main.hireInto(cs, best, cs.roster, slot); continue; }
+                slot = Main.findEmptyRosterIndex(cs.reserve);
+                if (slot == -1) return;
+                Main.hireInto(cs, best, cs.reserve, slot);
+            }
+        }
+
+        @Override
+        public void market(CampaignState cs) {
+            while (cs.stashPotions < 2 && cs.gulden >= 15 + GOLD_FLOOR) Main.marketTrade(cs, 1);
+            while (cs.thaler > 0) Main.marketTrade(cs, 3);
+            while (cs.ducat > 0) Main.marketTrade(cs, 4);
+        }
+
+        private void equip(CampaignState cs) {
+            while (cs.stashPotions > 0) {
+                Warrior t = pick(cs.roster, Comparator.comparingInt(w -> w.potions));
+                if (t == null || t.potions >= 2) break;
+                Main.equipFromStash(cs, t, 1, Weapon.NONE);
+            }
+            while (cs.stashArmorPatches > 0) {
+                Warrior t = pick(cs.roster, Comparator.comparingInt(w -> w.tempArmorBonus * 100 + w.armor));
+                if (t == null) break;
+                Main.equipFromStash(cs, t, 2, Weapon.NONE);
+            }
+            while (cs.stashLightArmor > 0) {
+                Warrior t = pick(cs.roster, Comparator.comparingInt(w -> w.armor));
+                if (t == null) break;
+                Main.equipFromStash(cs, t, 3, Weapon.NONE);
+            }
+            for (Warrior w : cs.roster) {
+                if (cs.stashBasicWeapons <= 0) break;
+                if (w != null && w.hp > 0 && w.weapon == Weapon.NONE) Main.equipFromStash(cs, w, 4, Weapon.AXE);
+            }
+        }
+
+        @Override
+        public boolean accept(CampaignState cs, Event e) {
+            return switch (e) {
+                case TRADER -> cs.gulden >= 12 + GOLD_FLOOR;
+                case CART -> true;   // фургон ранит, но не убивает (hp не ниже 1)
+                case CHEAP_RECRUIT -> Main.findEmptyRosterIndex(cs.roster) != -1 && cs.gulden >= Main.CHEAP_RECRUIT_COST + GOLD_FLOOR;
+            };
+        }
+
+        @Override
+        public boolean takeSecondBranch(CampaignState cs, MapNode first, MapNode second) {
+            boolean wantFight = cs.aliveCount() >= 2 && hpShare(cs.roster) >= 0.5;
+            boolean firstFight = first.type == NodeType.BATTLE, secondFight = second.type == NodeType.BATTLE;
+            return firstFight != secondFight && secondFight == wantFight;
+        }
+
+        @Override
+        public void rotmeister(CampaignState cs, Warrior rot) {
+            if (rot.hp <= 0 || rot.potions <= 0) return;
+            int wounded = 0;
+            for (Warrior w : cs.roster) if (w != null && w.hp > 0 && w.hp < w.maxHp) wounded++;
+            if (rot.level >= 5 && rot.potions >= 2 && wounded >= 2) { Main.massHeal(cs, rot); return; }
+            Warrior t = pick(cs.roster, Comparator.comparingDouble(w -> (double) w.hp / w.maxHp));
+            if (t != null && t.hp * 2 < t.maxHp) rot.usePotionOn(t);
+        }
+    };
+
+    static final List<Policy> POLICIES = List.of(PASSIVE, STEWARD);
+
+    private static Warrior pick(Warrior[] roster, Comparator<Warrior> order) {
+        Warrior best = null;
+        for (Warrior w : roster) if (w != null && w.hp > 0 && (best == null || order.compare(w, best) < 0)) best = w;
+        return best;
+    }
+
+    // Пустой слот или слот выбитого бойца
+    private static int freeOrFallenSlot(Warrior[] roster) {
+        for (int i = 0; i < roster.length; i++) if (roster[i] == null || roster[i].hp <= 0) return i;
+        return -1;
+    }
+
+    private static double hpShare(Warrior[] roster) {
+        int hp = 0, max = 0;
+        for (Warrior w : roster) if (w != null && w.hp > 0) { hp += w.hp; max += w.maxHp; }
+        return max == 0 ? 0 : (double) hp / max;
+    }
+
+    // ===================== СТАТИСТИКА =====================
+    // Кривые — суммы по кампаниям, дожившим до начала дня d (индекс = день, 1..maxDays)
+    static final class Stats {
+        final int maxDays;
+        long campaigns, survivors, daysSurvived, battles, wins, draws, deaths, hires;  // draws — бой упёрся в MAX_ROUNDS
+        final long[] reached, gulden, thaler, ducat, alive, rotLevel, wiped;
+        long elapsedMs;
+
+        Stats(int maxDays) {
+            this.maxDays = maxDays;
+            int n = maxDays + 1;
+            reached = new long[n]; gulden = new long[n]; thaler = new long[n]; ducat = new long[n];
+            alive = new long[n]; rotLevel = new long[n]; wiped = new long[n];
+        }
+
+        void sample(int day, CampaignState cs) {
+            Warrior rot = Main.rotmeisterOf(cs.roster);
+            reached[day]++;
+            gulden[day] += cs.gulden; thaler[day] += cs.thaler; ducat[day] += cs.ducat;
+            alive[day] += cs.aliveCount();
+            rotLevel[day] += rot == null ? 0 : rot.level;
+        }
+
+        void merge(Stats o) {
+            campaigns += o.campaigns; survivors += o.survivors; daysSurvived += o.daysSurvived;
+            battles += o.battles; wins += o.wins; draws += o.draws; deaths += o.deaths; hires += o.hires;
+            for (int d = 0; d <= maxDays; d++) {
+                reached[d] += o.reached[d]; gulden[d] += o.gulden[d]; thaler[d] += o.thaler[d]; ducat[d] += o.ducat[d];
+                alive[d] += o.alive[d]; rotLevel[d] += o.rotLevel[d]; wiped[d] += o.wiped[d];
+            }
+        }
+
+        private static double avg(long sum, long n) { return n == 0 ? 0 : (double) sum / n; }
+
+        String progress() {
+            return String.format(Locale.ROOT, "⏳ %d кампаний: дожили до дня %d — %.1f%%, в среднем %.1f дн., побед в боях %.1f%%",
+                    campaigns, maxDays, avg(survivors * 100, campaigns), avg(daysSurvived, campaigns), avg(wins * 100, battles));
+        }
+
+        String format(int dayStep) {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format(Locale.ROOT, "%n📈 Кампании: %d за %d мс (%.0f кампаний/мин)%n",
+                    campaigns, elapsedMs, elapsedMs == 0 ? 0.0 : campaigns * 60_000.0 / elapsedMs));
+            sb.append(String.format(Locale.ROOT, "  Дожили до дня %d: %.1f%%, дней в среднем: %.1f%n",
+                    maxDays, avg(survivors * 100, campaigns), avg(daysSurvived, campaigns)));
+            sb.append(String.format(Locale.ROOT, "  Боёв на кампанию: %.1f, побед: %.1f%%, ничьих по лимиту раундов: %d, погибших: %.2f, наймов: %.2f%n",
+                    avg(battles, campaigns), avg(wins * 100, battles), draws, avg(deaths, campaigns), avg(hires, campaigns)));
+            sb.append("  День | в строю |  Gulden | Thaler | Ducat | живых | ур. ротм. | разгром\n");
+            for (int d = 1; d <= maxDays; d++) {
+                if (d != 1 && d != maxDays && d % dayStep != 0) continue;
+                long n = reached[d];
+                sb.append(String.format(Locale.ROOT, "  %4d | %6.1f%% | %7.1f | %6.2f | %5.2f | %5.2f | %9.2f | %6d%n",
+                        d, avg(n * 100, campaigns), avg(gulden[d], n), avg(thaler[d], n), avg(ducat[d], n),
+                        avg(alive[d], n), avg(rotLevel[d], n), wiped[d]));
+            }
+            return sb.toString();
+        }
+
+        // Средние на день (по дожившим) — для графиков
+        void writeCsv(Path path) throws IOException {
+            if (path.getParent() != null) Files.createDirectories(path.getParent());
+            try (BufferedWriter w = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+                w.write("day,reached,gulden,thaler,ducat,alive,rotmeister_level,wiped");
+                w.newLine();
+                for (int d = 1; d <= maxDays; d++) {
+                    long n = reached[d];
+                    w.write(String.format(Locale.ROOT, "%d,%d,%.3f,%.3f,%.3f,%.3f,%.3f,%d",
+                            d, n, avg(gulden[d], n), avg(thaler[d], n), avg(ducat[d], n), avg(alive[d], n), avg(rotLevel[d], n), wiped[d]));
+                    w.newLine();
+                }
+            }
+        }
+    }
+
+    // ===================== ПРОГОН =====================
+    static Stats run(int campaigns, int maxDays, Policy policy, Consumer<Stats> progress) {
+        return run(campaigns, maxDays, policy, Main.rng().split(), ForkJoinPool.commonPool(), progress);
+    }
+
+    static Stats run(int campaigns, int maxDays, Policy policy, Rng rng, ForkJoinPool pool, Consumer<Stats> progress) {
+        long t0 = System.nanoTime();
+        Stats total = new Stats(maxDays);
+        for (int from = 0; from < campaigns; from += BATCH) {
+            Rng[] rngs = new Rng[Math.min(BATCH, campaigns - from)];
+            for (int i = 0; i < rngs.length; i++) rngs[i] = rng.split();
+            total.merge(pool.invoke(new Campaigns(rngs, 0, rngs.length, maxDays, policy)));
+            total.elapsedMs = (System.nanoTime() - t0) / 1_000_000L;
+            if (progress != null) progress.accept(total);
+        }
+        return total;
+    }
+
+    private static final class Campaigns extends RecursiveTask<Stats> {
+        private static final long serialVersionUID = 1L;
+        final Rng[] rngs;
+        final int from, to, maxDays;
+        final Policy policy;
+
+        Campaigns(Rng[] rngs, int from, int to, int maxDays, Policy policy) {
+            this.rngs = rngs; this.from = from; this.to = to; this.maxDays = maxDays; this.policy = policy;
+        }
+
+        @Override
+        protected Stats compute() {
+            if (to - from <= LEAF) {
+                Stats st = new Stats(maxDays);
+                PrintStream nowhere = new PrintStream(OutputStream.nullOutputStream());
+                for (int i = from; i < to; i++) new Run(policy, rngs[i], nowhere, st).play(maxDays);
+                return st;
+            }
+            int mid = (from + to) >>> 1;
+            Campaigns left = new Campaigns(rngs, from, mid, maxDays, policy);
+            left.fork();
+            Stats right = new Campaigns(rngs, mid, to, maxDays, policy).compute();
+            right.merge(left.join());
+            return right;
+        }
+    }
+
+    // Одна кампания: повторяет runCampaign/proceedOnMap/enterNode/doNextBattle без меню
+    private static final class Run {
+        final Policy policy;
+        final GameSession session;
+        final Stats st;
+        final CampaignState cs = new CampaignState();
+        final Set<Warrior> everServed = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        Run(Policy policy, Rng rng, PrintStream out, Stats st) {
+            this.policy = policy; this.st = st;
+            session = new GameSession("sim", null, out);
+            session.logLevel = -1;
+            session.color = false;
+            session.rng = rng;
+            session.metrics = false;  // прогоны не должны смешиваться со счётчиками настоящих боёв
+        }
+
+        void play(int maxDays) {
+            GameSession prev = GameSession.current();
+            GameSession.bind(session);
+            try {
+                start();
+                int sampled = 1;
+                st.sample(1, cs);
+                boolean wiped = false;
+                while (cs.day <= maxDays) {
+                    policy.camp(cs);
+                    enlist();
+                    if (cs.aliveCount() == 0) { wiped = true; break; }
+                    proceed();
+                    Warrior rot = Main.rotmeisterOf(cs.roster);
+                    if (rot != null) policy.rotmeister(cs, rot);
+                    enlist();
+                    while (sampled < Math.min(cs.day, maxDays)) st.sample(++sampled, cs);
+                }
+                int lastDay = Math.min(cs.day, maxDays);
+                st.campaigns++;
+                st.daysSurvived += wiped ? lastDay : maxDays;
+                if (wiped) st.wiped[lastDay]++;
+                else st.survivors++;
+                st.hires += everServed.size() - 2;
+                for (Warrior w : everServed) if (w.hp <= 0) st.deaths++;
+            } finally {
+                GameSession.bind(prev);
+            }
+        }
+
+        // Стартовый отряд: 2 случайных бойца, первый — Ротмейстер
+        private void start() {
+            for (int i = 0; i < 2; i++) {
+                cs.roster[i] = Warrior.randomWarrior();
+                cs.roster[i].teamTag = "[A]";
+            }
+            cs.roster[0].setRotmeister();
+            newPath();
+        }
+
+        private void enlist() {
+            for (Warrior w : cs.roster) if (w != null) everServed.add(w);
+            for (Warrior w : cs.reserve) if (w != null) everServed.add(w);
+        }
+
+        // Как ensurePathGenerated, без печати карты
+        private void newPath() {
+            int len = 5 + session.rng.nextInt(4); // 5..8
+            cs.path = Main.generatePath(len, session.rng);
+            cs.currentNodeIndex = 0;
+        }
+
+        private void proceed() {
+            if (cs.path == null || cs.path.isEmpty()) newPath();
+            if (cs.currentNodeIndex >= cs.path.size()) { cs.day += 1; newPath(); }
+            MapNode cur = cs.path.get(cs.currentNodeIndex);
+            enter(cur);
+            if (cur.next1 == null && cur.next2 == null) { cs.day += 1; newPath(); return; }
+            boolean second = cur.next2 != null && policy.takeSecondBranch(cs, cs.path.get(cur.next1), cs.path.get(cur.next2));
+            cs.currentNodeIndex = second ? cur.next2 : cur.next1;
+        }
+
+        private void enter(MapNode n) {
+            switch (n.type) {
+                case BATTLE -> battle();
+                case MARKET -> policy.market(cs);
+                case EVENT -> event();
+            }
+        }
+
+        // Как runRandomEvent: те же броски, ответ — от политики
+        private void event() {
+            switch (session.rng.nextInt(3)) {
+                case 0 -> { if (policy.accept(cs, Event.TRADER)) Main.traderDeal(cs); }
+                case 1 -> { if (policy.accept(cs, Event.CART)) Main.searchCart(cs); }
+                default -> {
+                    Warrior cand = Warrior.randomWarrior();
+                    cand.teamTag = "[A]";
+                    if (policy.accept(cs, Event.CHEAP_RECRUIT)) Main.hireCheapRecruit(cs, cand, Main.CHEAP_RECRUIT_COST);
+                }
+            }
+        }
+
+        // Как doNextBattle: противник по числу живых, стратегия по уровню Ротмистра, фокус ротмейстера
+        private void battle() {
+            Warrior[] teamA = Main.buildActiveTeam(cs.roster);
+            if (teamA.length == 0) return;
+            Warrior[] teamB = Main.enemyTeamFor(teamA.length);
+            Warrior rot = Main.rotmeisterOf(cs.roster);
+            int tier = Main.strategyTier(rot == null ? 1 : rot.level);
+
+            BattleEngine engine = new BattleEngine(teamA, teamB, policy.battle(), session.rng, 1);
+            session.strategy = StrategyPlan.STANDARD; session.tier = 0;
+            if (tier > 0) engine.chooseStrategy(tier);
+            while (!engine.finished() && engine.round() < BattleSimulator.MAX_ROUNDS) {
+                RoundOrder ro = engine.askRoundOrder();
+                if (cs.focusTarget) {
+                    Integer idx = Main.firstAliveIndex1Based(teamB);
+                    if (idx != null) ro.focusEnemyIndexB = idx;
+                }
+                engine.playRound(ro);
+            }
+            // Победа — только когда B перебита (как BattleEngine.outcome); лимит раундов при живых с обеих сторон —
+            // ничья, а для кассы и опыта — не победа
+            BattleEngine.Outcome outcome = engine.outcome();
+            boolean win = outcome == BattleEngine.Outcome.A_WON;
+            st.battles++;
+            if (win) st.wins++;
+            else if (outcome == BattleEngine.Outcome.RUNNING) st.draws++;
+            Main.settleBattle(cs, teamA, win);
+        }
+    }
+}
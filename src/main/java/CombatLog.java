@@ -0,0 +1,323 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+// ===================== БИНАРНЫЙ ЖУРНАЛ БОЯ =====================
+// Каждый исход удара/хода пишется типизированным событием в компактный поток только-на-дописывание:
+//   "MCL" + версия, затем события: [тип:1 байт][поля: varint].
+// Бойцы кодируются номером слота из события BATTLE (имена — один раз в заголовке боя).
+// Файл не перезаписывается: каждый бой дописывается следом за прошлыми (заголовок MCL — только у нового
+// файла), оборванный хвост после падения отрезается перед дописыванием, а выросший до ROLL_BYTES журнал
+// уезжает в <файл>.1. Поток сбрасывается на диск буфером по 64 КиБ и в конце боя, а не каждый раунд.
+// Replayer восстанавливает последний бой файла (имена, hp) и печатает его без задержек, Summary считает статистику.
+final class CombatLog {
+    static final byte[] MAGIC = {'M', 'C', 'L'};
+    static final int VERSION = 1;
+    static final long ROLL_BYTES = 4L << 20;
+
+    enum Ev { BATTLE, ROUND, MISS, BLOCK, DODGE, CRIT, DAMAGE, STUN, SKIP, KILL, POTION, STANCE, END }
+
+    // Активная запись текущего потока (null — бой не пишется)
+    private static final ThreadLocal<Writer> ACTIVE = new ThreadLocal<>();
+
+    private CombatLog() {}
+
+    static Writer active() { return ACTIVE.get(); }
+
+    // Начать запись боя в конец файла; при ошибке ввода-вывода бой идёт без журнала
+    static Writer startFile(String path, Warrior[] teamA, Warrior[] teamB) {
+        try {
+            Path p = Path.of(path);
+            if (p.getParent() != null) Files.createDirectories(p.getParent());
+            boolean fresh = prepareAppend(p) == 0;
+            Writer w = new Writer(new BufferedOutputStream(new FileOutputStream(p.toFile(), true), 1 << 16), fresh);
+            w.battle(teamA, teamB);
+            ACTIVE.set(w);
+            return w;
+        } catch (IOException e) {
+            Main.out().println("⚠️ Журнал боя не ведётся: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Длина целой части журнала, в которую можно дописывать: большой уезжает в .1, оборванный хвост
+    // (или чужой/старый файл целиком) отрезается. 0 — файла нет, нужен заголовок.
+    private static long prepareAppend(Path p) throws IOException {
+        if (!Files.exists(p)) return 0;
+        long size = Files.size(p);
+        if (size >= ROLL_BYTES) {
+            Files.move(p, p.resolveSibling(p.getFileName() + ".1"), StandardCopyOption.REPLACE_EXISTING);
+            return 0;
+        }
+        long good = scan(p)[0];
+        if (good < size) {
+            try (RandomAccessFile f = new RandomAccessFile(p.toFile(), "rw")) { f.setLength(good); }
+        }
+        return good;
+    }
+
+    // Проход по журналу без разбора полей: {конец последнего целого события, начало последнего боя}.
+    // Без сигнатуры MCL — {0, 0}.
+    static long[] scan(Path p) throws IOException {
+        long complete = 0, lastBattle = 0;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(p), 1 << 16)) {
+            Reader r;
+            try { r = new Reader(in); } catch (IOException e) { return new long[]{0, 0}; }
+            complete = lastBattle = r.position();
+            try {
+                while (true) {
+                    long at = r.position();
+                    Ev ev = r.next();
+                    if (ev == null) break;
+                    skipFields(r, ev);
+                    if (ev == Ev.BATTLE) lastBattle = at;
+                    complete = r.position();
+                }
+            } catch (IOException torn) {
+                // оборванное или испорченное событие — целое всё, что до него
+            }
+        }
+        return new long[]{complete, lastBattle};
+    }
+
+    // Поток, стоящий на начале последнего боя файла
+    private static Reader openLastBattle(String path, InputStream in) throws IOException {
+        long from = scan(Path.of(path))[1];
+        Reader r = new Reader(in);
+        in.skipNBytes(from - r.position());
+        return r;
+    }
+
+    private static void skipFields(Reader r, Ev ev) throws IOException {
+        switch (ev) {
+            case BATTLE -> {
+                int n = r.varint();
+                for (int i = 0; i < n; i++) { r.varint(); r.str(); r.varint(); r.varint(); }
+            }
+            case ROUND, STUN, SKIP, END -> r.varint();
+            case MISS, BLOCK, DODGE, CRIT, KILL, STANCE -> { r.varint(); r.varint(); }
+            case DAMAGE -> { r.varint(); r.varint(); r.varint(); r.varint(); r.varint(); }
+            case POTION -> { r.varint(); r.varint(); r.varint(); }
+        }
+    }
+
+    static void stop(Writer w, int winnerTeam) {
+        if (w == null) return;
+        if (ACTIVE.get() == w) ACTIVE.remove();
+        w.end(winnerTeam);
+        w.close();
+    }
+
+    // ===================== ЗАПИСЬ =====================
+    static final class Writer implements Closeable {
+        private final OutputStream out;
+        private final IdentityHashMap<Warrior, Integer> slots = new IdentityHashMap<>();
+        private boolean failed = false;
+
+        // header — файл новый, пишется сигнатура; иначе бой дописывается к прошлым
+        Writer(OutputStream out, boolean header) {
+            this.out = out;
+            if (!header) return;
+            try { out.write(MAGIC); out.write(VERSION); } catch (IOException e) { failed = true; }
+        }
+
+        void battle(Warrior[] teamA, Warrior[] teamB) {
+            List<Warrior> all = new ArrayList<>();
+            List<Integer> team = new ArrayList<>();
+            for (Warrior w : teamA) if (w != null) { all.add(w); team.add(0); }
+            for (Warrior w : teamB) if (w != null) { all.add(w); team.add(1); }
+            type(Ev.BATTLE);
+            varint(all.size());
+            for (int i = 0; i < all.size(); i++) {
+                Warrior w = all.get(i);
+                slots.put(w, i);
+                varint(team.get(i));
+                str(w.label());
+                varint(w.hp);
+                varint(w.maxHp);
+            }
+        }
+
+        void round(int n)                       { type(Ev.ROUND); varint(n); }
+        void miss(Warrior a, Warrior e)         { pair(Ev.MISS, a, e); }
+        void block(Warrior a, Warrior e)        { pair(Ev.BLOCK, a, e); }
+        void dodge(Warrior a, Warrior e)        { pair(Ev.DODGE, a, e); }
+        void crit(Warrior a, Warrior e)         { pair(Ev.CRIT, a, e); }
+        void kill(Warrior a, Warrior e)         { pair(Ev.KILL, a, e); }
+        void stun(Warrior e)                    { type(Ev.STUN); varint(slot(e)); }
+        void skip(Warrior a)                    { type(Ev.SKIP); varint(slot(a)); }
+        void stance(Warrior a, StanceType s)    { type(Ev.STANCE); varint(slot(a)); varint(s.ordinal()); }
+
+        void damage(Warrior a, Warrior e, int dmg, int absorbed) {
+            pair(Ev.DAMAGE, a, e);
+            varint(dmg); varint(Math.max(0, absorbed)); varint(e.hp);
+        }
+
+        void potion(Warrior giver, Warrior target, int healed) {
+            pair(Ev.POTION, giver, target);
+            varint(healed);
+        }
+
+        void end(int winnerTeam) { type(Ev.END); varint(winnerTeam); flush(); }
+
+        private void pair(Ev ev, Warrior a, Warrior e) { type(ev); varint(slot(a)); varint(slot(e)); }
+
+        private int slot(Warrior w) {
+            Integer s = slots.get(w);
+            return s == null ? 0 : s;
+        }
+
+        private void type(Ev ev) { write(ev.ordinal()); }
+
+        private void varint(int v) {
+            while ((v & ~0x7F) != 0) { write((v & 0x7F) | 0x80); v >>>= 7; }
+            write(v);
+        }
+
+        private void str(String s) {
+            byte[] b = (s == null ? "" : s).getBytes(StandardCharsets.UTF_8);
+            varint(b.length);
+            try { if (!failed) out.write(b); } catch (IOException e) { failed = true; }
+        }
+
+        private void write(int b) {
+            if (failed) return;
+            try { out.write(b); } catch (IOException e) { failed = true; }
+        }
+
+        void flush() {
+            if (failed) return;
+            try { out.flush(); } catch (IOException e) { failed = true; }
+        }
+
+        @Override
+        public void close() {
+            try { out.close(); } catch (IOException ignored) {}
+        }
+    }
+
+    // ===================== ЧТЕНИЕ =====================
+    static final class Reader {
+        private final InputStream in;
+        private long pos;   // прочитано байт от начала файла
+
+        Reader(InputStream in) throws IOException {
+            this.in = in;
+            byte[] m = in.readNBytes(MAGIC.length);
+            if (!Arrays.equals(m, MAGIC)) throw new IOException("не журнал боя (нет сигнатуры MCL)");
+            int v = in.read();
+            if (v != VERSION) throw new IOException("неподдерживаемая версия журнала: " + v);
+            pos = MAGIC.length + 1;
+        }
+
+        long position() { return pos; }
+
+        // Тип следующего события или null в конце потока
+        Ev next() throws IOException {
+            int t = in.read();
+            if (t < 0) return null;
+            pos++;
+            if (t >= Ev.values().length) throw new IOException("неизвестное событие: " + t);
+            return Ev.values()[t];
+        }
+
+        int varint() throws IOException {
+            int v = 0, shift = 0;
+            while (true) {
+                int b = in.read();
+                if (b < 0) throw new EOFException("журнал оборван");
+                pos++;
+                v |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return v;
+                shift += 7;
+            }
+        }
+
+        String str() throws IOException {
+            int len = varint();
+            byte[] b = in.readNBytes(len);
+            if (b.length < len) throw new EOFException("журнал оборван");
+            pos += len;
+            return new String(b, StandardCharsets.UTF_8);
+        }
+    }
+
+    // Воспроизвести последний бой файла: печатает ход боя, восстанавливая hp по событиям
+    static void replay(String path, PrintStream out) {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(path), 1 << 16)) {
+            Reader r = openLastBattle(path, in);
+            String[] names = new String[0];
+            int[] hp = new int[0], maxHp = new int[0];
+            StringBuilder sb = new StringBuilder(4096);
+            for (Ev ev = r.next(); ev != null; ev = r.next()) {
+                switch (ev) {
+                    case BATTLE -> {
+                        int n = r.varint();
+                        names = new String[n]; hp = new int[n]; maxHp = new int[n];
+                        sb.append("\n📼 Повтор боя: ").append(n).append(" бойцов\n");
+                        for (int i = 0; i < n; i++) {
+                            r.varint(); // команда — уже в метке имени
+                            names[i] = r.str(); hp[i] = r.varint(); maxHp[i] = r.varint();
+                            sb.append("  ").append(names[i]).append(" (hp=").append(hp[i]).append('/').append(maxHp[i]).append(")\n");
+                        }
+                    }
+                    case ROUND -> {
+                        out.print(sb); sb.setLength(0);
+                        sb.append("\n🎲 — Раунд ").append(r.varint()).append(" —\n");
+                    }
+                    case MISS -> { int a = r.varint(), e = r.varint(); sb.append("🌀 ").append(names[a]).append(" промахнулся по ").append(names[e]).append("!\n"); }
+                    case BLOCK -> { int a = r.varint(), e = r.varint(); sb.append("🛡 ").append(names[e]).append(" заблокировал удар ").append(names[a]).append("!\n"); }
+                    case DODGE -> { int a = r.varint(), e = r.varint(); sb.append("💨 ").append(names[e]).append(" увернулся от удара ").append(names[a]).append("!\n"); }
+                    case CRIT -> { int a = r.varint(); r.varint(); sb.append("⚡ ").append(names[a]).append(" нанёс КРИТИЧЕСКИЙ удар!\n"); }
+                    case DAMAGE -> {
+                        int a = r.varint(), e = r.varint(), dmg = r.varint(), absorbed = r.varint();
+                        hp[e] = r.varint();
+                        sb.append("⚔️ ").append(names[a]).append(" ударил ").append(names[e]).append(" на ").append(dmg).append(" урона");
+                        if (absorbed > 0) sb.append(" (🧱 броня поглотила ").append(absorbed).append(')');
+                        sb.append(", у него осталось ").append(hp[e]).append(" hp\n");
+                    }
+                    case STUN -> sb.append("🔔 ").append(names[r.varint()]).append(" оглушён и пропустит следующий ход!\n");
+                    case SKIP -> sb.append("⏸ ").append(names[r.varint()]).append(" оглушён и пропускает ход!\n");
+                    case KILL -> { int a = r.varint(), e = r.varint(); sb.append("💀 ").append(names[e]).append(" умер! Убийца — ").append(names[a]).append('\n'); }
+                    case POTION -> {
+                        int g = r.varint(), t = r.varint(), healed = r.varint();
+                        hp[t] = Math.min(maxHp[t], hp[t] + healed);
+                        if (g == t) sb.append("🧪 ").append(names[g]).append(" выпил зелье (+").append(healed).append(" hp)\n");
+                        else sb.append("🧪 ").append(names[g]).append(" дал зелье ").append(names[t]).append(" (+").append(healed).append(" hp)\n");
+                    }
+                    case STANCE -> {
+                        int a = r.varint();
+                        StanceType st = StanceType.values()[r.varint()];
+                        sb.append(st == StanceType.AGGRESSIVE ? "⚔ " : "🛡 ").append(names[a]).append(" — стойка ").append(st).append('\n');
+                    }
+                    case END -> {
+                        int w = r.varint();
+                        sb.append(w == 0 ? "\n🏆 Победила команда A!\n" : w == 1 ? "\n🏆 Победила команда B!\n" : "\nБой прерван.\n");
+                        sb.append("Итог:\n");
+                        for (int i = 0; i < names.length; i++) sb.append("  ").append(names[i]).append(" hp=").append(hp[i]).append('\n');
+                    }
+                }
+            }
+            out.print(sb);
+            out.flush();
+        } catch (IOException e) {
+            out.println("❌ Ошибка чтения журнала боя: " + e.getMessage());
+        }
+    }
+
+    // Счётчики событий последнего боя файла — для массового анализа без текстового лога
+    static long[] summarize(String path) throws IOException {
+        long[] counts = new long[Ev.values().length];
+        try (InputStream in = new BufferedInputStream(new FileInputStream(path), 1 << 16)) {
+            Reader r = openLastBattle(path, in);
+            for (Ev ev = r.next(); ev != null; ev = r.next()) {
+                counts[ev.ordinal()]++;
+                skipFields(r, ev);
+            }
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,95 @@
+// ===================== СКОМПИЛИРОВАННЫЕ МОДИФИКАТОРЫ БОЯ =====================
+// Плоская таблица бойца для Warrior.attack: всё, что зависит от роли, боевого клича, временной брони,
+// стратегии сессии (GameSession.strategy/tier) и принадлежности к команде A, считается один раз.
+// Обе стойки посчитаны заранее и выбираются индексом ([0] — без стойки, [1] — AGGRESSIVE у атакующего
+// или DEFENSIVE у цели), пробитие стратегии — по чётности номера удара. Формулы и порядок операций —
+// те же, что были в attack, поэтому исход удара совпадает бит в бит.
+// Таблица устаревает, когда меняется стратегия/тир или начинается новый бой (newBattle): статы бойца
+// меняются только между боями (лагерь, уровни, снаряжение). Сбрасываются таблицы только бойцов этого боя —
+// параллельные бои (CampaignSimulator) чужие таблицы не трогают.
+// Те же таблицы берёт BattleState (forSlot): правила удара записаны только здесь.
+final class CombatMods {
+    // Вызывать в начале боя: таблицы его бойцов пересоберутся при первом ударе
+    static void newBattle(Warrior[] teamA, Warrior[] teamB) {
+        for (Warrior w : teamA) if (w != null) invalidate(w);
+        for (Warrior w : teamB) if (w != null) invalidate(w);
+    }
+
+    private final StrategyPlan strategy;
+    private final int tier;
+    final boolean metrics;                        // исходы ударов пишутся в Metrics (GameSession.metrics на этот бой)
+
+    // Атакующий: индекс — агрессивная стойка
+    final int[] dmgBonus = new int[2];
+    final double[] crit = new double[2];
+    final double[] stunProb = new double[2];      // итоговый шанс оглушения при крите
+    final int[] pierceByParity = new int[2];      // индекс — (номер удара) & 1
+    final double outgoing;
+
+    // Цель: индекс — оборонительная стойка
+    final double[] block = new double[2];
+    final double[] dodge = new double[2];
+    final int[] armor = new int[2];
+    final double incoming;
+    final double critKeep;                        // доля урона крита по цели под Осторожной стратегией
+
+    private CombatMods(Warrior w, StrategyPlan strategy, int tier, boolean metrics, boolean isPlayer) {
+        this.strategy = strategy;
+        this.tier = tier;
+        this.metrics = metrics;
+        boolean aggressive = isPlayer && strategy == StrategyPlan.AGGRESSIVE && tier > 0;
+        boolean cautious = isPlayer && strategy == StrategyPlan.CAUTIOUS && tier > 0;
+
+        double extraStun = aggressive ? (tier == 1 ? 0.05 : tier == 2 ? 0.07 : 0.10) : 0.0;
+        for (int s = 0; s < 2; s++) {
+            int bonus = 0;
+            double c = w.critChance;
+            double st = w.stunOnCritChance;
+            if (s == 1) {
+                bonus += Main.AGG_DMG_BONUS(w.role);
+                c = Role.clamp01(c + Main.AGG_CRIT_DELTA(w.role));
+                st = Role.clamp01(st + Main.AGG_STUN_DELTA(w.role));
+            }
+            if (w.battleCryBonus) {
+                bonus += 1;
+                c = Role.clamp01(c + 0.05);
+            }
+            dmgBonus[s] = bonus;
+            crit[s] = c;
+            stunProb[s] = Math.min(1.0, st + extraStun);
+        }
+        for (int parity = 0; parity < 2; parity++) {
+            boolean grantPierce = aggressive && ((tier >= 3) || (tier == 2 && parity == 1) || (tier == 1 && parity == 0));
+            pierceByParity[parity] = w.pierce + (grantPierce ? 1 : 0);
+        }
+        outgoing = cautious ? (tier == 1 ? 0.95 : tier == 2 ? 0.93 : 0.91) : 1.0;
+
+        block[0] = w.blockChance;
+        dodge[0] = w.dodgeChance;
+        armor[0] = w.armor + w.tempArmorBonus;
+        block[1] = Role.clamp01(w.blockChance + Main.DEF_BLOCK_DELTA(w.role));
+        dodge[1] = Role.clamp01(w.dodgeChance + Main.DEF_DODGE_DELTA(w.role));
+        armor[1] = armor[0] + Main.DEF_ARMOR_BONUS(w.role);
+        incoming = aggressive ? (tier == 1 ? 1.10 : tier == 2 ? 1.12 : 1.15) : 1.0;
+        critKeep = cautious ? 1.0 - (tier == 1 ? 0.15 : tier == 2 ? 0.20 : 0.25) : 1.0;
+    }
+
+    // Актуальная таблица бойца (пересборка — только если устарела)
+    static CombatMods of(Warrior w) {
+        CombatMods m = w.mods;
+        GameSession s = Main.session();
+        if (m == null || m.strategy != s.strategy || m.tier != s.tier || m.metrics != s.metrics) {
+            m = new CombatMods(w, s.strategy, s.tier, s.metrics, w.teamTag != null && w.teamTag.contains("[A]"));
+            w.mods = m;
+        }
+        return m;
+    }
+
+    // Таблица для слота BattleState: сторона игрока задана слотом, а не тегом; в Metrics не пишет
+    static CombatMods forSlot(Warrior w, StrategyPlan strategy, int tier, boolean isPlayer) {
+        return new CombatMods(w, strategy, tier, false, isPlayer);
+    }
+
+    // Сбросить таблицу одного бойца
+    static void invalidate(Warrior w) { w.mods = null; }
+}
@@ -0,0 +1,169 @@
+import java.util.*;
+
+// ===================== РЕШЕНИЯ ЗА КОМАНДУ A =====================
+// Всё, что в бою выбирает игрок: стратегия на бой, приказ раунда, действие бойца, кому дать зелье.
+// BattleEngine спрашивает провайдера и сам ввода/вывода не делает. Реализации:
+//   - ConsoleDecisions — меню в консоли сессии (как раньше в Main);
+//   - ScriptedDecisions — заранее заданная очередь решений (тесты, реплеи, внешние сервисы);
+//   - AiDecisions — правила ИИ противника (зелье на низком hp, иначе удар по случайной цели).
+interface DecisionProvider {
+    // tier > 0 — доступная версия Осторожной/Агрессивной стратегии
+    StrategyPlan strategy(Warrior[] teamA, Warrior[] teamB, int tier);
+
+    RoundOrder roundOrder(Warrior[] teamA, Warrior[] teamB);
+
+    PlayerAction action(Warrior attacker, Warrior[] allies, Warrior[] enemies, Rng rng);
+
+    // Индекс живого союзника в allies или -1
+    int potionTarget(Warrior giver, Warrior[] allies);
+
+    DecisionProvider AI = new AiDecisions(0);
+
+    static DecisionProvider console(Scanner in) { return new ConsoleDecisions(in); }
+}
+
+final class ConsoleDecisions implements DecisionProvider {
+    private final Scanner in;
+
+    ConsoleDecisions(Scanner in) { this.in = in; }
+
+    @Override
+    public StrategyPlan strategy(Warrior[] teamA, Warrior[] teamB, int tier) {
+        if (tier <= 0) return StrategyPlan.STANDARD;
+        // Оценка стратегий симуляцией против реального противника (≈200 мс на всех ядрах)
+        StrategyAdvisor.Advice advice = StrategyAdvisor.advise(teamA, teamB, tier);
+        Main.out().print(advice.format());
+        Main.out().println("\nВыбор стратегии на бой (доступна версия " + tier + "):");
+        Main.out().println(" 1) Стандарт (без изменений)");
+        Main.out().println(" 2) Осторожная (версия " + tier + ")");
+        Main.out().println(" 3) Агрессивная (версия " + tier + ")");
+        Main.out().println("Рекомендация советника: " + advice.best().label());
+        int pick = Main.readInt(in, "Ваш выбор (1-3): ", 1, 3);
+        return pick == 2 ? StrategyPlan.CAUTIOUS : pick == 3 ? StrategyPlan.AGGRESSIVE : StrategyPlan.STANDARD;
+    }
+
+    @Override
+    public RoundOrder roundOrder(Warrior[] teamA, Warrior[] teamB) {
+        Main.flushLog();
+        RoundOrder ro = new RoundOrder();
+        Main.out().println("\nПриказ раунда:");
+        Main.out().println(" 1) Без приказа");
+        Main.out().println(" 2) Сфокусировать атаку на враге (выбрать из Команды B)");
+        int pick = Main.readInt(in, "Ваш выбор (1-2): ", 1, 2);
+        if (pick == 2) {
+            Main.printTeam("Команда B (для фокуса)", teamB);
+            int idx = Main.readInt(in, "Кого фокусим? №: ", 1, teamB.length);
+            if (teamB[idx-1] != null && teamB[idx-1].hp > 0) ro.focusEnemyIndexB = idx;
+            else Main.out().println("Цель недоступна — приказ игнорируется.");
+        }
+        return ro;
+    }
+
+    @Override
+    public PlayerAction action(Warrior attacker, Warrior[] allies, Warrior[] enemies, Rng rng) {
+        Main.flushLog();
+        Main.out().println("\nХод " + attacker.label() + ". Выберите действие:");
+        Main.out().println(" 1) Атаковать");
+        Main.out().println(" 2) Выпить зелье (сам)");
+        Main.out().println(" 3) Дать зелье союзнику");
+        Main.out().println(" 4) Встать в атакующую стойку (эффект на СЛЕД. ход)");
+        Main.out().println(" 5) Встать в защитную стойку (эффект до след. хода)");
+        int pick = Main.readInt(in, "Ваш выбор (1-5): ", 1, 5);
+        return switch (pick) {
+            case 2 -> PlayerAction.POTION_SELF;
+            case 3 -> PlayerAction.POTION_ALLY;
+            case 4 -> PlayerAction.STANCE_AGGR;
+            case 5 -> PlayerAction.STANCE_DEF;
+            default -> PlayerAction.ATTACK;
+        };
+    }
+
+    @Override
+    public int potionTarget(Warrior giver, Warrior[] allies) {
+        Main.flushLog();
+        List<Integer> aliveIdx = new ArrayList<>();
+        Main.out().println("Выберите союзника для зелья:");
+        for (int i = 0; i < allies.length; i++) {
+            Warrior w = allies[i];
+            if (w != null && w.hp > 0) {
+                aliveIdx.add(i);
+                Main.out().println(" " + aliveIdx.size() + ") " + w.label() + " (hp=" + w.hp + ")");
+            }
+        }
+        if (aliveIdx.isEmpty()) { Main.out().println("Живых союзников нет."); return -1; }
+        int pick = Main.readInt(in, "Номер: ", 1, aliveIdx.size());
+        return aliveIdx.get(pick - 1);
+    }
+}
+
+// Очередь решений; когда очередь пуста — удар без приказа и стандартная стратегия
+final class ScriptedDecisions implements DecisionProvider {
+    private final Deque<PlayerAction> actions = new ArrayDeque<>();
+    private final Deque<Integer> focus = new ArrayDeque<>();     // 1-based индекс в B, 0 — без приказа
+    private final Deque<Integer> potionTargets = new ArrayDeque<>();
+    private StrategyPlan plan = StrategyPlan.STANDARD;
+
+    ScriptedDecisions then(PlayerAction... next) { actions.addAll(Arrays.asList(next)); return this; }
+    ScriptedDecisions focusEach(int... enemyIndex1Based) { for (int i : enemyIndex1Based) focus.add(i); return this; }
+    ScriptedDecisions potionTo(int... allyIndex) { for (int i : allyIndex) potionTargets.add(i); return this; }
+    ScriptedDecisions strategy(StrategyPlan plan) { this.plan = plan; return this; }
+
+    int pendingActions() { return actions.size(); }
+
+    @Override
+    public StrategyPlan strategy(Warrior[] teamA, Warrior[] teamB, int tier) { return tier > 0 ? plan : StrategyPlan.STANDARD; }
+
+    @Override
+    public RoundOrder roundOrder(Warrior[] teamA, Warrior[] teamB) {
+        RoundOrder ro = new RoundOrder();
+        Integer idx = focus.poll();
+        if (idx != null && idx > 0) ro.focusEnemyIndexB = idx;
+        return ro;
+    }
+
+    @Override
+    public PlayerAction action(Warrior attacker, Warrior[] allies, Warrior[] enemies, Rng rng) {
+        PlayerAction a = actions.poll();
+        return a == null ? PlayerAction.ATTACK : a;
+    }
+
+    @Override
+    public int potionTarget(Warrior giver, Warrior[] allies) {
+        Integer idx = potionTargets.poll();
+        return idx == null ? -1 : idx;
+    }
+}
+
+// ИИ: те же правила, что у противника; стратегию выбирает советник, если ему дан бюджет
+final class AiDecisions implements DecisionProvider {
+    private final long adviseBudgetMs;
+
+    AiDecisions(long adviseBudgetMs) { this.adviseBudgetMs = adviseBudgetMs; }
+
+    @Override
+    public StrategyPlan strategy(Warrior[] teamA, Warrior[] teamB, int tier) {
+        if (tier <= 0 || adviseBudgetMs <= 0) return StrategyPlan.STANDARD;
+        return StrategyAdvisor.advise(teamA, teamB, tier, adviseBudgetMs, Main.rng().split(),
+                java.util.concurrent.ForkJoinPool.commonPool()).best().plan;
+    }
+
+    @Override
+    public RoundOrder roundOrder(Warrior[] teamA, Warrior[] teamB) { return new RoundOrder(); }
+
+    @Override
+    public PlayerAction action(Warrior attacker, Warrior[] allies, Warrior[] enemies, Rng rng) {
+        if (attacker.hp <= Main.LOW_HP_THRESHOLD && attacker.potions > 0 && rng.chance(Main.TEAM_HEAL_CHANCE))
+            return PlayerAction.POTION_SELF;
+        return PlayerAction.ATTACK;
+    }
+
+    @Override
+    public int potionTarget(Warrior giver, Warrior[] allies) {
+        int best = -1;
+        for (int i = 0; i < allies.length; i++) {
+            Warrior w = allies[i];
+            if (w != null && w.hp > 0 && (best < 0 || w.hp < allies[best].hp)) best = i;
+        }
+        return best;
+    }
+}
@@ -0,0 +1,188 @@
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// ===================== ТОЧНЫЙ РАСЧЁТ ДУЭЛИ (ЦЕПЬ МАРКОВА) =====================
+// Дуэль из Main.main — цепь Маркова по состоянию начала раунда (hp1, hp2, f1, f2, s1, s2, p1, p2).
+// Раунд: монета 50/50 за первый ход; ход — пропуск при оглушении, зелье при hp ≤ LOW_HP_THRESHOLD,
+// иначе удар с вероятностями из Warrior.attack (промах → блок → уворот → крит → оглушение при крите).
+// Усталость влияет только через max(minDamage, attack − fatigue), поэтому она обрезается на attack − minDamage.
+// Кроме петли «раунд без изменений» переходы строго убывают по (зелья, сумма hp, оглушения), так что
+// V(s) = (Σ P(s→s')·V(s') + P(победа за раунд)) / (1 − P(s→s)) считается рекурсией с мемоизацией.
+// Решатель кэшируется по сигнатуре статов пары; стойки и стратегии в дуэли не используются и не моделируются.
+final class DuelSolver {
+    static final int MAX_CACHED = 256;
+
+    private static final Map<String, DuelSolver> CACHE = new ConcurrentHashMap<>();
+
+    // Итог: вероятности побед и ожидаемая длительность в раундах
+    static final class Outcome {
+        final double winA, winB, expectedRounds;
+        final int states;
+
+        Outcome(double winA, double winB, double expectedRounds, int states) {
+            this.winA = winA; this.winB = winB; this.expectedRounds = expectedRounds; this.states = states;
+        }
+
+        double draw() { return Math.max(0, 1 - winA - winB); }
+
+        String format(Warrior a, Warrior b) {
+            return String.format(Locale.ROOT, "📐 Точный расчёт: %s — %.2f%% | %s — %.2f%%%s | в среднем %.2f раунда (%d состояний)",
+                    a.label(), winA * 100, b.label(), winB * 100,
+                    draw() > 1e-9 ? String.format(Locale.ROOT, " | бесконечная дуэль %.2f%%", draw() * 100) : "",
+                    expectedRounds, states);
+        }
+    }
+
+    // Неизменные в дуэли статы бойца
+    private static final class Stats {
+        final int maxHp, attack, minDamage, armor, pierce, dmgBonus, fatigueCap;
+        final double miss, block, dodge, crit, stun;
+
+        Stats(Warrior w) {
+            maxHp = w.maxHp; attack = w.attack; minDamage = w.minDamage;
+            armor = w.armor + w.tempArmorBonus; pierce = w.pierce;
+            dmgBonus = w.battleCryBonus ? 1 : 0;
+            fatigueCap = Math.max(0, attack - minDamage);
+            miss = w.missChance; block = w.blockChance; dodge = w.dodgeChance;
+            crit = Role.clamp01(w.critChance + (w.battleCryBonus ? 0.05 : 0));
+            stun = Math.min(1.0, w.stunOnCritChance);
+        }
+
+        String signature() {
+            return maxHp + "," + attack + "," + minDamage + "," + armor + "," + pierce + "," + dmgBonus + ","
+                    + miss + "," + block + "," + dodge + "," + crit + "," + stun;
+        }
+    }
+
+    private final Stats[] st;
+    private final Map<Long, double[]> memo = new HashMap<>(); // {winA, winB, rounds}
+
+    private DuelSolver(Stats a, Stats b) { st = new Stats[]{a, b}; }
+
+    static Outcome solve(Warrior a, Warrior b) {
+        Stats sa = new Stats(a), sb = new Stats(b);
+        String sig = sa.signature() + "|" + sb.signature() + "|" + Main.LOW_HP_THRESHOLD;
+        if (CACHE.size() >= MAX_CACHED) CACHE.clear();
+        DuelSolver solver = CACHE.computeIfAbsent(sig, k -> new DuelSolver(sa, sb));
+        synchronized (solver) {
+            int[] s = {
+                    Math.max(0, a.hp), Math.max(0, b.hp),
+                    Math.min(a.fatigue, sa.fatigueCap), Math.min(b.fatigue, sb.fatigueCap),
+                    a.stunned ? 1 : 0, b.stunned ? 1 : 0,
+                    Math.max(0, a.potions), Math.max(0, b.potions) };
+            if (s[0] == 0 || s[1] == 0) return new Outcome(s[0] > 0 ? 1 : 0, s[1] > 0 ? 1 : 0, 0, 0);
+            double[] v = value(solver, s);
+            return new Outcome(v[0], v[1], v[2], solver.memo.size());
+        }
+    }
+
+    // ===================== СОСТОЯНИЕ =====================
+    // Поля: 0 hp1, 1 hp2, 2 f1, 3 f2, 4 s1, 5 s2, 6 p1, 7 p2 (hp ≤ 4095, усталость ≤ 255, зелья ≤ 63)
+    private static long key(int[] s) {
+        return (long) s[0] | (long) s[1] << 12 | (long) s[2] << 24 | (long) s[3] << 32
+                | (long) s[4] << 40 | (long) s[5] << 41 | (long) s[6] << 42 | (long) s[7] << 48;
+    }
+
+    // Рекурсия глубиной не больше суммы hp и зелий — для дуэльных статов это сотни кадров
+    private static double[] value(DuelSolver solver, int[] s) {
+        long k = key(s);
+        double[] cached = solver.memo.get(k);
+        if (cached != null) return cached;
+
+        Acc acc = new Acc();
+        for (int first = 0; first < 2; first++) solver.round(s, first, 0.5, acc);
+
+        double[] v;
+        double leave = 1 - acc.self;
+        if (leave < 1e-12) {
+            v = new double[]{0, 0, Double.POSITIVE_INFINITY}; // никто никогда не попадает
+        } else {
+            double winA = acc.winA, winB = acc.winB, rounds = 1;
+            for (Map.Entry<Long, Double> e : acc.next.entrySet()) {
+                double[] nv = value(solver, decode(e.getKey()));
+                winA += e.getValue() * nv[0];
+                winB += e.getValue() * nv[1];
+                rounds += e.getValue() * nv[2];
+            }
+            v = new double[]{winA / leave, winB / leave, rounds / leave};
+        }
+        solver.memo.put(k, v);
+        return v;
+    }
+
+    private static int[] decode(long k) {
+        return new int[]{
+                (int) (k & 0xFFF), (int) (k >>> 12 & 0xFFF), (int) (k >>> 24 & 0xFF), (int) (k >>> 32 & 0xFF),
+                (int) (k >>> 40 & 1), (int) (k >>> 41 & 1), (int) (k >>> 42 & 0x3F), (int) (k >>> 48 & 0x3F) };
+    }
+
+    // Распределение исходов одного раунда из состояния start
+    private static final class Acc {
+        double winA, winB, self;
+        final Map<Long, Double> next = new HashMap<>();
+        long startKey;
+    }
+
+    private void round(int[] start, int first, double p, Acc acc) {
+        acc.startKey = key(start);
+        int second = 1 - first;
+        turn(start, first, p, (s1, p1) -> {
+            if (s1[second] == 0) { addWin(acc, first, p1); return; }
+            turn(s1, second, p1, (s2, p2) -> {
+                if (s2[first] == 0) { addWin(acc, second, p2); return; }
+                long k = key(s2);
+                if (k == acc.startKey) acc.self += p2;
+                else acc.next.merge(k, p2, Double::sum);
+            });
+        });
+    }
+
+    private static void addWin(Acc acc, int who, double p) {
+        if (who == 0) acc.winA += p; else acc.winB += p;
+    }
+
+    private interface Sink { void accept(int[] s, double p); }
+
+    // Ход бойца x по цели y; индексы полей: hp x, y; усталость 2+x; оглушение 4+x; зелья 6+x
+    private void turn(int[] s, int x, double p, Sink out) {
+        int y = 1 - x;
+        if (s[4 + x] == 1) {                       // tryStartTurn: оглушён — пропуск
+            int[] n = s.clone(); n[4 + x] = 0;
+            out.accept(n, p);
+            return;
+        }
+        Stats a = st[x], d = st[y];
+        if (s[x] <= Main.LOW_HP_THRESHOLD && s[6 + x] > 0) { // usePotion
+            int[] n = s.clone(); n[x] = Math.min(a.maxHp, s[x] + 8); n[6 + x]--;
+            out.accept(n, p);
+            return;
+        }
+
+        double noHit = a.miss + (1 - a.miss) * d.block + (1 - a.miss) * (1 - d.block) * d.dodge;
+        double hit = (1 - a.miss) * (1 - d.block) * (1 - d.dodge);
+        if (noHit > 0) out.accept(s, p * noHit);
+        if (hit <= 0) return;
+
+        int damage = Math.max(a.minDamage, a.attack - s[2 + x]) + a.dmgBonus;
+        int effArmor = Math.max(0, d.armor - a.pierce);
+        int normal = Math.max(1, damage - effArmor);
+        int crit = Math.max(1, damage * 2 - effArmor);
+        int fNext = Math.min(a.fatigueCap, s[2 + x] + 1);
+
+        if (a.crit < 1) hitOutcome(s, x, y, normal, false, fNext, p * hit * (1 - a.crit), out);
+        if (a.crit > 0) hitOutcome(s, x, y, crit, true, fNext, p * hit * a.crit, out);
+    }
+
+    private void hitOutcome(int[] s, int x, int y, int dmg, boolean crit, int fNext, double p, Sink out) {
+        int[] n = s.clone();
+        n[y] = Math.max(0, s[y] - dmg);
+        n[2 + x] = fNext;
+        if (n[y] == 0 || !crit) { out.accept(n, p); return; }
+        double stun = st[x].stun;
+        if (stun < 1) out.accept(n, p * (1 - stun));
+        if (stun > 0) {
+            int[] m = n.clone(); m[4 + y] = 1;
+            out.accept(m, p * stun);
+        }
+    }
+}
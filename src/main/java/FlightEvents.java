@@ -0,0 +1,161 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// ===================== СОБЫТИЯ JFR =====================
+// Фазы движка для JDK Flight Recorder: бой, раунд, удар, пул найма, маршрут, запись и чтение сейва.
+// Запись снимается без перезапуска: jcmd <pid> JFR.start name=mercs filename=mercs.jfr, затем JFR.dump/JFR.stop;
+// в JMC события лежат в категории «Mercs» рядом с GC и аллокациями. Пока запись не идёт, begin/commit —
+// пустые вызовы, а объект события JIT убирает (escape-анализ), так что горячий путь удара ничего не платит.
+// Удар и раунд — без стека: их тысячи за бой, а место вызова у них всегда одно.
+final class FlightEvents {
+    private FlightEvents() {}
+
+    static int alive(Warrior[] team) {
+        int n = 0;
+        if (team != null) for (Warrior w : team) if (w != null && w.hp > 0) n++;
+        return n;
+    }
+
+    static int size(Warrior[] team) {
+        int n = 0;
+        if (team != null) for (Warrior w : team) if (w != null) n++;
+        return n;
+    }
+
+    // ===================== БОЙ =====================
+    @Name("mercs.Battle")
+    @Label("Бой")
+    @Category({"Mercs", "Бой"})
+    @Description("Командный бой от расстановки до исхода (командная битва или бой кампании)")
+    static final class Battle extends Event {
+        @Label("Режим") String mode;
+        @Label("Бойцов A") int teamA;
+        @Label("Бойцов B") int teamB;
+        @Label("Тир стратегии") @Description("0 — стандарт, 1..3 — уровень Ротмистра 6/8/10") int strategyTier;
+        @Label("Стратегия") String strategy;
+        @Label("Раундов") int rounds;
+        @Label("Выжило A") int aliveA;
+        @Label("Выжило B") int aliveB;
+        @Label("Победа A") boolean aWon;
+
+        // Вызывать перед первым раундом: состав команд на старте
+        static Battle start(String mode, Warrior[] a, Warrior[] b) {
+            Battle e = new Battle();
+            e.begin();
+            if (e.isEnabled()) {
+                e.mode = mode;
+                e.teamA = size(a);
+                e.teamB = size(b);
+            }
+            return e;
+        }
+
+        void finish(int rounds, Warrior[] a, Warrior[] b) {
+            end();
+            if (!shouldCommit()) return;
+            GameSession s = Main.session();
+            strategyTier = s.tier;
+            strategy = String.valueOf(s.strategy);
+            this.rounds = rounds;
+            aliveA = alive(a);
+            aliveB = alive(b);
+            aWon = aliveA > 0 && aliveB == 0;
+            commit();
+        }
+    }
+
+    // ===================== РАУНД =====================
+    @Name("mercs.Round")
+    @Label("Раунд")
+    @Category({"Mercs", "Бой"})
+    @Description("Раунд боя (BattleEngine): от построения очереди ходов до последнего хода")
+    @StackTrace(false)
+    static final class Round extends Event {
+        @Label("Раунд") int round;
+        @Label("Ходов в очереди") int actors;
+        @Label("Живых A на старте") int aliveA;
+        @Label("Живых B на старте") int aliveB;
+        @Label("Тир стратегии") int strategyTier;
+        @Label("Приказ фокуса") boolean focus;
+    }
+
+    // ===================== УДАР =====================
+    @Name("mercs.Attack")
+    @Label("Удар")
+    @Category({"Mercs", "Бой"})
+    @Description("Разрешение одного удара (Warrior.attack): исход и урон")
+    @StackTrace(false)
+    static final class Attack extends Event {
+        static final String MISS = "MISS", BLOCK = "BLOCK", DODGE = "DODGE", HIT = "HIT", KILL = "KILL";
+
+        @Label("Атакующий") String attacker;
+        @Label("Цель") String target;
+        @Label("Исход") String outcome;
+        @Label("Урон") int damage;
+        @Label("Поглощено бронёй") int absorbed;
+        @Label("Крит") boolean crit;
+        @Label("Оглушение") boolean stun;
+
+        void finish(Warrior a, Warrior t, String outcome, int damage, int absorbed, boolean crit, boolean stun) {
+            end();
+            if (!shouldCommit()) return;
+            attacker = a.name;
+            target = t.name;
+            this.outcome = outcome;
+            this.damage = damage;
+            this.absorbed = absorbed;
+            this.crit = crit;
+            this.stun = stun;
+            commit();
+        }
+    }
+
+    // ===================== ГЕНЕРАЦИЯ =====================
+    @Name("mercs.RecruitPool")
+    @Label("Пул найма")
+    @Category({"Mercs", "Генерация"})
+    @Description("Генерация кандидатов в наём (Main.generateRecruitPool)")
+    static final class RecruitPool extends Event {
+        @Label("Кандидатов") int count;
+        @Label("Ростер") int roster;
+        @Label("Резерв") int reserve;
+        @Label("Уровень Ротмистра") int rotmeisterLevel;
+    }
+
+    @Name("mercs.Path")
+    @Label("Маршрут")
+    @Category({"Mercs", "Генерация"})
+    @Description("Генерация маршрута кампании (Main.generatePath)")
+    static final class Path extends Event {
+        @Label("Узлов") int length;
+        @Label("Боёв") int battles;
+        @Label("Развилок") int forks;
+    }
+
+    // ===================== СЕЙВЫ =====================
+    @Name("mercs.Save")
+    @Label("Запись сейва")
+    @Category({"Mercs", "Сейвы"})
+    @Description("Запись слота (поток save-writer) или коммит журнала кампании")
+    static final class Save extends Event {
+        @Label("Файл") String path;
+        @Label("Формат") @Description("json, bin или journal") String format;
+        @Label("Размер") @DataAmount long bytes;
+        @Label("Сериализация, нс") long serializeNanos;
+    }
+
+    @Name("mercs.Load")
+    @Label("Чтение сейва")
+    @Category({"Mercs", "Сейвы"})
+    @Description("Чтение слота любого формата или восстановление кампании из журнала")
+    static final class Load extends Event {
+        @Label("Файл") String path;
+        @Label("Формат") @Description("json, bin или journal") String format;
+        @Label("Размер") @DataAmount long bytes;
+    }
+}
@@ -0,0 +1,65 @@
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Scanner;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// ===================== МНОГОСЕССИОННЫЙ СЕРВЕР =====================
+// --server[=порт]: слушает localhost, каждое подключение — своя партия (GameSession) со своим
+// вводом/выводом, стратегией и ГСЧ; меню те же, что в консоли (Main.play). Подключиться: nc/telnet.
+// На Java 17 виртуальных потоков нет — по платформенному потоку-демону на сессию, число сессий ограничено
+// MAX_SESSIONS. Общие ресурсы (index.json, очередь сейвов, каталог кампаний) уже потокобезопасны.
+final class GameServer {
+    static final int DEFAULT_PORT = 7777;
+    static final int MAX_SESSIONS = 256;
+
+    private static final AtomicInteger NEXT_ID = new AtomicInteger(1);
+    private static final AtomicInteger ACTIVE = new AtomicInteger();
+
+    private GameServer() {}
+
+    static void serve(int port) throws IOException {
+        try (ServerSocket server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            System.out.println("🌐 Сервер слушает " + server.getLocalSocketAddress() + " (до " + MAX_SESSIONS + " сессий)");
+            while (true) {
+                Socket socket = server.accept();
+                if (ACTIVE.get() >= MAX_SESSIONS) {
+                    try (socket; PrintStream out = new PrintStream(socket.getOutputStream(), true, StandardCharsets.UTF_8)) {
+                        out.println("⛔ Сервер занят, попробуйте позже.");
+                    }
+                    continue;
+                }
+                ACTIVE.incrementAndGet();
+                String id = "s" + NEXT_ID.getAndIncrement();
+                Thread t = new Thread(() -> runSession(id, socket), "session-" + id);
+                t.setDaemon(true);
+                t.start();
+            }
+        }
+    }
+
+    private static void runSession(String id, Socket socket) {
+        System.out.println("➕ Сессия " + id + " подключена: " + socket.getRemoteSocketAddress());
+        try (socket;
+             Scanner in = new Scanner(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             PrintStream out = new PrintStream(new BufferedOutputStream(socket.getOutputStream()), true, StandardCharsets.UTF_8)) {
+            GameSession s = new GameSession(id, in, out);
+            s.autosave = GameSession.console().autosave;
+            s.turnOrder = GameSession.console().turnOrder;
+            GameSession.bind(s);
+            Main.play();
+            s.closeScreen();
+        } catch (IOException | java.util.NoSuchElementException e) {
+            // обрыв соединения посреди меню — обычное завершение сессии
+        } catch (RuntimeException e) {
+            System.out.println("⚠️ Сессия " + id + " упала: " + e);
+        } finally {
+            GameSession.unbind();
+            Main.LOG_SINK.remove();
+            ACTIVE.decrementAndGet();
+            System.out.println("➖ Сессия " + id + " завершена");
+        }
+    }
+}
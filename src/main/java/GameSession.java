@@ -0,0 +1,66 @@
+import java.io.PrintStream;
+import java.util.Scanner;
+
+// ===================== ИГРОВАЯ СЕССИЯ =====================
+// Изменяемое состояние одной партии: уровень лога, цвет, стратегия на бой, ГСЧ, автосейв, ввод/вывод.
+// Раньше это были статические поля Main, и две партии в одном процессе портили друг другу стратегию.
+// Сессия привязывается к потоку (bind); потоки без своей сессии — консольная игра, fork-join пул,
+// бенчмарки — видят общую консольную, то есть ведут себя как прежде.
+final class GameSession {
+    private static final GameSession CONSOLE = new GameSession("console", null, null);
+    private static final ThreadLocal<GameSession> CURRENT = ThreadLocal.withInitial(() -> CONSOLE);
+    private static Scanner consoleIn;   // System.in открывается один раз и только при первом запросе ввода
+
+    final String id;
+    private final Scanner in;
+    private final PrintStream out;    // null — текущий System.out (его подменяют бенчмарки)
+
+    int logLevel = Main.NORMAL;
+    boolean color = true;
+    StrategyPlan strategy = StrategyPlan.STANDARD;  // применяется к Команде A
+    int tier = 0;                                   // 0=нет, 1..3
+    Rng rng = Rng.threadLocal();                    // --seed=N делает игру воспроизводимой
+    boolean autosave = false;
+    long autopilotMs = 0;                           // > 0 — бои кампании за A ведёт MctsAutopilot с этим бюджетом на решение
+    TurnOrder turnOrder = TurnOrder.SHUFFLE;        // порядок ходов новых боёв (--initiative — по инициативе)
+    boolean metrics = true;                         // удары боёв сессии идут в Metrics; симуляции (CampaignSimulator) выключают
+
+    GameSession(String id, Scanner in, PrintStream out) {
+        this.id = id; this.in = in; this.out = out;
+    }
+
+    static GameSession current() { return CURRENT.get(); }
+    static GameSession console() { return CONSOLE; }
+
+    // Привязать сессию к текущему потоку (поток сессии сервера)
+    static void bind(GameSession s) { CURRENT.set(s); }
+    static void unbind() { CURRENT.remove(); }
+
+    Scanner in() {
+        if (in != null) return in;
+        synchronized (CONSOLE) {
+            if (consoleIn == null) consoleIn = new Scanner(System.in);
+            return consoleIn;
+        }
+    }
+
+    PrintStream out() { return out != null ? out : System.out; }
+
+    // Закреплённая панель сводки/карты (см. Screen); создаётся при первом кадре
+    private Screen screen;
+
+    Screen screen() {
+        if (screen == null) screen = new Screen();
+        return screen;
+    }
+
+    // Вернуть терминалу обычную прокрутку (конец партии/режима)
+    void closeScreen() {
+        if (screen != null) screen.close();
+    }
+
+    // Журнал последнего боя свой у каждой сессии, чтобы параллельные бои не писали в один файл
+    String lastBattlePath() {
+        return this == CONSOLE ? Main.LAST_BATTLE_PATH : Main.SAVES_DIR + "/last-battle-" + id + ".mcl";
+    }
+}
@@ -0,0 +1,57 @@
+import java.io.PrintStream;
+
+// ===================== ЛОГ: ПРИЁМНИКИ =====================
+// Куда уходят строки Main.log. Консольный приёмник умеет копить раунд целиком
+// (beginBatch/endBatch) и выводить его одной записью; NULL отбрасывает всё и сообщает
+// enabled() == false, чтобы сообщения вообще не собирались (headless-прогоны).
+interface LogSink {
+    boolean enabled();
+    void line(String s);
+    void beginBatch();
+    void endBatch();     // закрыть пакет и вывести накопленное
+    void flush();        // вывести накопленное, не закрывая пакет (перед запросом ввода)
+
+    LogSink NULL = new LogSink() {
+        @Override public boolean enabled() { return false; }
+        @Override public void line(String s) {}
+        @Override public void beginBatch() {}
+        @Override public void endBatch() {}
+        @Override public void flush() {}
+    };
+
+    static LogSink console() { return new ConsoleSink(Main.out()); }
+}
+
+final class ConsoleSink implements LogSink {
+    private static final String NL = System.lineSeparator();
+
+    private final PrintStream out;
+    private final StringBuilder buf = new StringBuilder(2048);
+    private int depth = 0;
+
+    ConsoleSink(PrintStream out) { this.out = out; }
+
+    @Override public boolean enabled() { return true; }
+
+    @Override
+    public void line(String s) {
+        if (depth > 0) { buf.append(s).append(NL); return; }
+        out.println(s);
+    }
+
+    @Override public void beginBatch() { depth++; }
+
+    @Override
+    public void endBatch() {
+        if (depth > 0) depth--;
+        if (depth == 0) flush();
+    }
+
+    @Override
+    public void flush() {
+        if (buf.length() == 0) return;
+        out.print(buf);
+        out.flush();
+        buf.setLength(0);
+    }
+}
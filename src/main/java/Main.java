@@ -29,12 +29,18 @@ class SaveMeta {
     String id;         // save-001
     String saveName;   // имя слота
     long savedAt;      // millis
-    String path;       // путь к json-файлу
+    String path;       // путь к файлу сейва
+    String format;     // v4: "json" (null в старых индексах) или "bin" — BinarySave
 
     SaveMeta() {}
     SaveMeta(String id, String saveName, long savedAt, String path) {
         this.id = id; this.saveName = saveName; this.savedAt = savedAt; this.path = path;
     }
+
+    boolean isBinary() { return SaveMeta.BIN.equals(format); }
+
+    static final String JSON = "json";
+    static final String BIN = "bin";
 }
 
 // ===================== ВАЛЮТА =====================
@@ -88,11 +94,43 @@ class CampaignState {
     List<MapNode> path = null;
     int currentNodeIndex = 0;
 
+    // Идентификатор журнала кампании (saves/campaigns/<id>)
+    String campaignId = null;
+
     int aliveCount() {
         int c = 0;
         for (Warrior w : roster) if (w != null && w.hp > 0) c++;
         return c;
     }
+
+    // Глубокая копия (снимок для фоновой записи): бойцы, пул найма и маршрут — свои объекты
+    CampaignState copy() {
+        CampaignState c = new CampaignState();
+        c.day = day; c.difficulty = difficulty;
+        c.gulden = gulden; c.thaler = thaler; c.ducat = ducat;
+        c.stashPotions = stashPotions; c.stashArmorPatches = stashArmorPatches;
+        c.stashLightArmor = stashLightArmor; c.stashBasicWeapons = stashBasicWeapons;
+        c.roster = Main.copyTeam(roster);
+        c.reserve = Main.copyTeam(reserve);
+        if (recruitPool != null) {
+            c.recruitPool = new ArrayList<>(recruitPool.size());
+            for (Main.RecruitCandidate rc : recruitPool)
+                c.recruitPool.add(new Main.RecruitCandidate(rc.warrior == null ? null : rc.warrior.copy(), rc.costG, rc.costT, rc.costD));
+        }
+        c.recruitPoolDay = recruitPoolDay;
+        c.focusTarget = focusTarget;
+        if (path != null) {
+            c.path = new ArrayList<>(path.size());
+            for (MapNode n : path) {
+                MapNode m = new MapNode(n.id, n.type, n.desc);
+                m.next1 = n.next1; m.next2 = n.next2;
+                c.path.add(m);
+            }
+        }
+        c.currentNodeIndex = currentNodeIndex;
+        c.campaignId = campaignId;
+        return c;
+    }
 }
 
 // ===================== РОЛИ =====================
@@ -189,35 +227,134 @@ public class Main {
 
     // Логгер
     static final int BRIEF = 0, NORMAL = 1, VERBOSE = 2;
-    static int LOG_LEVEL = NORMAL;
-    static boolean COLOR = true;
     static final String RESET = "\u001B[0m", RED = "\u001B[31m", GREEN = "\u001B[32m",
             YELLOW = "\u001B[33m", CYAN = "\u001B[36m";
 
-    public static void log(int need, String msg) { if (LOG_LEVEL >= need) System.out.println(msg); }
-    public static String c(String color, String s){ return COLOR ? color + s + RESET : s; }
+    // Приёмник лога — свой у каждого потока (headless-прогоны ставят LogSink.NULL)
+    static final ThreadLocal<LogSink> LOG_SINK = ThreadLocal.withInitial(LogSink::console);
+
+    // Проверка уровня ДО сборки строки: if (logOn(VERBOSE)) log(VERBOSE, "..." + ...)
+    static boolean logOn(int need) { return session().logLevel >= need && LOG_SINK.get().enabled(); }
+    public static void log(int need, String msg) { if (logOn(need)) LOG_SINK.get().line(msg); }
+    public static void log(int need, java.util.function.Supplier<String> msg) { if (logOn(need)) LOG_SINK.get().line(msg.get()); }
+    static void flushLog() { LOG_SINK.get().flush(); }
+    static LogSink useLogSink(LogSink sink) { LogSink prev = LOG_SINK.get(); LOG_SINK.set(sink); return prev; }
+    public static String c(String color, String s){ return session().color ? color + s + RESET : s; }
 
     // СЛОТЫ
-    static final String SAVES_DIR = "saves";
+    static final String SAVES_DIR = System.getProperty("mercs.savesDir", "saves");
     static final String INDEX_PATH = SAVES_DIR + "/index.json";
-
-    // Текущая стратегия на бой (применяется к Команде A)
-    static StrategyPlan CURRENT_STRATEGY = StrategyPlan.STANDARD;
-    static int CURRENT_STRATEGY_TIER = 0; // 0=нет, 1..3
+    // Бинарный журнал последнего боя (перезаписывается каждым боем)
+    static final String LAST_BATTLE_PATH = SAVES_DIR + "/last-battle.mcl";
+    // Автосейв кампании после каждого боя (--autosave или переключатель в меню кампании)
+    static final String AUTOSAVE_ID = "autosave";
+
+    // Состояние партии (лог, цвет, стратегия, ГСЧ, автосейв, ввод/вывод) — в сессии потока, см. GameSession
+    static GameSession session() { return GameSession.current(); }
+    static java.io.PrintStream out() { return session().out(); }
+    static Rng rng() { return session().rng; }
+
+    // Число из флага вида --имя=N; опечатка или значение вне [min, max] — одна строка предупреждения и null
+    // (вызывающий берёт значение по умолчанию, описанное в fallback)
+    static Long numericFlag(String arg, String prefix, long min, long max, String fallback) {
+        String v = arg.substring(prefix.length());
+        try {
+            long n = Long.parseLong(v.trim());
+            if (n >= min && n <= max) return n;
+        } catch (NumberFormatException ignored) {}
+        out().println("⚠️ Неверное значение " + prefix.substring(0, prefix.length() - 1) + ": \"" + v + "\" — " + fallback + ".");
+        return null;
+    }
 
     public static void main(String[] args) {
-        Scanner in = new Scanner(System.in);
-        configureLogging(in);
+        Integer serverPort = null;
+        for (String a : args) {
+            if (a.startsWith("--seed=")) {
+                Long seed = numericFlag(a, "--seed=", Long.MIN_VALUE, Long.MAX_VALUE, "сид не задан, игра случайная");
+                if (seed != null) {
+                    GameSession.console().rng = Rng.seeded(seed);
+                    out().println("🎲 Фиксированный сид: " + seed);
+                }
+            } else if (a.equals("--autosave")) {
+                GameSession.console().autosave = true;
+            } else if (a.equals("--initiative")) {
+                GameSession.console().turnOrder = TurnOrder.INITIATIVE;
+            } else if (a.equals("--autopilot")) {
+                GameSession.console().autopilotMs = MctsAutopilot.DEFAULT_BUDGET_MS;
+            } else if (a.startsWith("--autopilot=")) {
+                Long ms = numericFlag(a, "--autopilot=", 1, Long.MAX_VALUE, "бюджет " + MctsAutopilot.DEFAULT_BUDGET_MS + " мс");
+                GameSession.console().autopilotMs = ms != null ? ms : MctsAutopilot.DEFAULT_BUDGET_MS;
+            } else if (a.equals("--server")) {
+                serverPort = GameServer.DEFAULT_PORT;
+            } else if (a.startsWith("--server=")) {
+                Long port = numericFlag(a, "--server=", 0, 65535, "порт " + GameServer.DEFAULT_PORT);
+                serverPort = port != null ? port.intValue() : GameServer.DEFAULT_PORT;
+            } else if (a.equals("--metrics") || a.startsWith("--metrics=")) {
+                Long parsed = a.equals("--metrics") ? null : numericFlag(a, "--metrics=", 0, 65535, "порт " + Metrics.DEFAULT_PORT);
+                int port = parsed != null ? parsed.intValue() : Metrics.DEFAULT_PORT;
+                try {
+                    Metrics.serveHttp(port);
+                } catch (java.io.IOException e) {
+                    out().println("⚠️ Страница метрик не запустилась: " + e.getMessage());
+                }
+            }
+        }
+        if (Metrics.ENABLED) Metrics.registerJmx();
+        if (serverPort != null) {
+            try {
+                GameServer.serve(serverPort);
+            } catch (java.io.IOException e) {
+                out().println("⚠️ Сервер не запустился: " + e.getMessage());
+            }
+            return;
+        }
+        try {
+            play();
+        } finally {
+            session().closeScreen();
+            Metrics.stopHttp();
+        }
+    }
 
-        System.out.println("\nВыберите режим:");
-        System.out.println(" 1) Дуэль (1 на 1)");
-        System.out.println(" 2) Командная битва");
-        System.out.println(" 3) Загрузить из JSON (старый способ)");
-        System.out.println(" 4) Загрузить из списка сохранений (СЛОТЫ)");
-        System.out.println(" 5) Кампания (WIP)");
-        int mode = readInt(in, "Ваш выбор (1-5): ", 1, 5);
+    // Одна партия от выбора режима до конца; ввод/вывод — текущей сессии (консоль или подключение сервера)
+    static void play() {
+        Scanner in = session().in();
+        configureLogging(in);
 
-        if (mode == 5) {
+        out().println("\nВыберите режим:");
+        out().println(" 1) Дуэль (1 на 1)");
+        out().println(" 2) Командная битва");
+        out().println(" 3) Загрузить из JSON (старый способ)");
+        out().println(" 4) Загрузить из списка сохранений (СЛОТЫ)");
+        out().println(" 5) Кампания (WIP)");
+        out().println(" 6) Симуляция баланса (без ввода, N боёв)");
+        out().println(" 7) Повтор последнего боя (бинарный журнал)");
+        out().println(" 8) Лига архетипов (все против всех, рейтинг Эло)");
+        out().println(" 9) Экономика кампании (тысячи кампаний без ввода)");
+        out().println("10) Массовый бой (сотни и тысячи бойцов на сторону, без ввода)");
+        int mode = readInt(in, "Ваш выбор (1-10): ", 1, 10);
+
+        if (mode == 10) {
+            runMassBattleMenu(in);
+            in.close();
+            return;
+        } else if (mode == 9) {
+            runCampaignSimMenu(in);
+            in.close();
+            return;
+        } else if (mode == 8) {
+            runLeagueMenu(in);
+            in.close();
+            return;
+        } else if (mode == 7) {
+            replayLastBattle();
+            in.close();
+            return;
+        } else if (mode == 6) {
+            runSimulationMenu(in);
+            in.close();
+            return;
+        } else if (mode == 5) {
             runCampaign(in);
             in.close();
             return;
@@ -227,21 +364,21 @@ public class Main {
                 int num = readInt(in, "Введите номер слота для загрузки: ", 1, metas.size());
                 SaveGame sg = loadSaveByNumber(num);
                 if (sg != null) {
-                    LOG_LEVEL = sg.logLevel;
-                    COLOR = sg.color;
+                    session().logLevel = sg.logLevel;
+                    session().color = sg.color;
                     runTeamBattleLoaded(in, sg);
                 }
             }
             in.close();
             return;
         } else if (mode == 3) {
-            System.out.print("Путь к сохранению (по умолчанию save.json): ");
+            out().print("Путь к сохранению (по умолчанию save.json): ");
             String p = in.nextLine().trim();
             if (p.isEmpty()) p = "save.json";
             SaveGame sg = loadGameJson(p);
             if (sg != null) {
-                LOG_LEVEL = sg.logLevel;
-                COLOR = sg.color;
+                session().logLevel = sg.logLevel;
+                session().color = sg.color;
                 runTeamBattleLoaded(in, sg);
             }
             in.close();
@@ -253,46 +390,58 @@ public class Main {
         }
 
         // Дуэль
-        System.out.println("Выберите первого бойца: 1) Landsknecht  2) Swiss  3) Случайный  4) Список");
+        out().println("Выберите первого бойца: 1) Landsknecht  2) Swiss  3) Случайный  4) Список");
         int ch1 = readInt(in, "Ваш выбор (1-4): ", 1, 4);
         Warrior p1 = createWarrior(ch1, in); p1.teamTag = "[A]";
-        System.out.println("Выберите второго бойца: 1) Landsknecht  2) Swiss  3) Случайный  4) Список");
+        out().println("Выберите второго бойца: 1) Landsknecht  2) Swiss  3) Случайный  4) Список");
         int ch2 = readInt(in, "Ваш выбор (1-4): ", 1, 4);
         Warrior p2 = createWarrior(ch2, in); p2.teamTag = "[B]";
 
-        System.out.println("\nНачало кошачей свалки: " + p1.label() + " vs " + p2.label());
+        out().println("\nНачало кошачей свалки: " + p1.label() + " vs " + p2.label());
+        out().println(DuelSolver.solve(p1, p2).format(p1, p2));
 
+        Rng rng = rng();
+        CombatMods.newBattle(new Warrior[]{p1}, new Warrior[]{p2});
+        CombatLog.Writer rec = CombatLog.startFile(session().lastBattlePath(), new Warrior[]{p1}, new Warrior[]{p2});
+        int duelRound = 1;
         while (p1.hp > 0 && p2.hp > 0) {
-            boolean p1First = Math.random() < 0.5;
+            if (rec != null) rec.round(duelRound++);
+            boolean p1First = rng.chance(0.5);
             Warrior first = p1First ? p1 : p2;
             Warrior second = p1First ? p2 : p1;
 
-            log(BRIEF, c(CYAN, "\n→ В этом раунде первым ходит " + first.label()));
+            LOG_SINK.get().beginBatch();
+            try {
+                if (logOn(BRIEF)) log(BRIEF, c(CYAN, "\n→ В этом раунде первым ходит " + first.label()));
 
-            if (first.tryStartTurn()) {
-                if (first.hp <= LOW_HP_THRESHOLD && first.potions > 0) first.usePotion();
-                else first.attack(second);
-            }
-            if (second.hp <= 0) break;
+                if (first.tryStartTurn()) {
+                    if (first.hp <= LOW_HP_THRESHOLD && first.potions > 0) first.usePotion();
+                    else first.attack(second, rng);
+                }
+                if (second.hp <= 0) break;
 
-            if (second.tryStartTurn()) {
-                if (second.hp <= LOW_HP_THRESHOLD && second.potions > 0) second.usePotion();
-                else second.attack(first);
+                if (second.tryStartTurn()) {
+                    if (second.hp <= LOW_HP_THRESHOLD && second.potions > 0) second.usePotion();
+                    else second.attack(first, rng);
+                }
+            } finally {
+                LOG_SINK.get().endBatch();
             }
         }
-        System.out.println("\nБой окончен!");
+        CombatLog.stop(rec, p1.hp > 0 ? 0 : 1);
+        out().println("\nБой окончен!");
         in.close();
     }
 
     // ===================== КАМПАНИЯ (ЦИКЛ) =====================
     static void runCampaign(Scanner in) {
-        System.out.println("\n=== КАМПАНИЯ (WIP) ===");
+        out().println("\n=== КАМПАНИЯ (WIP) ===");
         CampaignState cs = new CampaignState();
 
         // стартовый набор: 2 бойца
-        System.out.println("Соберём стартовый отряд (2 бойца).");
+        out().println("Соберём стартовый отряд (2 бойца).");
         for (int i = 0; i < 2; i++) {
-            System.out.println("Стартовый боец #" + (i + 1) + ": 1) Landsknecht  2) Swiss  3) Случайный  4) Список");
+            out().println("Стартовый боец #" + (i + 1) + ": 1) Landsknecht  2) Swiss  3) Случайный  4) Список");
             int ch = readInt(in, "Ваш выбор (1-4): ", 1, 4);
             cs.roster[i] = createWarrior(ch, in);
             cs.roster[i].teamTag = "[A]";
@@ -300,59 +449,140 @@ public class Main {
         assignRotmeister(cs, in);
 
         ensurePathGenerated(cs); // сразу сгенерируем первый маршрут
+        CampaignJournal journal = openJournal(cs);
 
         boolean running = true;
         while (running) {
-            System.out.println("\n=== День " + cs.day +
+            out().println("\n=== День " + cs.day +
                     " | 💰 Gulden: " + cs.gulden + " | Thaler: " + cs.thaler + " | Ducat: " + cs.ducat +
                     " | Отряд живых: " + cs.aliveCount() + " ===");
-            System.out.println(" 1) Лагерь / Магазин / Снаряжение");
-            System.out.println(" 2) Карта / пройти следующий узел");
-            System.out.println(" 3) Сохранить кампанию (в слот)");
-            System.out.println(" 4) Загрузить кампанию (из списка слотов)");
-            System.out.println(" 0) Выйти в главное меню");
-            int pick = readInt(in, "Ваш выбор: ", 0, 4);
+            out().println(" 1) Лагерь / Магазин / Снаряжение");
+            out().println(" 2) Карта / пройти следующий узел");
+            out().println(" 3) Сохранить кампанию (в слот)");
+            out().println(" 4) Загрузить кампанию (из списка слотов)");
+            out().println(" 5) Быстрое сохранение (журнал кампании)");
+            out().println(" 6) Продолжить кампанию из журнала");
+            out().println(" 7) Автосохранение после боя: " + (session().autosave ? "вкл" : "выкл"));
+            out().println(" 8) Автопилот боёв (MCTS): " + (session().autopilotMs > 0 ? "вкл, " + session().autopilotMs + " мс на решение" : "выкл"));
+            out().println(" 0) Выйти в главное меню");
+            int pick = readInt(in, "Ваш выбор: ", 0, 8);
 
             if (pick == 0) {
-                System.out.println("Выход из кампании...");
+                out().println("Выход из кампании...");
                 break;
             } else if (pick == 1) {
                 campMenu(in, cs);
             } else if (pick == 2) {
                 proceedOnMap(in, cs);
             } else if (pick == 3) {
-                System.out.print("Имя сохранения кампании (Enter — по умолчанию): ");
+                out().print("Имя сохранения кампании (Enter — по умолчанию): ");
                 String nm = in.nextLine().trim();
-                saveCampaignToNewSlot(nm, cs);
+                saveCampaignToNewSlot(nm, cs, askSaveFormat(in));
             } else if (pick == 4) {
                 List<SaveMeta> metas = listSavesPrint();
                 if (!metas.isEmpty()) {
                     int num = readInt(in, "Номер слота: ", 1, metas.size());
                     CampaignState loaded = loadCampaignByNumber(num);
-                    if (loaded != null) cs = loaded;
+                    if (loaded != null) {
+                        cs = loaded;
+                        cs.campaignId = null; // загруженный слот — новая ветка со своим журналом
+                        journal = openJournal(cs);
+                    }
+                }
+            } else if (pick == 5) {
+                journalCommit(journal, cs, true);
+            } else if (pick == 7) {
+                session().autosave = !session().autosave;
+                out().println("Автосохранение после боя: " + (session().autosave ? "включено (слот autosave)" : "выключено"));
+            } else if (pick == 8) {
+                session().autopilotMs = session().autopilotMs > 0 ? 0 : MctsAutopilot.DEFAULT_BUDGET_MS;
+                out().println("Автопилот боёв: " + (session().autopilotMs > 0 ? "включён — решения за команду A принимает поиск MCTS" : "выключен"));
+            } else if (pick == 6) {
+                List<String> ids = CampaignJournal.listIds();
+                if (ids.isEmpty()) {
+                    out().println("Журналов кампаний нет.");
+                } else {
+                    for (int i = 0; i < ids.size(); i++) out().println(" " + (i + 1) + ") " + ids.get(i));
+                    int num = readInt(in, "Номер журнала: ", 1, ids.size());
+                    try {
+                        CampaignState[] holder = new CampaignState[1];
+                        FlightEvents.Load ev = new FlightEvents.Load();
+                        ev.begin();
+                        journal = CampaignJournal.open(ids.get(num - 1), holder);
+                        if (ev.shouldCommit()) {
+                            ev.path = journal.id;
+                            ev.format = "journal";
+                            ev.bytes = journal.bytesOnDisk();
+                            ev.commit();
+                        }
+                        cs = holder[0];
+                        for (Warrior w : cs.roster) if (w != null) { w.teamTag = "[A]"; w.nextTurnStance = StanceType.NONE; w.defenseStance = StanceType.NONE; }
+                        out().println("✅ Кампания восстановлена из журнала: " + journal.id + " (день " + cs.day + ")");
+                    } catch (Exception e) {
+                        out().println("❌ Ошибка чтения журнала кампании: " + e.getMessage());
+                    }
                 }
             }
 
+            // точка сохранения: в журнал уходят только изменения за этот шаг
+            if (pick == 1 || pick == 2) journalCommit(journal, cs, false);
+
             Warrior rotmeister = null;
             for (Warrior w : cs.roster) if (w != null && w.isRotmeister) { rotmeister = w; break; }
             if (rotmeister != null) rotmeisterMenu(in, cs);
         }
-        System.out.println("Кампания завершена.");
+        session().closeScreen();
+        out().println("Кампания завершена.");
+    }
+
+    // ===== ЖУРНАЛ КАМПАНИИ =====
+    static CampaignJournal openJournal(CampaignState cs) {
+        try {
+            return CampaignJournal.create(cs);
+        } catch (Exception e) {
+            out().println("⚠️ Журнал кампании не ведётся: " + e.getMessage());
+            return null;
+        }
+    }
+
+    static void journalCommit(CampaignJournal journal, CampaignState cs, boolean verbose) {
+        if (journal == null) {
+            if (verbose) out().println("⚠️ Журнал кампании недоступен — используйте сохранение в слот.");
+            return;
+        }
+        try {
+            FlightEvents.Save ev = new FlightEvents.Save();
+            ev.begin();
+            int bytes = journal.commit(cs);
+            if (ev.shouldCommit()) {
+                ev.path = journal.id;
+                ev.format = "journal";
+                ev.bytes = bytes;
+                ev.commit();
+            }
+            if (verbose) out().println(bytes == 0 ? "💾 Изменений нет — журнал актуален."
+                    : "💾 Записано в журнал " + journal.id + ": " + bytes + " байт");
+        } catch (Exception e) {
+            out().println("❌ Ошибка записи журнала кампании: " + e.getMessage());
+        }
     }
 
     // ===== КАРТА: генерация/проход =====
     static void ensurePathGenerated(CampaignState cs) {
         if (cs.path != null && !cs.path.isEmpty()) return;
-        int len = 5 + (int)(Math.random() * 4); // 5..8
-        cs.path = generatePath(len);
+        int len = 5 + rng().nextInt(4); // 5..8
+        cs.path = generatePath(len, rng());
         cs.currentNodeIndex = 0;
-        System.out.println("\n🗺️ Сформирован маршрут из " + cs.path.size() + " узлов.");
+        out().println("\n🗺️ Сформирован маршрут из " + cs.path.size() + " узлов.");
         printUpcoming(cs);
     }
 
-    static List<MapNode> generatePath(int length) {
+    static List<MapNode> generatePath(int length) { return generatePath(length, rng()); }
+
+    static List<MapNode> generatePath(int length, Rng rnd) {
+        FlightEvents.Path ev = new FlightEvents.Path();
+        ev.begin();
         List<MapNode> nodes = new ArrayList<>();
-        Random rnd = new Random();
         for (int i = 0; i < length; i++) {
             NodeType type;
             // распределение: бой ~55%, событие ~30%, рынок ~15%
@@ -370,26 +600,46 @@ public class Main {
             MapNode n = nodes.get(i);
             n.next1 = i+1;
             // на средних узлах с шансом 30% создать развилку на i+2 (если есть)
-            if (i+2 < length && Math.random() < 0.30) n.next2 = i+2;
+            if (i+2 < length && rnd.chance(0.30)) n.next2 = i+2;
         }
         // последний без next
+        if (ev.shouldCommit()) {
+            ev.length = length;
+            for (MapNode n : nodes) {
+                if (n.type == NodeType.BATTLE) ev.battles++;
+                if (n.next2 != null) ev.forks++;
+            }
+            ev.commit();
+        }
         return nodes;
     }
 
+    // Карта маршрута: в ANSI-терминале — кадр панели (после шага меняются две строки с указателем),
+    // иначе — весь маршрут одной записью
     static void printUpcoming(CampaignState cs) {
-        System.out.println("\n— Карта —");
+        String[] frame = new String[cs.path.size() + 1];
+        frame[0] = "— Карта —";
         for (int i = 0; i < cs.path.size(); i++) {
             MapNode n = cs.path.get(i);
             String cur = (i == cs.currentNodeIndex) ? "👉 " : "   ";
             String branch = (n.next2 != null) ? " (развилка)" : "";
-            System.out.println(cur + "[" + n.id + "] " + n.desc + " — " + n.type + branch);
+            frame[i + 1] = cur + "[" + n.id + "] " + n.desc + " — " + n.type + branch;
+        }
+        Screen screen = session().screen();
+        if (screen.pinned()) {
+            screen.show(Screen.MAP, frame);
+            return;
         }
+        StringBuilder sb = new StringBuilder(512);
+        for (String row : frame) sb.append(Screen.NL).append(row);
+        out().print(sb.append(Screen.NL));
+        out().flush();
     }
 
     static void proceedOnMap(Scanner in, CampaignState cs) {
         ensurePathGenerated(cs);
         if (cs.currentNodeIndex >= cs.path.size()) {
-            System.out.println("Маршрут пройден. Генерирую новый акт...");
+            out().println("Маршрут пройден. Генерирую новый акт...");
             cs.day += 1;
             cs.path = null;
             ensurePathGenerated(cs);
@@ -397,14 +647,14 @@ public class Main {
 
         // показать текущий и варианты следующего шага
         MapNode cur = cs.path.get(cs.currentNodeIndex);
-        System.out.println("\n🧭 Текущий узел: [" + cur.id + "] " + cur.desc + " — " + cur.type);
+        out().println("\n🧭 Текущий узел: [" + cur.id + "] " + cur.desc + " — " + cur.type);
 
         // выполнить текущий, если ещё не выполнен (логика: входим — выполняем)
         enterNode(in, cs, cur);
 
         // перейти к выбору следующего
         if (cur.next1 == null && cur.next2 == null) {
-            System.out.println("Дальше пути нет. Акт завершён.");
+            out().println("Дальше пути нет. Акт завершён.");
             cs.day += 1;
             cs.path = null;
             ensurePathGenerated(cs);
@@ -416,14 +666,14 @@ public class Main {
         if (cur.next2 != null) {
             MapNode n1 = cs.path.get(cur.next1);
             MapNode n2 = cs.path.get(cur.next2);
-            System.out.println("Выберите направление:");
-            System.out.println(" 1) [" + n1.id + "] " + n1.type + " — " + n1.desc);
-            System.out.println(" 2) [" + n2.id + "] " + n2.type + " — " + n2.desc);
+            out().println("Выберите направление:");
+            out().println(" 1) [" + n1.id + "] " + n1.type + " — " + n1.desc);
+            out().println(" 2) [" + n2.id + "] " + n2.type + " — " + n2.desc);
             int pick = readInt(in, "Ваш выбор (1-2): ", 1, 2);
             nextIdx = (pick == 1) ? cur.next1 : cur.next2;
         } else {
             nextIdx = cur.next1;
-            System.out.println("Дальше по пути → узел [" + nextIdx + "]");
+            out().println("Дальше по пути → узел [" + nextIdx + "]");
         }
 
         cs.currentNodeIndex = nextIdx;
@@ -436,12 +686,12 @@ public class Main {
                 doNextBattle(in, cs);
             }
             case MARKET -> {
-                System.out.println("\n🛒 Узел Рынок: заходим на рынок лагеря.");
+                out().println("\n🛒 Узел Рынок: заходим на рынок лагеря.");
                 marketMenu(in, cs);
                 // день увеличивать не будем — день идёт за бой/акт
             }
             case EVENT -> {
-                System.out.println("\n📜 Узел Событие: происходит случайное событие.");
+                out().println("\n📜 Узел Событие: происходит случайное событие.");
                 runRandomEvent(in, cs);
             }
         }
@@ -449,7 +699,7 @@ public class Main {
 
     // Примеры событий риск/награда (минимум)
     static void runRandomEvent(Scanner in, CampaignState cs) {
-        int roll = (int)(Math.random()*3);
+        int roll = rng().nextInt(3);
         switch (roll) {
             case 0 -> eventMysteriousTrader(in, cs);
             case 1 -> eventAbandonedCart(in, cs);
@@ -457,62 +707,68 @@ public class Main {
         }
     }
     static void eventMysteriousTrader(Scanner in, CampaignState cs) {
-        System.out.println("«Таинственный торговец» предлагает сделку: заплатить 12 gulden за шанс получить 1 ducat.");
-        System.out.println(" 1) Заплатить 12 gulden\n 2) Отказаться");
+        out().println("«Таинственный торговец» предлагает сделку: заплатить 12 gulden за шанс получить 1 ducat.");
+        out().println(" 1) Заплатить 12 gulden\n 2) Отказаться");
         int pick = readInt(in, "Ваш выбор: ", 1, 2);
-        if (pick == 1) {
-            if (cs.gulden < 12) { System.out.println("Денег не хватает. Торговец уходит."); return; }
-            cs.gulden -= 12;
-            if (Math.random() < 0.5) { cs.ducat += 1; System.out.println("Удача! Получен 1 ducat."); }
-            else System.out.println("Обман! Ничего не получили.");
-        } else {
-            System.out.println("Вы отказались. Ничего не произошло.");
-        }
+        if (pick == 1) traderDeal(cs);
+        else out().println("Вы отказались. Ничего не произошло.");
+    }
+    static void traderDeal(CampaignState cs) {
+        if (cs.gulden < 12) { out().println("Денег не хватает. Торговец уходит."); return; }
+        cs.gulden -= 12;
+        if (rng().chance(0.5)) { cs.ducat += 1; out().println("Удача! Получен 1 ducat."); }
+        else out().println("Обман! Ничего не получили.");
     }
     static void eventAbandonedCart(Scanner in, CampaignState cs) {
-        System.out.println("«Заброшенный фургон»: можно обыскать (риск урона) или пройти мимо.");
-        System.out.println(" 1) Обыскать\n 2) Пройти мимо");
+        out().println("«Заброшенный фургон»: можно обыскать (риск урона) или пройти мимо.");
+        out().println(" 1) Обыскать\n 2) Пройти мимо");
         int pick = readInt(in, "Ваш выбор: ", 1, 2);
-        if (pick == 2) { System.out.println("Вы прошли мимо."); return; }
-
+        if (pick == 2) { out().println("Вы прошли мимо."); return; }
+        searchCart(cs);
+    }
+    static void searchCart(CampaignState cs) {
         // риск
-        if (Math.random() < 0.5) {
-            int found = 8 + (int)(Math.random()*9); // 8..16
+        if (rng().chance(0.5)) {
+            int found = 8 + rng().nextInt(9); // 8..16
             cs.gulden += found;
-            System.out.println("Нашли мешочек: +" + found + " gulden!");
+            out().println("Нашли мешочек: +" + found + " gulden!");
         } else {
             // кому-то больно
             int idx = -1;
             for (int i = 0; i < cs.roster.length; i++) if (cs.roster[i] != null && cs.roster[i].hp > 0) { idx = i; break; }
-            if (idx == -1) { System.out.println("Никто не пострадал (отряд пуст)."); return; }
+            if (idx == -1) { out().println("Никто не пострадал (отряд пуст)."); return; }
             Warrior w = cs.roster[idx];
-            int dmg = 3 + (int)(Math.random()*4); // 3..6
+            int dmg = 3 + rng().nextInt(4); // 3..6
             w.hp = Math.max(1, w.hp - dmg);
-            System.out.println(w.label() + " порезался при осмотре: -" + dmg + " hp (минимум 1).");
+            out().println(w.label() + " порезался при осмотре: -" + dmg + " hp (минимум 1).");
         }
     }
+    static final int CHEAP_RECRUIT_COST = 10;
     static void eventCheapRecruit(Scanner in, CampaignState cs) {
-        System.out.println("«Дешёвый наёмник»: предлагают воина со скидкой. Взять в отряд?");
+        out().println("«Дешёвый наёмник»: предлагают воина со скидкой. Взять в отряд?");
         Warrior cand = Warrior.randomWarrior();
         cand.teamTag = "[A]";
-        int costG = 10;
-        System.out.println("Кандидат: " + cand.label() + " (hp=" + cand.hp + ", atk=" + cand.attack + ", arm=" + cand.armor + ", weap=" + cand.weapon + ") — цена: " + costG + " G");
-        System.out.println(" 1) Нанять\n 2) Отказаться");
+        int costG = CHEAP_RECRUIT_COST;
+        out().println("Кандидат: " + cand.label() + " (hp=" + cand.hp + ", atk=" + cand.attack + ", arm=" + cand.armor + ", weap=" + cand.weapon + ") — цена: " + costG + " G");
+        out().println(" 1) Нанять\n 2) Отказаться");
         int pick = readInt(in, "Ваш выбор: ", 1, 2);
-        if (pick == 2) { System.out.println("Отказались от найма."); return; }
-        if (cs.gulden < costG) { System.out.println("Недостаточно gulden."); return; }
+        if (pick == 2) { out().println("Отказались от найма."); return; }
+        hireCheapRecruit(cs, cand, costG);
+    }
+    static void hireCheapRecruit(CampaignState cs, Warrior cand, int costG) {
+        if (cs.gulden < costG) { out().println("Недостаточно gulden."); return; }
         int slot = findEmptyRosterIndex(cs.roster);
-        if (slot == -1) { System.out.println("В отряде нет свободного слота."); return; }
+        if (slot == -1) { out().println("В отряде нет свободного слота."); return; }
         cs.gulden -= costG;
         cand.isRecruited = true;
         cs.roster[slot] = cand;
-        System.out.println("Нанят в слот " + (slot+1) + ". Остаток: G=" + cs.gulden);
+        out().println("Нанят в слот " + (slot+1) + ". Остаток: G=" + cs.gulden);
     }
 
     // Назначение ротмистра
     static void assignRotmeister(CampaignState cs, Scanner in) {
-        for (Warrior w : cs.roster) if (w != null && w.isRotmeister) { System.out.println("Ротмейстер уже выбран: " + w.label()); return; }
-        System.out.println("Выберите Ротмейстера из отряда:");
+        for (Warrior w : cs.roster) if (w != null && w.isRotmeister) { out().println("Ротмейстер уже выбран: " + w.label()); return; }
+        out().println("Выберите Ротмейстера из отряда:");
         printTeam("Ваш отряд", cs.roster, true);
         int idx = readInt(in, "Выберите Ротмейстера (номер отряда): ", 1, cs.roster.length);
         Warrior r = cs.roster[idx - 1];
@@ -525,68 +781,69 @@ public class Main {
         for (Warrior w : cs.roster) if (w != null && w.isRotmeister) { rot = w; break; }
         if (rot == null) return;
 
-        System.out.println("\n🌟 Ротмейстер " + rot.label() + " (Уровень " + rot.level + "):");
-        System.out.println(" 0) Пропустить");
+        out().println("\n🌟 Ротмейстер " + rot.label() + " (Уровень " + rot.level + "):");
+        out().println(" 0) Пропустить");
         int opt = 1;
-        if (rot.level >= 1) { System.out.println(" " + (opt++) + ") Дать зелье союзнику (из личных)"); }
-        if (rot.level >= 2) { System.out.println(" " + (opt++) + ") Установить атакующую стойку (на след. ход)"); }
-        if (rot.level >= 3) { System.out.println(" " + (opt++) + ") Установить защитную стойку (до след. хода)"); }
-        if (rot.level >= 4) { System.out.println(" " + (opt++) + ") Фокус атаки в следующем бою"); }
-        if (rot.level >= 5) { System.out.println(" " + (opt++) + ") Массовое лечение (тратит 2 личных зелья)"); }
-        if (rot.level >= 6) { System.out.println(" " + (opt++) + ") Боевой клич (бонусы на следующий бой)"); }
+        if (rot.level >= 1) { out().println(" " + (opt++) + ") Дать зелье союзнику (из личных)"); }
+        if (rot.level >= 2) { out().println(" " + (opt++) + ") Установить атакующую стойку (на след. ход)"); }
+        if (rot.level >= 3) { out().println(" " + (opt++) + ") Установить защитную стойку (до след. хода)"); }
+        if (rot.level >= 4) { out().println(" " + (opt++) + ") Фокус атаки в следующем бою"); }
+        if (rot.level >= 5) { out().println(" " + (opt++) + ") Массовое лечение (тратит 2 личных зелья)"); }
+        if (rot.level >= 6) { out().println(" " + (opt++) + ") Боевой клич (бонусы на следующий бой)"); }
 
         int maxChoice = opt - 1;
         int choice = readInt(in, "Ваш выбор (0-" + maxChoice + "): ", 0, maxChoice);
 
         int cursor = 1;
-        if (choice == 0) { System.out.println("Ротмейстер пропускает."); return; }
+        if (choice == 0) { out().println("Ротмейстер пропускает."); return; }
         if (rot.level >= 1 && choice == cursor++) {
             int i = selectAliveWarrior(in, cs.roster, "Выберите союзника для зелья:");
             if (i != -1) {
                 if (rot.potions > 0) rot.usePotionOn(cs.roster[i]);
-                else System.out.println("У Ротмейстера нет зелий.");
+                else out().println("У Ротмейстера нет зелий.");
             }
             return;
         }
-        if (rot.level >= 2 && choice == cursor++) { rot.nextTurnStance = StanceType.AGGRESSIVE; System.out.println("⚔ Стойка атакующая на следующий ход."); return; }
-        if (rot.level >= 3 && choice == cursor++) { rot.defenseStance = StanceType.DEFENSIVE; System.out.println("🛡 Стойка защитная до следующего хода."); return; }
-        if (rot.level >= 4 && choice == cursor++) { cs.focusTarget = true; System.out.println("🎯 Фокус атаки будет применён в следующем бою."); return; }
+        if (rot.level >= 2 && choice == cursor++) { rot.nextTurnStance = StanceType.AGGRESSIVE; out().println("⚔ Стойка атакующая на следующий ход."); return; }
+        if (rot.level >= 3 && choice == cursor++) { rot.defenseStance = StanceType.DEFENSIVE; out().println("🛡 Стойка защитная до следующего хода."); return; }
+        if (rot.level >= 4 && choice == cursor++) { cs.focusTarget = true; out().println("🎯 Фокус атаки будет применён в следующем бою."); return; }
         if (rot.level >= 5 && choice == cursor++) { massHeal(cs, rot); return; }
         if (rot.level >= 6 && choice == cursor)   { battleCry(cs, rot); return; }
     }
 
     static void massHeal(CampaignState cs, Warrior rot) {
-        if (rot.potions < 2) { System.out.println("Не хватает зелий (нужно 2)."); return; }
-        System.out.println("🌟 Массовое лечение!");
+        if (rot.potions < 2) { out().println("Не хватает зелий (нужно 2)."); return; }
+        out().println("🌟 Массовое лечение!");
         int healed = 0;
         for (Warrior w : cs.roster) {
             if (w != null && w.hp > 0 && w.hp < w.maxHp) {
                 int before = w.hp;
                 w.hp = Math.min(w.maxHp, w.hp + 6);
-                if (w.hp > before) { healed++; System.out.println("  " + w.label() + " +" + (w.hp - before) + " hp"); }
+                if (w.hp > before) { healed++; out().println("  " + w.label() + " +" + (w.hp - before) + " hp"); }
             }
         }
         rot.potions -= 2;
-        System.out.println("Исцелено: " + healed + ". Зелий у ротмистра осталось: " + rot.potions);
+        out().println("Исцелено: " + healed + ". Зелий у ротмистра осталось: " + rot.potions);
     }
 
     static void battleCry(CampaignState cs, Warrior rot) {
-        System.out.println("🗣️ Боевой клич! Отряд вдохновлён.");
+        out().println("🗣️ Боевой клич! Отряд вдохновлён.");
         for (Warrior w : cs.roster) if (w != null && w.hp > 0) w.battleCryBonus = true;
     }
 
     // ===================== ЛАГЕРЬ / РЫНОК / СНАРЯЖЕНИЕ =====================
     static void campMenu(Scanner in, CampaignState cs) {
         while (true) {
-            System.out.println("\n— ЛАГЕРЬ —");
-            System.out.println(" 1) Рынок");
-            System.out.println(" 2) Снаряжение");
-            System.out.println(" 3) Найм бойцов");
-            System.out.println(" 4) Резерв (просмотр/обмен/уволить)");
-            System.out.println(" 5) Повышения (распределить уровни)");
-            System.out.println(" 6) Просмотр отряда");
-            System.out.println(" 0) Назад");
-            int pick = readInt(in, "Ваш выбор: ", 0, 6);
+            out().println("\n— ЛАГЕРЬ —");
+            out().println(" 1) Рынок");
+            out().println(" 2) Снаряжение");
+            out().println(" 3) Найм бойцов");
+            out().println(" 4) Резерв (просмотр/обмен/уволить)");
+            out().println(" 5) Повышения (распределить уровни)");
+            out().println(" 6) Просмотр отряда");
+            out().println(" 7) Оценка отряда (симуляция боёв)");
+            out().println(" 0) Назад");
+            int pick = readInt(in, "Ваш выбор: ", 0, 7);
             if (pick == 0) return;
             if (pick == 1) marketMenu(in, cs);
             else if (pick == 2) equipmentMenu(in, cs);
@@ -595,13 +852,26 @@ public class Main {
             else if (pick == 5) handlePendingLevelUps(in, cs.roster);
             else if (pick == 6) {
                 printTeam("Ваш отряд", cs.roster, true);
-                System.out.println("Запасы: Potions=" + cs.stashPotions + ", Patches=" + cs.stashArmorPatches +
+                out().println("Запасы: Potions=" + cs.stashPotions + ", Patches=" + cs.stashArmorPatches +
                         ", LightArmor=" + cs.stashLightArmor + ", BasicWeapons=" + cs.stashBasicWeapons);
-                System.out.println("Кошель: Gulden=" + cs.gulden + ", Thaler=" + cs.thaler + ", Ducat=" + cs.ducat);
+                out().println("Кошель: Gulden=" + cs.gulden + ", Thaler=" + cs.thaler + ", Ducat=" + cs.ducat);
             }
+            else if (pick == 7) simulateRosterMenu(in, cs);
         }
     }
 
+    // Оценка отряда: прогон против случайного противника того же размера (ростер не меняется)
+    static void simulateRosterMenu(Scanner in, CampaignState cs) {
+        Warrior[] teamA = buildActiveTeam(cs.roster);
+        if (teamA.length == 0) { out().println("Некого оценивать: живых бойцов нет."); return; }
+        Warrior[] teamB = new Warrior[teamA.length];
+        for (int i = 0; i < teamB.length; i++) { teamB[i] = Warrior.randomWarrior(); teamB[i].teamTag = "[B]"; }
+        printTeam("Пробный противник", teamB);
+        int n = readInt(in, "Сколько боёв прогнать (100-100000): ", 100, 100000);
+        BattleSimulator.SimReport rep = BattleSimulator.simulate(teamA, teamB, n);
+        out().println(rep.format());
+    }
+
     // === Найт бойцов ===
     static class RecruitCandidate {
         Warrior warrior; int costG; int costT; int costD;
@@ -613,14 +883,18 @@ public class Main {
     }
 
     static List<RecruitCandidate> generateRecruitPool(int count, Warrior[] roster, Warrior[] reserve, int rotmeisterLevel) {
+        return generateRecruitPool(count, roster, reserve, rotmeisterLevel, rng());
+    }
+
+    static List<RecruitCandidate> generateRecruitPool(int count, Warrior[] roster, Warrior[] reserve, int rotmeisterLevel, Rng rng) {
         if (count < 5) count = 5; if (count > 5) count = 5;
-        Set<String> usedNames = new HashSet<>();
-        if (roster != null) for (Warrior w : roster) if (w != null) usedNames.add(w.name);
-        if (reserve != null) for (Warrior w : reserve) if (w != null) usedNames.add(w.name);
+        FlightEvents.RecruitPool ev = new FlightEvents.RecruitPool();
+        ev.begin();
+        NameDeck names = NameDeck.excluding(roster, reserve);
 
-        List<RecruitCandidate> pool = new ArrayList<>();
-        while (pool.size() < count) {
-            Warrior w = Warrior.randomWarriorWithNameExclusions(usedNames);
+        List<RecruitCandidate> pool = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Warrior w = Warrior.randomWarrior(names, rng); // имя уникально: колода без имён ростера и резерва
             // Кэп по уровню
             while (w.level > rotmeisterLevel) { w.level--; }
             // Стоимость от силы бойца + уровень
@@ -628,10 +902,14 @@ public class Main {
             int g = 12 + Math.max(0, score / 5);
             int t = (w.armor >= 2 ? 1 : 0);
             int d = (w.weapon != Weapon.NONE ? 1 : 0);
-            if (!usedNames.contains(w.name)) {
-                usedNames.add(w.name);
-                pool.add(new RecruitCandidate(w, g, t, d));
-            }
+            pool.add(new RecruitCandidate(w, g, t, d));
+        }
+        if (ev.shouldCommit()) {
+            ev.count = count;
+            ev.roster = FlightEvents.size(roster);
+            ev.reserve = FlightEvents.size(reserve);
+            ev.rotmeisterLevel = rotmeisterLevel;
+            ev.commit();
         }
         return pool;
     }
@@ -645,89 +923,109 @@ public class Main {
     static void handlePendingLevelUps(Scanner in, Warrior[] roster) {
         boolean any = false;
         for (Warrior w : roster) if (w != null && w.pendingLevelUps > 0) { any = true; break; }
-        if (!any) { System.out.println("Нет ожидающих повышений."); return; }
+        if (!any) { out().println("Нет ожидающих повышений."); return; }
         for (Warrior w : roster) {
             if (w == null || w.pendingLevelUps <= 0) continue;
-            System.out.println("\nПовышение для " + w.label() + " (уровень " + w.level + ") — осталось выборов: " + w.pendingLevelUps);
-            System.out.println(" 1) +5 HP\n 2) +2 ATK\n 3) +1 ARMOR\n 4) +1 PIERCE\n 5) Перка: +5% BLOCK\n 6) Перка: +5% CRIT\n 7) Перка: +5% DODGE");
+            out().println("\nПовышение для " + w.label() + " (уровень " + w.level + ") — осталось выборов: " + w.pendingLevelUps);
+            out().println(" 1) +5 HP\n 2) +2 ATK\n 3) +1 ARMOR\n 4) +1 PIERCE\n 5) Перка: +5% BLOCK\n 6) Перка: +5% CRIT\n 7) Перка: +5% DODGE");
             int pick = readInt(in, "Ваш выбор (1-7): ", 1, 7);
-            switch (pick) {
-                case 1: w.maxHp += 5; w.hp = Math.min(w.maxHp, w.hp + 5); break;
-                case 2: w.attack += 2; break;
-                case 3: w.armor += 1; break;
-                case 4: w.pierce += 1; break;
-                case 5: w.blockChance = Role.clamp01(w.blockChance + 0.05); break;
-                case 6: w.critChance  = Role.clamp01(w.critChance  + 0.05); break;
-                case 7: w.dodgeChance = Role.clamp01(w.dodgeChance + 0.05); break;
-            }
-            w.pendingLevelUps--;
-            System.out.println("Выбор применён. Осталось: " + w.pendingLevelUps);
-            if (w.pendingLevelUps > 0) { System.out.println("Ещё одно повышение этому бойцу."); }
+            applyLevelUp(w, pick);
+            out().println("Выбор применён. Осталось: " + w.pendingLevelUps);
+            if (w.pendingLevelUps > 0) { out().println("Ещё одно повышение этому бойцу."); }
         }
     }
 
+    // Одно повышение: 1) +5 HP 2) +2 ATK 3) +1 ARMOR 4) +1 PIERCE 5) +5% BLOCK 6) +5% CRIT 7) +5% DODGE
+    static void applyLevelUp(Warrior w, int pick) {
+        switch (pick) {
+            case 1: w.maxHp += 5; w.hp = Math.min(w.maxHp, w.hp + 5); break;
+            case 2: w.attack += 2; break;
+            case 3: w.armor += 1; break;
+            case 4: w.pierce += 1; break;
+            case 5: w.blockChance = Role.clamp01(w.blockChance + 0.05); break;
+            case 6: w.critChance  = Role.clamp01(w.critChance  + 0.05); break;
+            case 7: w.dodgeChance = Role.clamp01(w.dodgeChance + 0.05); break;
+        }
+        w.pendingLevelUps--;
+    }
+
+    static Warrior rotmeisterOf(Warrior[] roster) {
+        for (Warrior w : roster) if (w != null && w.isRotmeister) return w;
+        return null;
+    }
+
+    // Сколько ещё можно нанять: уровень Ротмейстера / 3 минус живые наёмники в отряде и резерве
+    static int hiresLeft(CampaignState cs) {
+        Warrior rot = rotmeisterOf(cs.roster);
+        int allowed = (rot == null) ? 0 : (rot.level / 3);
+        return Math.max(0, allowed - countAliveRecruits(cs.roster) - countAliveRecruits(cs.reserve));
+    }
+
+    // Пул найма на текущий день (один на день)
+    static List<RecruitCandidate> recruitPoolOf(CampaignState cs) {
+        if (cs.recruitPool == null || cs.recruitPoolDay != cs.day) {
+            Warrior rot = rotmeisterOf(cs.roster);
+            cs.recruitPool = generateRecruitPool(5, cs.roster, cs.reserve, rot != null ? rot.level : 1);
+            cs.recruitPoolDay = cs.day;
+        }
+        return cs.recruitPool;
+    }
+
+    // Оплатить кандидата и поставить в слот dest[slot] (отряд или резерв); цена и лимит проверены вызывающим
+    static void hireInto(CampaignState cs, RecruitCandidate rc, Warrior[] dest, int slot) {
+        cs.gulden -= rc.costG; cs.thaler -= rc.costT; cs.ducat -= rc.costD;
+        rc.warrior.teamTag = "[A]";
+        rc.warrior.isRecruited = true;
+        dest[slot] = rc.warrior;
+        cs.recruitPool.remove(rc);
+    }
+
+    static boolean canAfford(CampaignState cs, RecruitCandidate rc) {
+        return cs.gulden >= rc.costG && cs.thaler >= rc.costT && cs.ducat >= rc.costD;
+    }
+
     static void hireMenu(Scanner in, CampaignState cs) {
         while (true) {
-            Warrior rot = null; for (Warrior w : cs.roster) if (w != null && w.isRotmeister) { rot = w; break; }
-            int allowed = (rot == null) ? 0 : (rot.level / 3);
-            int aliveHires = countAliveRecruits(cs.roster) + countAliveRecruits(cs.reserve);
-            int hiresLeft = Math.max(0, allowed - aliveHires);
-
-            if (cs.recruitPool == null || cs.recruitPoolDay != cs.day) {
-                cs.recruitPool = generateRecruitPool(5, cs.roster, cs.reserve, rot!=null?rot.level:1);
-                cs.recruitPoolDay = cs.day;
-            }
-            List<RecruitCandidate> pool = cs.recruitPool;
-            System.out.println("\n— НАЙМ —");
-            System.out.println("Кошель: Gulden=" + cs.gulden + ", Thaler=" + cs.thaler + ", Ducat=" + cs.ducat);
-            System.out.println("Доступно наймов по уровню Ротмейстера: " + hiresLeft);
-            for (int i = 0; i < pool.size(); i++) System.out.println(" " + (i+1) + ") " + pool.get(i).label());
-            System.out.println(" 0) Назад");
-            System.out.print("Ваш выбор: ");
+            int hiresLeft = hiresLeft(cs);
+            List<RecruitCandidate> pool = recruitPoolOf(cs);
+            out().println("\n— НАЙМ —");
+            out().println("Кошель: Gulden=" + cs.gulden + ", Thaler=" + cs.thaler + ", Ducat=" + cs.ducat);
+            out().println("Доступно наймов по уровню Ротмейстера: " + hiresLeft);
+            for (int i = 0; i < pool.size(); i++) out().println(" " + (i+1) + ") " + pool.get(i).label());
+            out().println(" 0) Назад");
+            out().print("Ваш выбор: ");
             String ans = in.nextLine().trim().toLowerCase();
             if (ans.equals("0")) return;
             int idx;
-            try { idx = Integer.parseInt(ans); } catch (NumberFormatException e) { System.out.println("Неверный ввод."); continue; }
-            if (idx < 1 || idx > pool.size()) { System.out.println("Нет такого кандидата."); continue; }
-            if (hiresLeft <= 0) { System.out.println("Лимит наймов исчерпан. Повышайте уровень Ротмейстера или увольняйте бойцов."); continue; }
+            try { idx = Integer.parseInt(ans); } catch (NumberFormatException e) { out().println("Неверный ввод."); continue; }
+            if (idx < 1 || idx > pool.size()) { out().println("Нет такого кандидата."); continue; }
+            if (hiresLeft <= 0) { out().println("Лимит наймов исчерпан. Повышайте уровень Ротмейстера или увольняйте бойцов."); continue; }
             RecruitCandidate rc = pool.get(idx - 1);
-            if (cs.gulden < rc.costG || cs.thaler < rc.costT || cs.ducat < rc.costD) { System.out.println("Недостаточно средств."); continue; }
+            if (!canAfford(cs, rc)) { out().println("Недостаточно средств."); continue; }
             int slot = findEmptyRosterIndex(cs.roster);
             if (slot == -1) {
-                System.out.println("Ростер заполнен. 1) Заменить бойца  2) В резерв  0) Отмена");
+                out().println("Ростер заполнен. 1) Заменить бойца  2) В резерв  0) Отмена");
                 int act = readInt(in, "Ваш выбор: ", 0, 2);
                 if (act == 0) continue;
                 if (act == 1) {
                     printTeam("Кого заменить в ростере?", cs.roster, true);
                     int ridx = readInt(in, "Номер слота (1-" + cs.roster.length + "): ", 1, cs.roster.length) - 1;
-                    cs.gulden -= rc.costG; cs.thaler -= rc.costT; cs.ducat -= rc.costD;
-                    rc.warrior.teamTag = "[A]";
-                    rc.warrior.isRecruited = true;
-                    cs.roster[ridx] = rc.warrior;
-                    pool.remove(idx - 1);
-                    System.out.println("Нанят и заменил слот " + (ridx+1) + ". Остаток: G=" + cs.gulden + ", T=" + cs.thaler + ", D=" + cs.ducat);
+                    hireInto(cs, rc, cs.roster, ridx);
+                    out().println("Нанят и заменил слот " + (ridx+1) + ". Остаток: G=" + cs.gulden + ", T=" + cs.thaler + ", D=" + cs.ducat);
                     continue;
                 } else {
                     int rslot = findEmptyRosterIndex(cs.reserve);
                     if (rslot == -1) {
-                        System.out.println("Резерв заполнен. Уволььте кого-нибудь в меню Резерв.");
+                        out().println("Резерв заполнен. Уволььте кого-нибудь в меню Резерв.");
                         continue;
                     }
-                    cs.gulden -= rc.costG; cs.thaler -= rc.costT; cs.ducat -= rc.costD;
-                    rc.warrior.teamTag = "[A]";
-                    rc.warrior.isRecruited = true;
-                    cs.reserve[rslot] = rc.warrior;
-                    pool.remove(idx - 1);
-                    System.out.println("Нанят в резерв (слот " + (rslot+1) + "). Остаток: G=" + cs.gulden + ", T=" + cs.thaler + ", D=" + cs.ducat);
+                    hireInto(cs, rc, cs.reserve, rslot);
+                    out().println("Нанят в резерв (слот " + (rslot+1) + "). Остаток: G=" + cs.gulden + ", T=" + cs.thaler + ", D=" + cs.ducat);
                     continue;
                 }
             }
-            cs.gulden -= rc.costG; cs.thaler -= rc.costT; cs.ducat -= rc.costD;
-            rc.warrior.teamTag = "[A]";
-            rc.warrior.isRecruited = true;
-            cs.roster[slot] = rc.warrior;
-            pool.remove(idx - 1);
-            System.out.println("Нанят: " + rc.warrior.label() + " в слот " + (slot+1) + ". Осталось: G=" + cs.gulden + ", T=" + cs.thaler + ", D=" + cs.ducat);
+            hireInto(cs, rc, cs.roster, slot);
+            out().println("Нанят: " + rc.warrior.label() + " в слот " + (slot+1) + ". Осталось: G=" + cs.gulden + ", T=" + cs.thaler + ", D=" + cs.ducat);
         }
     }
 
@@ -739,28 +1037,28 @@ public class Main {
 
     static void reserveMenu(Scanner in, CampaignState cs) {
         while (true) {
-            System.out.println("\n— РЕЗЕРВ —");
+            out().println("\n— РЕЗЕРВ —");
             printTeam("Активный отряд", cs.roster, true);
             printTeam("Резерв", cs.reserve, true);
-            System.out.println(" 1) Переместить из резерва в отряд");
-            System.out.println(" 2) Переместить из отряда в резерв");
-            System.out.println(" 3) Уволить из резерва");
-            System.out.println(" 0) Назад");
+            out().println(" 1) Переместить из резерва в отряд");
+            out().println(" 2) Переместить из отряда в резерв");
+            out().println(" 3) Уволить из резерва");
+            out().println(" 0) Назад");
             int pick = readInt(in, "Ваш выбор: ", 0, 3);
             if (pick == 0) return;
             if (pick == 1) {
                 int rIdx = selectAliveWarrior(in, cs.reserve, "Кого перевести из резерва?"); if (rIdx == -1) continue;
                 int slot = findEmptyRosterIndex(cs.roster);
-                if (slot == -1) { System.out.println("В отряде нет свободного слота."); continue; }
-                cs.roster[slot] = cs.reserve[rIdx]; cs.reserve[rIdx] = null; System.out.println("Переведён в слот отряда " + (slot+1));
+                if (slot == -1) { out().println("В отряде нет свободного слота."); continue; }
+                cs.roster[slot] = cs.reserve[rIdx]; cs.reserve[rIdx] = null; out().println("Переведён в слот отряда " + (slot+1));
             } else if (pick == 2) {
                 int aIdx = selectAliveWarrior(in, cs.roster, "Кого перевести в резерв?"); if (aIdx == -1) continue;
                 int slot = findEmptyRosterIndex(cs.reserve);
-                if (slot == -1) { System.out.println("Резерв заполнен (5 слотов). Увольте кого-нибудь."); continue; }
-                cs.reserve[slot] = cs.roster[aIdx]; cs.roster[aIdx] = null; System.out.println("Переведён в резерв слот " + (slot+1));
+                if (slot == -1) { out().println("Резерв заполнен (5 слотов). Увольте кого-нибудь."); continue; }
+                cs.reserve[slot] = cs.roster[aIdx]; cs.roster[aIdx] = null; out().println("Переведён в резерв слот " + (slot+1));
             } else if (pick == 3) {
                 int rIdx = selectAliveWarrior(in, cs.reserve, "Кого уволить из резерва?"); if (rIdx == -1) continue;
-                System.out.println("Уволен: " + cs.reserve[rIdx].label());
+                out().println("Уволен: " + cs.reserve[rIdx].label());
                 cs.reserve[rIdx] = null;
             }
         }
@@ -768,107 +1066,113 @@ public class Main {
 
     static void marketMenu(Scanner in, CampaignState cs) {
         while (true) {
-            System.out.println("\n— РЫНОК —");
-            System.out.println("Кошель: Gulden=" + cs.gulden + ", Thaler=" + cs.thaler + ", Ducat=" + cs.ducat);
-            System.out.println("Покупка:");
-            System.out.println(" 1) Зелье (+1 к запасу) — 15 GULDEN");
-            System.out.println(" 2) Латка брони (+1 на следующий бой) — 5 GULDEN");
-            System.out.println(" 3) Дешёвая броня (+1 постоянной брони) — 1 THALER");
-            System.out.println(" 4) Базовое оружие (PIKE/AXE/SWORD_BUCKLER) — 1 DUCAT");
-            System.out.println("Продажа:");
-            System.out.println(" 5) Продать зелье (–1 из запаса) +8 GULDEN");
-            System.out.println(" 6) Продать латку (–1 из запаса) +3 GULDEN");
-            System.out.println(" 0) Назад");
+            out().println("\n— РЫНОК —");
+            out().println("Кошель: Gulden=" + cs.gulden + ", Thaler=" + cs.thaler + ", Ducat=" + cs.ducat);
+            out().println("Покупка:");
+            out().println(" 1) Зелье (+1 к запасу) — 15 GULDEN");
+            out().println(" 2) Латка брони (+1 на следующий бой) — 5 GULDEN");
+            out().println(" 3) Дешёвая броня (+1 постоянной брони) — 1 THALER");
+            out().println(" 4) Базовое оружие (PIKE/AXE/SWORD_BUCKLER) — 1 DUCAT");
+            out().println("Продажа:");
+            out().println(" 5) Продать зелье (–1 из запаса) +8 GULDEN");
+            out().println(" 6) Продать латку (–1 из запаса) +3 GULDEN");
+            out().println(" 0) Назад");
             int pick = readInt(in, "Ваш выбор: ", 0, 6);
             if (pick == 0) return;
 
-            switch (pick) {
-                case 1:
-                    if (cs.gulden >= 15) { cs.gulden -= 15; cs.stashPotions++; System.out.println("Куплено зелье. В запасе: " + cs.stashPotions); }
-                    else System.out.println("Недостаточно Gulden.");
-                    break;
-                case 2:
-                    if (cs.gulden >= 5) { cs.gulden -= 5; cs.stashArmorPatches++; System.out.println("Куплена латка. В запасе: " + cs.stashArmorPatches); }
-                    else System.out.println("Недостаточно Gulden.");
-                    break;
-                case 3:
-                    if (cs.thaler >= 1) { cs.thaler -= 1; cs.stashLightArmor++; System.out.println("Куплена дешевая броня. В запасе: " + cs.stashLightArmor); }
-                    else System.out.println("Недостаточно Thaler.");
-                    break;
-                case 4:
-                    if (cs.ducat >= 1) { cs.ducat -= 1; cs.stashBasicWeapons++; System.out.println("Куплено базовое оружие. В запасе: " + cs.stashBasicWeapons); }
-                    else System.out.println("Недостаточно Ducat.");
-                    break;
-                case 5:
-                    if (cs.stashPotions > 0) { cs.stashPotions--; cs.gulden += 8; System.out.println("Продано зелье. Gulden: " + cs.gulden); }
-                    else System.out.println("Нет зелий в запасе.");
-                    break;
-                case 6:
-                    if (cs.stashArmorPatches > 0) { cs.stashArmorPatches--; cs.gulden += 3; System.out.println("Продана латка. Gulden: " + cs.gulden); }
-                    else System.out.println("Нет латок в запасе.");
-                    break;
-            }
+            out().println(marketTrade(cs, pick));
+        }
+    }
+
+    // Одна сделка на рынке (номер пункта меню 1..6); возвращает сообщение для игрока
+    static String marketTrade(CampaignState cs, int pick) {
+        switch (pick) {
+            case 1:
+                if (cs.gulden >= 15) { cs.gulden -= 15; cs.stashPotions++; return "Куплено зелье. В запасе: " + cs.stashPotions; }
+                return "Недостаточно Gulden.";
+            case 2:
+                if (cs.gulden >= 5) { cs.gulden -= 5; cs.stashArmorPatches++; return "Куплена латка. В запасе: " + cs.stashArmorPatches; }
+                return "Недостаточно Gulden.";
+            case 3:
+                if (cs.thaler >= 1) { cs.thaler -= 1; cs.stashLightArmor++; return "Куплена дешевая броня. В запасе: " + cs.stashLightArmor; }
+                return "Недостаточно Thaler.";
+            case 4:
+                if (cs.ducat >= 1) { cs.ducat -= 1; cs.stashBasicWeapons++; return "Куплено базовое оружие. В запасе: " + cs.stashBasicWeapons; }
+                return "Недостаточно Ducat.";
+            case 5:
+                if (cs.stashPotions > 0) { cs.stashPotions--; cs.gulden += 8; return "Продано зелье. Gulden: " + cs.gulden; }
+                return "Нет зелий в запасе.";
+            case 6:
+                if (cs.stashArmorPatches > 0) { cs.stashArmorPatches--; cs.gulden += 3; return "Продана латка. Gulden: " + cs.gulden; }
+                return "Нет латок в запасе.";
+            default:
+                return "Нет такого пункта.";
         }
     }
 
     static void equipmentMenu(Scanner in, CampaignState cs) {
         while (true) {
-            System.out.println("\n— СНАРЯЖЕНИЕ —");
-            System.out.println("Запасы: Potions=" + cs.stashPotions + ", Patches=" + cs.stashArmorPatches +
+            out().println("\n— СНАРЯЖЕНИЕ —");
+            out().println("Запасы: Potions=" + cs.stashPotions + ", Patches=" + cs.stashArmorPatches +
                     ", LightArmor=" + cs.stashLightArmor + ", BasicWeapons=" + cs.stashBasicWeapons);
-            System.out.println(" 1) Выдать зелье бойцу (+1 к личным)");
-            System.out.println(" 2) Наложить латку (+1 броня на следующий бой)");
-            System.out.println(" 3) Выдать дешевую броню (+1 к броне навсегда)");
-            System.out.println(" 4) Выдать базовое оружие (PIKE/AXE/SWORD_BUCKLER)");
-            System.out.println(" 0) Назад");
+            out().println(" 1) Выдать зелье бойцу (+1 к личным)");
+            out().println(" 2) Наложить латку (+1 броня на следующий бой)");
+            out().println(" 3) Выдать дешевую броню (+1 к броне навсегда)");
+            out().println(" 4) Выдать базовое оружие (PIKE/AXE/SWORD_BUCKLER)");
+            out().println(" 0) Назад");
             int pick = readInt(in, "Ваш выбор: ", 0, 4);
             if (pick == 0) return;
 
             int idx = selectAliveWarrior(in, cs.roster, "Кому выдать?");
             if (idx == -1) continue;
             Warrior target = cs.roster[idx];
-            if (target == null) { System.out.println("Пустой слот."); continue; }
-
-            switch (pick) {
-                case 1:
-                    if (cs.stashPotions > 0) { cs.stashPotions--; target.potions++; System.out.println("Выдано зелье " + target.label()); }
-                    else System.out.println("Нет зелий в запасе.");
-                    break;
-                case 2:
-                    if (cs.stashArmorPatches > 0) { cs.stashArmorPatches--; target.tempArmorBonus += 1; System.out.println("Наложена латка: +" + 1 + " к броне на следующий бой."); }
-                    else System.out.println("Нет латок.");
-                    break;
-                case 3:
-                    if (cs.stashLightArmor > 0) { cs.stashLightArmor--; target.armor += 1; System.out.println("Выдана дешёвая броня: +" + 1 + " к броне навсегда."); }
-                    else System.out.println("Нет дешёвой брони.");
-                    break;
-                case 4:
-                    if (cs.stashBasicWeapons <= 0) { System.out.println("Нет базового оружия."); break; }
-                    System.out.println("Выберите оружие: 1) PIKE  2) AXE  3) SWORD_BUCKLER  (внимание: бонусы оружия применяются один раз)");
-                    int wPick = readInt(in, "Ваш выбор (1-3): ", 1, 3);
-                    Weapon newW = (wPick==1)?Weapon.PIKE : (wPick==2)?Weapon.AXE : Weapon.SWORD_BUCKLER;
-                    if (target.weapon == Weapon.NONE || target.weapon == Weapon.PIKE || target.weapon == Weapon.AXE || target.weapon == Weapon.SWORD_BUCKLER) {
-                        target.weapon = newW;
-                        newW.applyTo(target);
-                        cs.stashBasicWeapons--;
-                        System.out.println("Выдано оружие " + newW + " бойцу " + target.label());
-                    } else {
-                        System.out.println("Нельзя заменить текущее продвинутое оружие без пересборки статов.");
-                    }
-                    break;
+            if (target == null) { out().println("Пустой слот."); continue; }
+
+            Weapon newW = Weapon.NONE;
+            if (pick == 4 && cs.stashBasicWeapons > 0) {
+                out().println("Выберите оружие: 1) PIKE  2) AXE  3) SWORD_BUCKLER  (внимание: бонусы оружия применяются один раз)");
+                int wPick = readInt(in, "Ваш выбор (1-3): ", 1, 3);
+                newW = (wPick==1)?Weapon.PIKE : (wPick==2)?Weapon.AXE : Weapon.SWORD_BUCKLER;
             }
+            out().println(equipFromStash(cs, target, pick, newW));
+        }
+    }
+
+    // Выдать бойцу предмет из запаса (номер пункта меню 1..4, для 4 — какое базовое оружие); возвращает сообщение
+    static String equipFromStash(CampaignState cs, Warrior target, int pick, Weapon newW) {
+        switch (pick) {
+            case 1:
+                if (cs.stashPotions > 0) { cs.stashPotions--; target.potions++; return "Выдано зелье " + target.label(); }
+                return "Нет зелий в запасе.";
+            case 2:
+                if (cs.stashArmorPatches > 0) { cs.stashArmorPatches--; target.tempArmorBonus += 1; return "Наложена латка: +" + 1 + " к броне на следующий бой."; }
+                return "Нет латок.";
+            case 3:
+                if (cs.stashLightArmor > 0) { cs.stashLightArmor--; target.armor += 1; return "Выдана дешёвая броня: +" + 1 + " к броне навсегда."; }
+                return "Нет дешёвой брони.";
+            case 4:
+                if (cs.stashBasicWeapons <= 0) return "Нет базового оружия.";
+                if (target.weapon == Weapon.NONE || target.weapon == Weapon.PIKE || target.weapon == Weapon.AXE || target.weapon == Weapon.SWORD_BUCKLER) {
+                    target.weapon = newW;
+                    newW.applyTo(target);
+                    cs.stashBasicWeapons--;
+                    return "Выдано оружие " + newW + " бойцу " + target.label();
+                }
+                return "Нельзя заменить текущее продвинутое оружие без пересборки статов.";
+            default:
+                return "Нет такого пункта.";
         }
     }
 
     static void doExpedition(Scanner in, CampaignState cs) {
         // (не используется в версии с картой, оставлено на будущее)
-        double roll = Math.random();
+        double roll = rng().nextDouble();
         if (roll < 0.5) {
-            int found = 10 + (int)(Math.random() * 11); // 10..20
+            int found = 10 + rng().nextInt(11); // 10..20
             cs.gulden += found;
-            System.out.println("Найдены припасы и контракты: +" + found + " gulden. Теперь: " + cs.gulden);
+            out().println("Найдены припасы и контракты: +" + found + " gulden. Теперь: " + cs.gulden);
         } else {
-            System.out.println("Дороги пустынны. Без происшествий.");
+            out().println("Дороги пустынны. Без происшествий.");
         }
         cs.day += 1;
     }
@@ -889,30 +1193,26 @@ public class Main {
     }
 
     static void doNextBattle(Scanner in, CampaignState cs) {
-        System.out.println("\n— СЛЕДУЮЩИЙ БОЙ —");
+        out().println("\n— СЛЕДУЮЩИЙ БОЙ —");
 
         Warrior[] teamA = buildActiveTeam(cs.roster);
         if (teamA.length == 0) {
-            System.out.println("Все бойцы выбиты. Нечем сражаться.");
+            out().println("Все бойцы выбиты. Нечем сражаться.");
             return;
         }
 
-        Warrior[] teamB = new Warrior[teamA.length];
-        for (int i = 0; i < teamB.length; i++) {
-            teamB[i] = Warrior.randomWarrior();
-            teamB[i].teamTag = "[B]";
-        }
+        Warrior[] teamB = enemyTeamFor(teamA.length);
 
         printTeam("Команда A (ваш отряд)", teamA);
         printTeam("Команда B (противник)", teamB);
 
         // Определим уровень Ротмистра
-        Warrior rot = null; for (Warrior w : cs.roster) if (w != null && w.isRotmeister) { rot = w; break; }
+        Warrior rot = rotmeisterOf(cs.roster);
         int rotLevel = (rot == null) ? 1 : rot.level;
 
         // L4+: Скаутинг (подсказка архетипа врага)
         if (rotLevel >= 4) {
-            System.out.print("Активировать Скаутинг перед выбором стратегии? (y/n, default n): ");
+            out().print("Активировать Скаутинг перед выбором стратегии? (y/n, default n): ");
             String sAns = in.nextLine().trim().toLowerCase();
             if (sAns.equals("y")) {
                 scoutingHint(teamB);
@@ -920,57 +1220,78 @@ public class Main {
         }
 
         // L6+: Выбор стратегии на бой
-        CURRENT_STRATEGY = StrategyPlan.STANDARD; CURRENT_STRATEGY_TIER = 0;
+        MctsAutopilot autopilot = session().autopilotMs > 0 ? new MctsAutopilot(session().autopilotMs) : null;
+        DecisionProvider decisions = autopilot != null ? autopilot : DecisionProvider.console(in);
+        BattleEngine engine = new BattleEngine(teamA, teamB, decisions, rng(), 1);
+        session().strategy = StrategyPlan.STANDARD; session().tier = 0;
         if (rotLevel >= 6) {
-            int tier = (rotLevel >= 10) ? 3 : (rotLevel >= 8) ? 2 : 1;
-            System.out.println("\nВыбор стратегии на бой (уровень Ротмистра: " + rotLevel + "):");
-            System.out.println(" 1) Стандарт (без изменений)");
-            System.out.println(" 2) Осторожная (версия " + tier + ")");
-            System.out.println(" 3) Агрессивная (версия " + tier + ")");
-            int stratPick = readInt(in, "Ваш выбор (1-3): ", 1, 3);
-            if (stratPick == 2) { CURRENT_STRATEGY = StrategyPlan.CAUTIOUS; CURRENT_STRATEGY_TIER = tier; }
-            else if (stratPick == 3) { CURRENT_STRATEGY = StrategyPlan.AGGRESSIVE; CURRENT_STRATEGY_TIER = tier; }
-            else { CURRENT_STRATEGY = StrategyPlan.STANDARD; CURRENT_STRATEGY_TIER = 0; }
-            System.out.println("Стратегия установлена: " + CURRENT_STRATEGY + (CURRENT_STRATEGY==StrategyPlan.STANDARD?"":" (Tier " + CURRENT_STRATEGY_TIER + ")"));
-        }
-
-        int round = 1;
-        while (teamAlive(teamA) && teamAlive(teamB)) {
-            RoundOrder ro = promptRoundOrder(in, teamB);
-
-            if (cs.focusTarget) {
-                Integer idx = firstAliveIndex1Based(teamB);
-                if (idx != null) { ro.focusEnemyIndexB = idx; System.out.println("🎯 Ротмейстер приказал фокусироваться на враге!"); }
-            }
+            out().println("\nУровень Ротмистра: " + rotLevel);
+            engine.chooseStrategy(strategyTier(rotLevel));
+            out().println("Стратегия установлена: " + session().strategy + (session().strategy==StrategyPlan.STANDARD?"":" (Tier " + session().tier + ")"));
+        }
+
+        long t0 = System.nanoTime();
+        FlightEvents.Battle ev = FlightEvents.Battle.start("campaign", teamA, teamB);
+        CombatLog.Writer rec = CombatLog.startFile(session().lastBattlePath(), teamA, teamB);
+        try {
+            while (!engine.finished()) {
+                RoundOrder ro = engine.askRoundOrder();
+
+                if (cs.focusTarget) {
+                    Integer idx = engine.firstAliveIndexB();
+                    if (idx != null) { ro.focusEnemyIndexB = idx; out().println("🎯 Ротмейстер приказал фокусироваться на враге!"); }
+                }
 
-            if (ro.focusEnemyIndexB != null) System.out.println("🎯 Приказ: фокус на B[" + ro.focusEnemyIndexB + "]");
+                if (ro.focusEnemyIndexB != null) out().println("🎯 Приказ: фокус на B[" + ro.focusEnemyIndexB + "]");
 
-            playTeamRoundRandom(in, round, teamA, teamB, ro);
-            if (SHOW_ROUND_SUMMARY) {
-                printTeam("Сводка: Команда A", teamA);
-                printTeam("Сводка: Команда B", teamB);
-                log(BRIEF, teamMiniSummary(teamA, teamB));
+                engine.playRound(ro);
+                if (SHOW_ROUND_SUMMARY) showRoundSummary(engine);
             }
-            round++;
+        } finally {
+            CombatLog.stop(rec, teamAlive(teamA) ? (teamAlive(teamB) ? 2 : 0) : 1);
         }
 
-        boolean win = teamAlive(teamA);
-        System.out.println(win ? "🏆 Победа!" : "☠️ Поражение...");
+        Metrics.battle(engine.round(), System.nanoTime() - t0, teamAlive(teamA));
+        ev.finish(engine.round(), teamA, teamB);
+        if (autopilot != null) out().println(autopilot.summary());
+        settleBattle(cs, teamA, teamAlive(teamA));
+
+        if (session().autosave) autosaveCampaign(cs); // снимок в очередь — запись идёт в фоне
+    }
+
+    // Противник кампании: случайные бойцы по числу живых в отряде
+    static Warrior[] enemyTeamFor(int size) {
+        Warrior[] teamB = new Warrior[size];
+        for (int i = 0; i < size; i++) {
+            teamB[i] = Warrior.randomWarrior();
+            teamB[i].teamTag = "[B]";
+        }
+        return teamB;
+    }
+
+    // Версия стратегий по уровню Ротмистра (0 — выбора стратегии ещё нет)
+    static int strategyTier(int rotLevel) {
+        return rotLevel >= 10 ? 3 : rotLevel >= 8 ? 2 : rotLevel >= 6 ? 1 : 0;
+    }
+
+    // Итог боя кампании: награда/потери, опыт и трофеи, следующий день, сброс временных эффектов и стратегии
+    static void settleBattle(CampaignState cs, Warrior[] teamA, boolean win) {
+        out().println(win ? "🏆 Победа!" : "☠️ Поражение...");
 
         if (win) {
-            int reward = 20 + (int)(Math.random() * 16); // 20..35
+            int reward = 20 + rng().nextInt(16); // 20..35
             cs.gulden += reward;
-            System.out.println("Награда: +" + reward + " gulden. Всего: " + cs.gulden);
+            out().println("Награда: +" + reward + " gulden. Всего: " + cs.gulden);
 
             // опыт победителям
             for (Warrior w : teamA) if (w != null && w.hp > 0) w.onBattleVictory();
 
             // кошелёк и дроп
-            applyVictoryLoot(cs, teamA.length);
+            applyVictoryLoot(cs, teamA.length, rng());
         } else {
-            int loss = 10 + (int)(Math.random() * 11); // 10..20
+            int loss = 10 + rng().nextInt(11); // 10..20
             cs.gulden = Math.max(0, cs.gulden - loss);
-            System.out.println("Потери: -" + loss + " gulden. Осталось: " + cs.gulden);
+            out().println("Потери: -" + loss + " gulden. Осталось: " + cs.gulden);
         }
 
         syncBackToRoster();
@@ -979,75 +1300,195 @@ public class Main {
         // Сброс временных эффектов для отряда
         for (Warrior w : cs.roster) if (w != null) { w.tempArmorBonus = 0; w.battleCryBonus = false; w.battleAttackCount = 0; }
         // Сброс стратегии
-        CURRENT_STRATEGY = StrategyPlan.STANDARD; CURRENT_STRATEGY_TIER = 0;
+        session().strategy = StrategyPlan.STANDARD; session().tier = 0;
     }
 
     static void scoutingHint(Warrior[] enemyTeam) {
         int totalArmor = 0, totalPierce = 0; double avgCrit = 0.0; int count = 0;
         for (Warrior w : enemyTeam) if (w != null) { totalArmor += (w.armor + w.tempArmorBonus); totalPierce += w.pierce; avgCrit += w.critChance; count++; }
-        if (count == 0) { System.out.println("Скаутинг: противник не обнаружен."); return; }
+        if (count == 0) { out().println("Скаутинг: противник не обнаружен."); return; }
         double aArmor = (double) totalArmor / count;
         double aPierce = (double) totalPierce / count;
         avgCrit /= count;
-        System.out.println("Скаутинг: средняя броня=" + String.format(Locale.ROOT, "%.2f", aArmor) + ", средний pierce=" + String.format(Locale.ROOT, "%.2f", aPierce) + ", средний crit=" + String.format(Locale.ROOT, "%.0f%%", avgCrit*100));
-        if (avgCrit >= 0.18) System.out.println("Подсказка: враг критоугрожающий — Осторожная стратегия поможет.");
-        else if (aArmor >= 2.0) System.out.println("Подсказка: у врага много брони — Агрессивная стратегия поможет давить через pierce.");
-        else System.out.println("Подсказка: состав смешанный — Стандарт или на ваше усмотрение.");
+        out().println("Скаутинг: средняя броня=" + String.format(Locale.ROOT, "%.2f", aArmor) + ", средний pierce=" + String.format(Locale.ROOT, "%.2f", aPierce) + ", средний crit=" + String.format(Locale.ROOT, "%.0f%%", avgCrit*100));
+        if (avgCrit >= 0.18) out().println("Подсказка: враг критоугрожающий — Осторожная стратегия поможет.");
+        else if (aArmor >= 2.0) out().println("Подсказка: у врага много брони — Агрессивная стратегия поможет давить через pierce.");
+        else out().println("Подсказка: состав смешанный — Стандарт или на ваше усмотрение.");
     }
 
-    static void applyVictoryLoot(CampaignState cs, int teamSize) {
-        int pouch = (5 + (int)(Math.random()*11)) * teamSize; // 5..15 * size
+    static void applyVictoryLoot(CampaignState cs, int teamSize, Rng rng) {
+        int pouch = (5 + rng.nextInt(11)) * teamSize; // 5..15 * size
         cs.gulden += pouch;
-        System.out.println("🎒 Трофеи: +" + pouch + " gulden в мешочке.");
+        out().println("🎒 Трофеи: +" + pouch + " gulden в мешочке.");
 
-        int r = (int)(Math.random()*100);
+        int r = rng.nextInt(100);
         if (r < 40) {
-            cs.stashPotions += 1; System.out.println("🎁 Дроп: зелье (+1 в запас). Всего: " + cs.stashPotions);
+            cs.stashPotions += 1; out().println("🎁 Дроп: зелье (+1 в запас). Всего: " + cs.stashPotions);
         } else if (r < 60) {
-            cs.stashArmorPatches += 1; System.out.println("🎁 Дроп: латка брони (+1). Всего: " + cs.stashArmorPatches);
+            cs.stashArmorPatches += 1; out().println("🎁 Дроп: латка брони (+1). Всего: " + cs.stashArmorPatches);
         } else if (r < 75) {
-            cs.stashLightArmor += 1; System.out.println("🎁 Дроп: дешёвая броня (+1). Всего: " + cs.stashLightArmor);
+            cs.stashLightArmor += 1; out().println("🎁 Дроп: дешёвая броня (+1). Всего: " + cs.stashLightArmor);
         } else if (r < 85) {
-            cs.stashBasicWeapons += 1; System.out.println("🎁 Дроп: базовое оружие (+1). Всего: " + cs.stashBasicWeapons);
+            cs.stashBasicWeapons += 1; out().println("🎁 Дроп: базовое оружие (+1). Всего: " + cs.stashBasicWeapons);
         } else {
-            System.out.println("🎁 Дроп: ничего ценного.");
+            out().println("🎁 Дроп: ничего ценного.");
+        }
+    }
+
+    // ===================== СИМУЛЯЦИЯ =====================
+    static void runSimulationMenu(Scanner in) {
+        out().println("\n[Симуляция] Бойцы генерируются случайно, бои идут без ввода на всех ядрах.");
+        int sizeA = readInt(in, "Размер команды A (1-5): ", 1, 5);
+        int sizeB = readInt(in, "Размер команды B (1-5): ", 1, 5);
+        Warrior[] teamA = new Warrior[sizeA];
+        Warrior[] teamB = new Warrior[sizeB];
+        for (int i = 0; i < sizeA; i++) { teamA[i] = Warrior.randomWarrior(); teamA[i].teamTag = "[A]"; }
+        for (int i = 0; i < sizeB; i++) { teamB[i] = Warrior.randomWarrior(); teamB[i].teamTag = "[B]"; }
+        printTeam("Команда A", teamA);
+        printTeam("Команда B", teamB);
+
+        int n = readInt(in, "Сколько боёв прогнать (100-1000000): ", 100, 1_000_000);
+        long t0 = System.nanoTime();
+        BattleSimulator.SimReport rep = BattleSimulator.simulate(teamA, teamB, n);
+        long ms = (System.nanoTime() - t0) / 1_000_000;
+        out().println(rep.format());
+        out().println("Время: " + ms + " мс");
+    }
+
+    static void runLeagueMenu(Scanner in) {
+        List<ArchetypeLeague.Archetype> all = ArchetypeLeague.all();
+        out().println("\n[Лига] " + all.size() + " архетипов (тип × роль × оружие), каждая пара играет между собой, бои без ввода на всех ядрах.");
+        int size = readInt(in, "Размер отряда (1-5): ", 1, 5);
+        int m = readInt(in, "Боёв на пару архетипов (2-1000): ", 2, 1000);
+        long total = (long) all.size() * (all.size() - 1) / 2 * m;
+        out().println("Всего боёв: " + total);
+        ArchetypeLeague.Result res = ArchetypeLeague.run(size, m);
+        out().println(res.format(10));
+        try {
+            res.writeCsv(java.nio.file.Path.of(ArchetypeLeague.CSV_PATH));
+            out().println("📄 Матрица процентов побед: " + ArchetypeLeague.CSV_PATH);
+        } catch (Exception e) {
+            out().println("⚠️ Не удалось записать матрицу: " + e.getMessage());
+        }
+    }
+
+    static void runCampaignSimMenu(Scanner in) {
+        out().println("\n[Экономика] Полные кампании без ввода: решения лагеря и событий — политика, бои — ИИ, на всех ядрах.");
+        List<CampaignSimulator.Policy> policies = CampaignSimulator.POLICIES;
+        for (int i = 0; i < policies.size(); i++) out().println(" " + (i + 1) + ") " + policies.get(i).name());
+        CampaignSimulator.Policy policy = policies.get(readInt(in, "Политика: ", 1, policies.size()) - 1);
+        int n = readInt(in, "Сколько кампаний (10-1000000): ", 10, 1_000_000);
+        int days = readInt(in, "Дней в кампании (5-365): ", 5, 365);
+        CampaignSimulator.Stats st = CampaignSimulator.run(n, days, policy, s -> out().println(s.progress()));
+        out().println(st.format(Math.max(1, days / 15)));
+        try {
+            st.writeCsv(java.nio.file.Path.of(CampaignSimulator.CSV_PATH));
+            out().println("📄 Кривые по дням: " + CampaignSimulator.CSV_PATH);
+        } catch (Exception e) {
+            out().println("⚠️ Не удалось записать кривые: " + e.getMessage());
+        }
+    }
+
+    // Массовый бой: ИИ за обе стороны, лог раундов выключен — после раунда только сводка (агрегаты AliveSet)
+    static void runMassBattleMenu(Scanner in) {
+        out().println("\n[Массовый бой] Случайные бойцы, ИИ за обе стороны; после каждого раунда — сводка.");
+        int sizeA = readInt(in, "Бойцов в команде A (10-100000): ", 10, 100_000);
+        int sizeB = readInt(in, "Бойцов в команде B (10-100000): ", 10, 100_000);
+        NameDeck names = new NameDeck();   // одна колода на обе стороны — имена не повторяются
+        Warrior[] teamA = massTeam(sizeA, "[A]", names), teamB = massTeam(sizeB, "[B]", names);
+
+        BattleEngine engine = BattleEngine.headless(teamA, teamB, null, rng()).turnOrder(askTurnOrder(in));
+        out().println(engine.summary());
+        long t0 = System.nanoTime();
+        FlightEvents.Battle ev = FlightEvents.Battle.start("mass", teamA, teamB);
+        while (!engine.finished()) {
+            engine.playRound(new RoundOrder());
+            out().println("Раунд " + engine.round() + ": " + engine.summary());
+        }
+        long nanos = System.nanoTime() - t0;
+        Metrics.battle(engine.round(), nanos, engine.outcome() == BattleEngine.Outcome.A_WON);
+        ev.finish(engine.round(), teamA, teamB);
+
+        BattleEngine.Outcome o = engine.outcome();
+        out().println(o == BattleEngine.Outcome.A_WON ? "🏆 Победила команда A!" : o == BattleEngine.Outcome.B_WON ? "🏆 Победила команда B!" : "🤝 Ничья.");
+        out().println(String.format("[Массовый бой] %d раундов за %.2f с.", engine.round(), nanos / 1e9));
+    }
+
+    static Warrior[] massTeam(int size, String tag, NameDeck names) {
+        Warrior[] team = new Warrior[size];
+        for (int i = 0; i < size; i++) {
+            team[i] = Warrior.randomWarrior(names, rng());
+            team[i].teamTag = tag;
         }
+        return team;
     }
 
     // ===================== КОМАНДНАЯ БИТВА =====================
     static void playBattleLoop(Scanner in, Warrior[] teamA, Warrior[] teamB, int startRound) {
-        int round = startRound;
-        while (teamAlive(teamA) && teamAlive(teamB)) {
-            RoundOrder ro = promptRoundOrder(in, teamB);
+        long t0 = System.nanoTime();
+        int rounds;
+        FlightEvents.Battle ev = FlightEvents.Battle.start("team", teamA, teamB);
+        CombatLog.Writer rec = CombatLog.startFile(session().lastBattlePath(), teamA, teamB);
+        try {
+            rounds = playBattleRounds(in, teamA, teamB, startRound);
+        } finally {
+            CombatLog.stop(rec, teamAlive(teamA) ? (teamAlive(teamB) ? 2 : 0) : 1);
+        }
+        Metrics.battle(rounds, System.nanoTime() - t0, teamAlive(teamA) && !teamAlive(teamB));
+        ev.finish(rounds, teamA, teamB);
+
+        session().closeScreen();
+        out().println();
+        out().println(teamAlive(teamA) ? "🏆 Победила команда A!" : "🏆 Победила команда B!");
+        out().println("[Командная битва] Завершена.");
+    }
+
+    // Возвращает число сыгранных раундов
+    static int playBattleRounds(Scanner in, Warrior[] teamA, Warrior[] teamB, int startRound) {
+        BattleEngine engine = new BattleEngine(teamA, teamB, DecisionProvider.console(in), rng(), startRound);
+        while (!engine.finished()) {
+            RoundOrder ro = engine.askRoundOrder();
             if (ro.focusEnemyIndexB != null)
-                System.out.println("🎯 Приказ: фокус на B[" + ro.focusEnemyIndexB + "]");
+                out().println("🎯 Приказ: фокус на B[" + ro.focusEnemyIndexB + "]");
 
-            playTeamRoundRandom(in, round, teamA, teamB, ro);
+            engine.playRound(ro);
 
-            if (SHOW_ROUND_SUMMARY) {
-                printTeam("Сводка: Команда A", teamA);
-                printTeam("Сводка: Команда B", teamB);
-                log(BRIEF, teamMiniSummary(teamA, teamB));
-            }
+            if (SHOW_ROUND_SUMMARY) showRoundSummary(engine);
 
-            System.out.print("[S] сохранить в СЛОТ, [Enter] продолжить: ");
+            out().print("[S] сохранить в СЛОТ, [Enter] продолжить: ");
             String hot = in.nextLine().trim().toLowerCase();
             if (hot.equals("s")) {
-                System.out.print("Имя сохранения (Enter — по умолчанию): ");
+                out().print("Имя сохранения (Enter — по умолчанию): ");
                 String nm = in.nextLine().trim();
-                saveGameToNewSlot(nm, teamA, teamB, round + 1);
+                saveGameToNewSlot(nm, teamA, teamB, engine.round() + 1, askSaveFormat(in));
             }
-
-            round++;
         }
+        return engine.round() - startRound + 1;
+    }
 
-        System.out.println();
-        System.out.println(teamAlive(teamA) ? "🏆 Победила команда A!" : "🏆 Победила команда B!");
-        System.out.println("[Командная битва] Завершена.");
+    static void replayLastBattle() {
+        if (!java.nio.file.Files.exists(java.nio.file.Path.of(session().lastBattlePath()))) {
+            out().println("Журнала боя ещё нет — сначала проведите бой.");
+            return;
+        }
+        CombatLog.replay(session().lastBattlePath(), out());
+        try {
+            long[] n = CombatLog.summarize(session().lastBattlePath());
+            out().println("📊 События: удары " + n[CombatLog.Ev.DAMAGE.ordinal()] +
+                    ", промахи " + n[CombatLog.Ev.MISS.ordinal()] +
+                    ", блоки " + n[CombatLog.Ev.BLOCK.ordinal()] +
+                    ", уклонения " + n[CombatLog.Ev.DODGE.ordinal()] +
+                    ", криты " + n[CombatLog.Ev.CRIT.ordinal()] +
+                    ", оглушения " + n[CombatLog.Ev.STUN.ordinal()] +
+                    ", убийства " + n[CombatLog.Ev.KILL.ordinal()] +
+                    ", зелья " + n[CombatLog.Ev.POTION.ordinal()]);
+        } catch (java.io.IOException e) {
+            out().println("⚠️ Не удалось посчитать события: " + e.getMessage());
+        }
     }
 
     static void runTeamBattle(Scanner in) {
-        System.out.println("\n[Командная битва] Старт.");
+        out().println("\n[Командная битва] Старт.");
 
         int sizeA = readInt(in, "Размер команды A (1-5): ", 1, 5);
         int sizeB = readInt(in, "Размер команды B (1-5): ", 1, 5);
@@ -1056,13 +1497,13 @@ public class Main {
         Warrior[] teamB = new Warrior[sizeB];
 
         for (int i = 0; i < sizeA; i++) {
-            System.out.println("A[" + (i + 1) + "] — выберите бойца: 1) Landsknecht  2) Swiss  3) Случайный  4) Список");
+            out().println("A[" + (i + 1) + "] — выберите бойца: 1) Landsknecht  2) Swiss  3) Случайный  4) Список");
             int choice = readInt(in, "Ваш выбор (1-4): ", 1, 4);
             teamA[i] = createWarrior(choice, in);
             teamA[i].teamTag = "[A]";
         }
         for (int i = 0; i < sizeB; i++) {
-            System.out.println("B[" + (i + 1) + "] — выберите бойца: 1) Landsknecht  2) Swiss  3) Случайный  4) Список");
+            out().println("B[" + (i + 1) + "] — выберите бойца: 1) Landsknecht  2) Swiss  3) Случайный  4) Список");
             int choice = readInt(in, "Ваш выбор (1-4): ", 1, 4);
             teamB[i] = createWarrior(choice, in);
             teamB[i].teamTag = "[B]";
@@ -1071,14 +1512,15 @@ public class Main {
         printTeam("Команда A", teamA);
         printTeam("Команда B", teamB);
 
-        System.out.print("Сохранить старт боя в СЛОТ? (y/n, default n): ");
+        out().print("Сохранить старт боя в СЛОТ? (y/n, default n): ");
         String ansSave = in.nextLine().trim().toLowerCase();
         if (ansSave.equals("y")) {
-            System.out.print("Имя сохранения (например, \"Старт боя\"): ");
+            out().print("Имя сохранения (например, \"Старт боя\"): ");
             String nm = in.nextLine().trim();
-            saveGameToNewSlot(nm, teamA, teamB, 1);
+            saveGameToNewSlot(nm, teamA, teamB, 1, askSaveFormat(in));
         }
 
+        session().turnOrder = askTurnOrder(in);
         playBattleLoop(in, teamA, teamB, 1);
     }
 
@@ -1097,23 +1539,10 @@ public class Main {
     }
 
     // ===================== ИГРОВАЯ ЛОГИКА БОЯ =====================
-    static void playTeamRoundRandom(Scanner in, int roundNumber, Warrior[] teamA, Warrior[] teamB, RoundOrder ro) {
-        log(BRIEF, c(CYAN, "\n🎲 — Раунд " + roundNumber + " — (случайный порядок)"));
-        List<Actor> order = buildRandomOrder(teamA, teamB);
-        for (Actor act : order) {
-            if (!teamAlive(teamA) || !teamAlive(teamB)) break;
-            Warrior[] allies  = (act.me.teamTag != null && act.me.teamTag.contains("[A]")) ? teamA : teamB;
-            Warrior[] enemies = (allies == teamA) ? teamB : teamA;
-            fighterSingleAttack(in, act.me, allies, enemies, ro);
-        }
-    }
-
-    static List<Actor> buildRandomOrder(Warrior[] teamA, Warrior[] teamB) {
-        List<Actor> order = new ArrayList<>();
-        for (Warrior w : teamA) if (w != null && w.hp > 0) order.add(new Actor(w, teamB));
-        for (Warrior w : teamB) if (w != null && w.hp > 0) order.add(new Actor(w, teamA));
-        Collections.shuffle(order);
-        return order;
+    // Порядок ходов в бою: перемешивание (как раньше) или инициатива (вес оружия, усталость, стойка)
+    static TurnOrder askTurnOrder(Scanner in) {
+        int t = readInt(in, "Порядок ходов: 1) случайный  2) по инициативе (вес оружия, усталость, стойка): ", 1, 2);
+        return t == 2 ? TurnOrder.INITIATIVE : TurnOrder.SHUFFLE;
     }
 
     static int     AGG_DMG_BONUS(Role r)   { return 1 + (r==Role.DUELIST ? 1 : 0); }
@@ -1123,118 +1552,15 @@ public class Main {
     static double  DEF_BLOCK_DELTA(Role r) { return 0.05 + (r==Role.SUPPORT ? 0.02 : 0.0); }
     static double  DEF_DODGE_DELTA(Role r) { return 0.05 + (r==Role.SKIRMISHER ? 0.02 : 0.0); }
 
-    static RoundOrder promptRoundOrder(Scanner in, Warrior[] teamB) {
-        RoundOrder ro = new RoundOrder();
-        System.out.println("\nПриказ раунда:");
-        System.out.println(" 1) Без приказа");
-        System.out.println(" 2) Сфокусировать атаку на враге (выбрать из Команды B)");
-        int pick = readInt(in, "Ваш выбор (1-2): ", 1, 2);
-        if (pick == 2) {
-            printTeam("Команда B (для фокуса)", teamB);
-            int idx = readInt(in, "Кого фокусим? №: ", 1, teamB.length);
-            if (teamB[idx-1] != null && teamB[idx-1].hp > 0) ro.focusEnemyIndexB = idx;
-            else System.out.println("Цель недоступна — приказ игнорируется.");
-        }
-        return ro;
-    }
-
-    static void fighterSingleAttack(Scanner in, Warrior attacker, Warrior[] allyTeam, Warrior[] enemyTeam, RoundOrder ro) {
-        if (attacker.hp <= 0) return;
-        if (!attacker.tryStartTurn()) return;
-
-        boolean isPlayerSide = (attacker.teamTag != null && attacker.teamTag.contains("[A]"));
-
-        if (isPlayerSide) {
-            PlayerAction act = promptPlayerAction(in, attacker);
-            switch (act) {
-                case POTION_SELF: {
-                    if (attacker.potions > 0 && attacker.hp < attacker.maxHp) attacker.usePotion();
-                    else System.out.println("Нет зелий или hp полное — действие пропущено.");
-                    return;
-                }
-                case POTION_ALLY: {
-                    if (attacker.potions <= 0) { System.out.println("Нет зелий."); return; }
-                    int idx = selectAliveAllyIndex(in, allyTeam);
-                    if (idx >= 0) attacker.usePotionOn(allyTeam[idx]);
-                    return;
-                }
-                case STANCE_AGGR: {
-                    attacker.nextTurnStance = StanceType.AGGRESSIVE;
-                    System.out.println("⚔ Стойка: атакующая — эффект на следующий ход " + attacker.label());
-                    return;
-                }
-                case STANCE_DEF: {
-                    attacker.defenseStance = StanceType.DEFENSIVE;
-                    System.out.println("🛡 Стойка: защитная — действует до следующего хода " + attacker.label());
-                    return;
-                }
-                case ATTACK:
-                default:
-                    break;
-            }
-        } else {
-            if (attacker.hp <= LOW_HP_THRESHOLD && attacker.potions > 0) {
-                if (Math.random() < TEAM_HEAL_CHANCE) { attacker.usePotion(); return; }
-            }
-        }
-
-        Warrior target = null;
-        if (isPlayerSide && ro != null && ro.focusEnemyIndexB != null) {
-            int idx = ro.focusEnemyIndexB - 1;
-            if (idx >= 0 && idx < enemyTeam.length) {
-                Warrior cand = enemyTeam[idx];
-                if (cand != null && cand.hp > 0) target = cand;
-            }
-        }
-        if (target == null) target = randomAlive(enemyTeam);
-
-        if (target != null) attacker.attack(target);
-    }
-
-    static PlayerAction promptPlayerAction(Scanner in, Warrior attacker) {
-        System.out.println("\nХод " + attacker.label() + ". Выберите действие:");
-        System.out.println(" 1) Атаковать");
-        System.out.println(" 2) Выпить зелье (сам)");
-        System.out.println(" 3) Дать зелье союзнику");
-        System.out.println(" 4) Встать в атакующую стойку (эффект на СЛЕД. ход)");
-        System.out.println(" 5) Встать в защитную стойку (эффект до след. хода)");
-        int pick = readInt(in, "Ваш выбор (1-5): ", 1, 5);
-        return switch (pick) {
-            case 1 -> PlayerAction.ATTACK;
-            case 2 -> PlayerAction.POTION_SELF;
-            case 3 -> PlayerAction.POTION_ALLY;
-            case 4 -> PlayerAction.STANCE_AGGR;
-            case 5 -> PlayerAction.STANCE_DEF;
-            default -> PlayerAction.ATTACK;
-        };
-    }
-
-    private static int selectAliveAllyIndex(Scanner in, Warrior[] allyTeam) {
-        List<Integer> aliveIdx = new ArrayList<>();
-        System.out.println("Выберите союзника для зелья:");
-        for (int i = 0; i < allyTeam.length; i++) {
-            Warrior w = allyTeam[i];
-            if (w != null && w.hp > 0) {
-                aliveIdx.add(i);
-                System.out.println(" " + aliveIdx.size() + ") " + w.label() + " (hp=" + w.hp + ")");
-            }
-        }
-        if (aliveIdx.isEmpty()) { System.out.println("Живых союзников нет."); return -1; }
-        int pick = readInt(in, "Номер: ", 1, aliveIdx.size());
-        return aliveIdx.get(pick - 1);
-    }
-
     // ===================== JSON (старые быстрые сейвы) =====================
 
     static SaveGame loadGameJson(String path) {
         try {
-            String json = java.nio.file.Files.readString(java.nio.file.Path.of(path));
-            com.google.gson.Gson gson = new com.google.gson.Gson();
-            SaveGame sg = gson.fromJson(json, SaveGame.class);
-            System.out.println("✅ Загрузка выполнена: " + path);
+            SaveGame sg = readSaveFile(java.nio.file.Path.of(path));
+            out().println("✅ Загрузка выполнена: " + path);
             return sg;
         } catch (Exception e) {
-            System.out.println("❌ Ошибка загрузки: " + e.getMessage());
+            out().println("❌ Ошибка загрузки: " + e.getMessage());
             return null;
         }
     }
@@ -1244,46 +1570,9 @@ public class Main {
         try { java.nio.file.Files.createDirectories(java.nio.file.Path.of(SAVES_DIR)); } catch (Exception ignored) {}
     }
 
+    // Индекс слотов обслуживает SaveIndex (кэш в памяти); эти методы — тонкие обёртки
     static List<SaveMeta> readSaveIndex() {
-        ensureSavesDir();
-        java.nio.file.Path p = java.nio.file.Path.of(INDEX_PATH);
-        if (!java.nio.file.Files.exists(p)) return new ArrayList<>();
-        try {
-            String json = java.nio.file.Files.readString(p);
-            com.google.gson.Gson gson = new com.google.gson.Gson();
-            SaveMeta[] arr = gson.fromJson(json, SaveMeta[].class);
-            List<SaveMeta> list = new ArrayList<>();
-            if (arr != null) Collections.addAll(list, arr);
-            list.sort((a,b) -> Long.compare(b.savedAt, a.savedAt));
-            return list;
-        } catch (Exception e) {
-            System.out.println("⚠️ Не удалось прочитать index.json: " + e.getMessage());
-            return new ArrayList<>();
-        }
-    }
-
-    static void writeSaveIndex(List<SaveMeta> metas) {
-        ensureSavesDir();
-        try {
-            com.google.gson.Gson gson = new com.google.gson.GsonBuilder().setPrettyPrinting().create();
-            String json = gson.toJson(metas);
-            java.nio.file.Files.writeString(java.nio.file.Path.of(INDEX_PATH), json);
-        } catch (Exception e) {
-            System.out.println("⚠️ Не удалось записать index.json: " + e.getMessage());
-        }
-    }
-
-    static String nextSaveId(List<SaveMeta> metas) {
-        int max = 0;
-        for (SaveMeta m : metas) {
-            if (m.id != null && m.id.startsWith("save-")) {
-                try {
-                    int n = Integer.parseInt(m.id.substring(5));
-                    if (n > max) max = n;
-                } catch (NumberFormatException ignored) {}
-            }
-        }
-        return String.format("save-%03d", max + 1);
+        return SaveIndex.shared().list();
     }
 
     static String fmtTime(long millis) {
@@ -1294,38 +1583,91 @@ public class Main {
     }
 
     static void saveGameToNewSlot(String saveName, Warrior[] teamA, Warrior[] teamB, int round) {
+        saveGameToNewSlot(saveName, teamA, teamB, round, SaveMeta.JSON);
+    }
+
+    static void saveGameToNewSlot(String saveName, Warrior[] teamA, Warrior[] teamB, int round, String format) {
+        writeNewSlot(snapshotOf(teamA, teamB, round, null), saveName, format, "💾 Поставлено в очередь записи, слот: ", "❌ Ошибка сохранения слота: ");
+    }
+
+    // Общая запись слота: id из индекса сразу, сам файл и index.json — в фоне (SaveWriter).
+    // sg должен быть снимком (snapshotOf), а не живым состоянием боя/кампании. Сообщение okMsg — о постановке
+    // в очередь: до диска сейв ещё не дошёл, об ошибке записи SaveWriter сообщит отдельно (errMsg).
+    static void writeNewSlot(SaveGame sg, String saveName, String format, String okMsg, String errMsg) {
+        String id = SaveIndex.shared().nextId();
+        writeSlot(sg, id, saveName == null || saveName.isBlank() ? id : saveName.trim(), format, errMsg);
+        out().println(okMsg + id + " — \"" + sg.saveName + "\" (" + fmtTime(sg.savedAtEpochMillis) + ")");
+    }
+
+    static void writeSlot(SaveGame sg, String id, String saveName, String format, String errMsg) {
         ensureSavesDir();
-        List<SaveMeta> metas = readSaveIndex();
-        String id = nextSaveId(metas);
-        String path = SAVES_DIR + "/" + id + ".json";
-        long now = System.currentTimeMillis();
+        boolean bin = SaveMeta.BIN.equals(format);
+        String path = SAVES_DIR + "/" + id + (bin ? BinarySave.EXT : ".json");
+        sg.saveName = saveName;
+        sg.savedAtEpochMillis = System.currentTimeMillis();
+        SaveMeta meta = new SaveMeta(id, sg.saveName, sg.savedAtEpochMillis, path);
+        meta.format = bin ? SaveMeta.BIN : SaveMeta.JSON;
+        SaveWriter.shared().submit(sg, meta, bin, errMsg);
+    }
+
+    // Неизменяемый снимок для фоновой записи: копии бойцов и кампании
+    static SaveGame snapshotOf(Warrior[] teamA, Warrior[] teamB, int round, CampaignState cs) {
+        SaveGame sg = new SaveGame(copyTeam(teamA), copyTeam(teamB), round, session().logLevel, session().color);
+        sg.campaign = cs == null ? null : cs.copy();
+        return sg;
+    }
 
-        SaveGame sg = new SaveGame(teamA, teamB, round, LOG_LEVEL, COLOR);
-        sg.saveName = (saveName == null || saveName.isBlank()) ? id : saveName.trim();
-        sg.savedAtEpochMillis = now;
+    static Warrior[] copyTeam(Warrior[] team) {
+        if (team == null) return null;
+        Warrior[] out = new Warrior[team.length];
+        for (int i = 0; i < team.length; i++) out[i] = team[i] == null ? null : team[i].copy();
+        return out;
+    }
 
-        try {
-            com.google.gson.Gson gson = new com.google.gson.GsonBuilder().setPrettyPrinting().create();
-            java.nio.file.Files.writeString(java.nio.file.Path.of(path), gson.toJson(sg));
-            metas.add(new SaveMeta(id, sg.saveName, now, path));
-            metas.sort((a,b) -> Long.compare(b.savedAt, a.savedAt));
-            writeSaveIndex(metas);
-            System.out.println("✅ Сохранено в слот: " + id + " — \"" + sg.saveName + "\" (" + fmtTime(now) + ")");
-        } catch (Exception e) {
-            System.out.println("❌ Ошибка сохранения слота: " + e.getMessage());
+    // Дождаться фоновой записи (список/загрузка слотов должны видеть только что сохранённое)
+    static void flushSaves() {
+        SaveWriter.shared().awaitIdle();
+    }
+
+    // Автосейв кампании после боя: один слот "autosave", бинарный, перезаписывается
+    static void autosaveCampaign(CampaignState cs) {
+        SaveGame sg = snapshotOf(null, null, 0, cs);
+        writeSlot(sg, AUTOSAVE_ID, "Автосейв (день " + cs.day + ")", SaveMeta.BIN, "❌ Ошибка автосейва: ");
+    }
+
+    // Формат нового слота: JSON (читаемый) или бинарный (компактный, быстрее грузится)
+    static String askSaveFormat(Scanner in) {
+        int f = readInt(in, "Формат слота: 1) JSON  2) бинарный (сжатый): ", 1, 2);
+        return f == 2 ? SaveMeta.BIN : SaveMeta.JSON;
+    }
+
+    // Чтение файла сейва любого формата — по сигнатуре, а не по расширению
+    static SaveGame readSaveFile(java.nio.file.Path p) throws java.io.IOException {
+        FlightEvents.Load ev = new FlightEvents.Load();
+        ev.begin();
+        boolean bin = BinarySave.isBinary(p);
+        SaveGame sg = bin ? BinarySave.read(p) : SaveCodec.read(p, SaveGame.class);
+        if (ev.shouldCommit()) {
+            ev.path = p.toString();
+            ev.format = bin ? SaveMeta.BIN : SaveMeta.JSON;
+            ev.bytes = java.nio.file.Files.size(p);
+            ev.commit();
         }
+        return sg;
     }
 
     static List<SaveMeta> listSavesPrint() {
+        flushSaves();
         List<SaveMeta> metas = readSaveIndex();
         if (metas.isEmpty()) {
-            System.out.println("\nСохранения отсутствуют.");
+            out().println("\nСохранения отсутствуют.");
             return metas;
         }
-        System.out.println("\nСписок сохранений:");
+        out().println("\nСписок сохранений:");
         for (int i = 0; i < metas.size(); i++) {
             SaveMeta m = metas.get(i);
-            System.out.println(" " + (i+1) + ") [" + m.id + "] " + m.saveName + " · " + fmtTime(m.savedAt) + " · " + m.path);
+            out().println(" " + (i+1) + ") [" + m.id + "] " + m.saveName + " · " + fmtTime(m.savedAt) + " · " + m.path
+                    + (m.isBinary() ? " · bin" : ""));
         }
         return metas;
     }
@@ -1335,46 +1677,28 @@ public class Main {
     }
 
     static SaveGame loadSaveByNumber(int number, String slotType) {
-        List<SaveMeta> metas = readSaveIndex();
-        if (number < 1 || number > metas.size()) {
-            System.out.println("Неверный номер " + slotType + ".");
+        flushSaves();
+        SaveMeta m = SaveIndex.shared().byNumber(number);
+        if (m == null) {
+            out().println("Неверный номер " + slotType + ".");
             return null;
         }
-        SaveMeta m = metas.get(number - 1);
         try {
-            String json = java.nio.file.Files.readString(java.nio.file.Path.of(m.path));
-            com.google.gson.Gson gson = new com.google.gson.Gson();
-            SaveGame sg = gson.fromJson(json, SaveGame.class);
-            System.out.println("✅ Загружено: [" + m.id + "] \"" + sg.saveName + "\" (" + fmtTime(sg.savedAtEpochMillis) + ")");
+            SaveGame sg = readSaveFile(java.nio.file.Path.of(m.path));
+            out().println("✅ Загружено: [" + m.id + "] \"" + sg.saveName + "\" (" + fmtTime(sg.savedAtEpochMillis) + ")");
             return sg;
         } catch (Exception e) {
-            System.out.println("❌ Ошибка загрузки из " + slotType + ": " + e.getMessage());
+            out().println("❌ Ошибка загрузки из " + slotType + ": " + e.getMessage());
             return null;
         }
     }
 
     static void saveCampaignToNewSlot(String saveName, CampaignState cs) {
-        ensureSavesDir();
-        List<SaveMeta> metas = readSaveIndex();
-        String id = nextSaveId(metas);
-        String path = SAVES_DIR + "/" + id + ".json";
-        long now = System.currentTimeMillis();
-
-        SaveGame sg = new SaveGame(null, null, 0, LOG_LEVEL, COLOR);
-        sg.campaign = cs;
-        sg.saveName = (saveName == null || saveName.isBlank()) ? id : saveName.trim();
-        sg.savedAtEpochMillis = now;
+        saveCampaignToNewSlot(saveName, cs, SaveMeta.JSON);
+    }
 
-        try {
-            com.google.gson.Gson gson = new com.google.gson.GsonBuilder().setPrettyPrinting().create();
-            java.nio.file.Files.writeString(java.nio.file.Path.of(path), gson.toJson(sg));
-            metas.add(new SaveMeta(id, sg.saveName, now, path));
-            metas.sort((a,b) -> Long.compare(b.savedAt, a.savedAt));
-            writeSaveIndex(metas);
-            System.out.println("✅ Кампания сохранена в слот: " + id + " — \"" + sg.saveName + "\" (" + fmtTime(now) + ")");
-        } catch (Exception e) {
-            System.out.println("❌ Ошибка сохранения кампании: " + e.getMessage());
-        }
+    static void saveCampaignToNewSlot(String saveName, CampaignState cs, String format) {
+        writeNewSlot(snapshotOf(null, null, 0, cs), saveName, format, "💾 Кампания поставлена в очередь записи, слот: ", "❌ Ошибка сохранения кампании: ");
     }
 
     static CampaignState loadCampaignByNumber(int number) {
@@ -1382,32 +1706,32 @@ public class Main {
         if (sg == null) return null;
 
         if (sg.campaign == null) {
-            System.out.println("⚠️ В выбранном слоте нет кампании (это сейв боя).");
+            out().println("⚠️ В выбранном слоте нет кампании (это сейв боя).");
             return null;
         }
         for (Warrior w : sg.campaign.roster) if (w != null) { w.teamTag = "[A]"; w.nextTurnStance = StanceType.NONE; w.defenseStance = StanceType.NONE; }
-        System.out.println("✅ Кампания загружена: [" + sg.saveName + "]");
+        out().println("✅ Кампания загружена: [" + sg.saveName + "]");
         return sg.campaign;
     }
 
     // ===================== ВСПОМОГАТЕЛЬНОЕ =====================
     static void configureLogging(Scanner in) {
-        System.out.println("\nНастройка лога:");
-        System.out.println(" 0) Краткий (BRIEF)");
-        System.out.println(" 1) Обычный (NORMAL)");
-        System.out.println(" 2) Подробный (VERBOSE)");
-        LOG_LEVEL = readInt(in, "Уровень лога (0-2): ", 0, 2);
+        out().println("\nНастройка лога:");
+        out().println(" 0) Краткий (BRIEF)");
+        out().println(" 1) Обычный (NORMAL)");
+        out().println(" 2) Подробный (VERBOSE)");
+        session().logLevel = readInt(in, "Уровень лога (0-2): ", 0, 2);
 
         while (true) {
-            System.out.print("Цветной вывод? (y/n): ");
+            out().print("Цветной вывод? (y/n): ");
             String ans = in.nextLine().trim().toLowerCase();
-            if (ans.equals("y")) { COLOR = true;  break; }
-            if (ans.equals("n")) { COLOR = false; break; }
-            System.out.println("Введите 'y' или 'n'.");
+            if (ans.equals("y")) { session().color = true;  break; }
+            if (ans.equals("n")) { session().color = false; break; }
+            out().println("Введите 'y' или 'n'.");
         }
-        System.out.println("Лог: " +
-                (LOG_LEVEL==BRIEF?"BRIEF":LOG_LEVEL==NORMAL?"NORMAL":"VERBOSE") +
-                ", цвет " + (COLOR?"вкл":"выкл"));
+        out().println("Лог: " +
+                (session().logLevel==BRIEF?"BRIEF":session().logLevel==NORMAL?"NORMAL":"VERBOSE") +
+                ", цвет " + (session().color?"вкл":"выкл"));
     }
 
     static boolean teamAlive(Warrior[] team) {
@@ -1415,11 +1739,13 @@ public class Main {
         return false;
     }
 
-    static Warrior randomAlive(Warrior[] team) {
+    static Warrior randomAlive(Warrior[] team) { return randomAlive(team, rng()); }
+
+    static Warrior randomAlive(Warrior[] team, Rng rng) {
         int alive = 0;
         for (Warrior w : team) if (w != null && w.hp > 0) alive++;
         if (alive == 0) return null;
-        int k = (int)(Math.random() * alive);
+        int k = rng.nextInt(alive);
         for (Warrior w : team) {
             if (w != null && w.hp > 0) {
                 if (k == 0) return w;
@@ -1442,41 +1768,99 @@ public class Main {
     }
 
     static void printTeam(String title, Warrior[] team, boolean showEmptySlots) {
-        System.out.println("\n" + title + ":");
+        StringBuilder sb = new StringBuilder(512);
+        appendTeam(sb, title, team, showEmptySlots);
+        out().print(sb);
+        out().flush();
+    }
+
+    static void appendTeam(StringBuilder sb, String title, Warrior[] team, boolean showEmptySlots) {
+        sb.append(Screen.NL).append(title).append(':').append(Screen.NL);
         for (int i = 0; i < team.length; i++) {
             Warrior w = team[i];
             if (w == null) {
-                if (showEmptySlots) System.out.println((i + 1) + ") [пусто]");
+                if (showEmptySlots) sb.append(i + 1).append(") [пусто]").append(Screen.NL);
                 continue;
             }
-            String nm = String.format("%-14s", w.label());
-            System.out.println((i + 1) + ") " + nm
-                    + " (hp=" + w.hp + ", atk=" + w.attack
-                    + ", arm=" + w.armor + ", pierce=" + w.pierce
-                    + ", role=" + w.role + ", weap=" + w.weapon
-                    + ", lvl=" + w.level + ", xp=" + w.experience + ")");
+            sb.append(i + 1).append(") ");
+            pad(sb, w.label(), 14);
+            sb.append(" (hp=").append(w.hp).append(", atk=").append(w.attack)
+                    .append(", arm=").append(w.armor).append(", pierce=").append(w.pierce)
+                    .append(", role=").append(w.role).append(", weap=").append(w.weapon)
+                    .append(", lvl=").append(w.level).append(", xp=").append(w.experience).append(')').append(Screen.NL);
+        }
+    }
+
+    // Выравнивание влево без String.format (как %-Ns)
+    static void pad(StringBuilder sb, String s, int width) {
+        sb.append(s);
+        for (int k = s.length(); k < width; k++) sb.append(' ');
+    }
+
+    // Сводка после раунда: в ANSI-терминале — кадр закреплённой панели (перерисовываются только изменившиеся
+    // бойцы), иначе — обе команды по-старому, но одной записью. Итог — из счётчиков движка (engine.summary),
+    // а не повторным проходом по командам
+    static void showRoundSummary(BattleEngine engine) {
+        flushLog();
+        Warrior[] teamA = engine.teamA(), teamB = engine.teamB();
+        Screen screen = session().screen();
+        if (screen.pinned()) {
+            screen.show(Screen.BATTLE, battleFrame(teamA, teamB, engine.summary()));
+            return;
         }
-    }
-
-    static String teamMiniSummary(Warrior[] teamA, Warrior[] teamB) {
-        int aAlive = 0, bAlive = 0, aHp = 0, bHp = 0;
-        for (Warrior w : teamA) { if (w != null && w.hp > 0) aAlive++; if (w != null) aHp += w.hp; }
-        for (Warrior w : teamB) { if (w != null && w.hp > 0) bAlive++; if (w != null) bHp += w.hp; }
+        StringBuilder sb = new StringBuilder(1024);
+        appendTeam(sb, "Сводка: Команда A", teamA, false);
+        appendTeam(sb, "Сводка: Команда B", teamB, false);
+        if (logOn(BRIEF)) sb.append(engine.summary()).append(Screen.NL);
+        out().print(sb);
+        out().flush();
+    }
+
+    // Панель боя: заголовок команды, по строке на бойца (короткой — строка панели не должна переноситься), итог
+    static String[] battleFrame(Warrior[] teamA, Warrior[] teamB, String summary) {
+        List<String> rows = new ArrayList<>(teamA.length + teamB.length + 3);
+        rows.add(c(CYAN, "Команда A"));
+        for (int i = 0; i < teamA.length; i++) if (teamA[i] != null) rows.add(battleRow(i, teamA[i]));
+        rows.add(c(CYAN, "Команда B"));
+        for (int i = 0; i < teamB.length; i++) if (teamB[i] != null) rows.add(battleRow(i, teamB[i]));
+        rows.add(summary);
+        return rows.toArray(new String[0]);
+    }
+
+    static String battleRow(int i, Warrior w) {
+        StringBuilder sb = new StringBuilder(64);
+        sb.append(' ').append(i + 1).append(") ");
+        pad(sb, w.name, 22);
+        StringBuilder hp = new StringBuilder(8);
+        pad(hp, w.hp + "/" + w.maxHp, 7);
+        String hpCol = hp.toString();
+        sb.append(" hp ").append(w.hp <= 0 ? c(RED, hpCol) : w.hp <= LOW_HP_THRESHOLD ? c(YELLOW, hpCol) : hpCol);
+        sb.append(" 🧪").append(w.potions).append(" уст ").append(w.fatigue);
+        if (w.hp <= 0) return sb.append(" 💀").toString();
+        if (w.nextTurnStance == StanceType.AGGRESSIVE) sb.append(" ⚔");
+        if (w.defenseStance == StanceType.DEFENSIVE) sb.append(" 🛡");
+        if (w.stunned) sb.append(" 🔔");
+        return sb.toString();
+    }
+
+    // Строка сводки боя по готовым агрегатам (BattleEngine.summary — без прохода по командам)
+    static String teamMiniSummary(int aAlive, long aHp, int bAlive, long bHp) {
         return c(CYAN, "📊 Сводка: ") +
                 "A живых " + aAlive + " (HP=" + aHp + ") | " +
                 "B живых " + bAlive + " (HP=" + bHp + ")";
     }
 
     static int readInt(Scanner in, String prompt, int min, int max) {
+        flushLog();
         while (true) {
-            System.out.print(prompt);
+            out().print(prompt);
             String line = in.nextLine().trim();
             try {
                 int v = Integer.parseInt(line);
-                if (v < min || v > max) System.out.println("Введите число от " + min + " до " + max + ".");
+                if (v < min || v > max) out().println("Введите число от " + min + " до " + max + ".");
                 else return v;
             } catch (NumberFormatException e) {
-                System.out.println("Нужно число. Повторите ввод.");
+                out().println("Нужно число. Повторите ввод.");
             }
         }
     }
@@ -1485,11 +1869,11 @@ public class Main {
         return switch (choice) {
             case 1 -> {
                 // Именованный ландскнехт
-                yield Warrior.randomWarriorWithNameExclusions(new HashSet<>() {{ add("__force_type_0"); }});
+                yield Warrior.randomWarriorOfType(0, null, rng());
             }
             case 2 -> {
                 // Именованный швейцарец
-                yield Warrior.randomWarriorWithNameExclusions(new HashSet<>() {{ add("__force_type_1"); }});
+                yield Warrior.randomWarriorOfType(1, null, rng());
             }
             case 3 -> Warrior.randomWarrior();
             case 4 -> pickFromGeneratedListLoop(in);
@@ -1501,26 +1885,24 @@ public class Main {
         int count = readInt(in, "Размер списка (2-20, по умолчанию 5): ", 2, 20);
         while (true) {
             Warrior[] list = generateWarriorList(count);
-            System.out.println("\nСгенерированные бойцы:");
-            for (int i = 0; i < list.length; i++) System.out.println((i + 1) + ") " + list[i].name);
-            System.out.print("Выберите номер (1-" + list.length + "), или 'r' чтобы перегенерировать: ");
+            out().println("\nСгенерированные бойцы:");
+            for (int i = 0; i < list.length; i++) out().println((i + 1) + ") " + list[i].name);
+            out().print("Выберите номер (1-" + list.length + "), или 'r' чтобы перегенерировать: ");
             String ans = in.nextLine().trim().toLowerCase();
             if (ans.equals("r")) continue;
             try {
                 int idx = Integer.parseInt(ans);
                 if (idx >= 1 && idx <= list.length) return list[idx - 1];
             } catch (NumberFormatException ignored) {}
-            System.out.println("Неверный ввод. Попробуйте ещё раз.");
+            out().println("Неверный ввод. Попробуйте ещё раз.");
         }
     }
 
     static Warrior[] generateWarriorList(int count) {
         if (count < 2) count = 2;
         Warrior[] list = new Warrior[count];
-        Set<String> used = new HashSet<>();
-        list[0] = Warrior.randomWarriorWithNameExclusions(used); used.add(list[0].name);
-        list[1] = Warrior.randomWarriorWithNameExclusions(used); used.add(list[1].name);
-        for (int i = 2; i < count; i++) { list[i] = Warrior.randomWarriorWithNameExclusions(used); used.add(list[i].name); }
+        NameDeck names = new NameDeck();
+        for (int i = 0; i < count; i++) list[i] = Warrior.randomWarrior(names, rng());
 
         for (int i = 0; i < count; i++) {
             Warrior w = list[i];
@@ -1529,22 +1911,17 @@ public class Main {
         return list;
     }
 
-    static class Actor {
-        Warrior me; Warrior[] enemies;
-        Actor(Warrior me, Warrior[] enemies) { this.me = me; this.enemies = enemies; }
-    }
-
     static int selectAliveWarrior(Scanner in, Warrior[] team, String prompt) {
         List<Integer> aliveIdx = new ArrayList<>();
-        System.out.println(prompt);
+        out().println(prompt);
         for (int i = 0; i < team.length; i++) {
             Warrior w = team[i];
             if (w != null && w.hp > 0) {
                 aliveIdx.add(i);
-                System.out.println(" " + (aliveIdx.size()) + ") " + w.label() + " (hp=" + w.hp + ")");
+                out().println(" " + (aliveIdx.size()) + ") " + w.label() + " (hp=" + w.hp + ")");
             }
         }
-        if (aliveIdx.isEmpty()) { System.out.println("Живых союзников нет."); return -1; }
+        if (aliveIdx.isEmpty()) { out().println("Живых союзников нет."); return -1; }
         int pick = readInt(in, "Номер: ", 1, aliveIdx.size());
         return aliveIdx.get(pick - 1);
     }
@@ -1591,6 +1968,13 @@ class Warrior {
     // Счётчик ударов в текущем бою (для стратегии)
     int battleAttackCount = 0;
 
+    // Скомпилированные модификаторы боя (не сохраняются и не копируются, пересобираются по требованию)
+    transient CombatMods mods;
+
+    // Живые своей команды в текущем бою (BattleEngine): об изменении hp боец сообщает туда; не сохраняются и не копируются
+    transient AliveSet side;
+    transient int sideIndex;
+
     Warrior(String name, int hp, int attack) {
         this.name = name; this.hp = hp; this.maxHp = hp; this.attack = attack;
     }
@@ -1602,11 +1986,11 @@ class Warrior {
 
     void gainExperience(int amount) {
         experience += amount;
-        System.out.println(name + " получил " + amount + " опыта! (Всего: " + experience + "/" + (100 * level) + ")");
+        Main.out().println(name + " получил " + amount + " опыта! (Всего: " + experience + "/" + (100 * level) + ")");
         while (experience >= 100 * level) {
             experience -= 100 * level;
             level++;
-            System.out.println("🌟 " + name + " достиг " + level + " уровня!");
+            Main.out().println("🌟 " + name + " достиг " + level + " уровня!");
             applyLevelUpBonuses();
         }
     }
@@ -1617,8 +2001,8 @@ class Warrior {
         maxHp += 5;
         attack += 2;
         hp = Math.min(maxHp, hp + 5);
-        System.out.println("📈 Бонусы уровня: +5 HP (" + oldMaxHp + "→" + maxHp + "), +2 ATK (" + oldAtk + "→" + attack + ")");
-        if (isRotmeister) System.out.println("🎖️ Ротмейстер усилил управление отрядом.");
+        Main.out().println("📈 Бонусы уровня: +5 HP (" + oldMaxHp + "→" + maxHp + "), +2 ATK (" + oldAtk + "→" + attack + ")");
+        if (isRotmeister) Main.out().println("🎖️ Ротмейстер усилил управление отрядом.");
         pendingLevelUps++; // Добавляем выбор для игрока
     }
 
@@ -1629,11 +2013,12 @@ class Warrior {
             isRotmeister = true;
             role = Role.ROTMEISTER;
             role.applyTo(this);
-            System.out.println("🌟 " + name + " теперь Ротмейстер!");
+            Main.out().println("🌟 " + name + " теперь Ротмейстер!");
         }
     }
 
-    static Warrior randomWarrior() { return randomWarriorWithNameExclusions(null); }
+    static Warrior randomWarrior() { return randomWarrior(Main.rng()); }
+    static Warrior randomWarrior(Rng rng) { return randomWarrior(null, rng); }
 
     // ===== Пулы исторических/правдоподобных имён по типам =====
     static final String[] NAMES_LANDSKNECHT = new String[]{
@@ -1680,46 +2065,46 @@ class Warrior {
             "Tomás de Arriaga","Juan de Zaldívar","Pedro de Mondragón","García López de Cárденas","Alonso de Cárденас","Miguel de Legazpi","Juan de Oñate"
     };
 
-    static Warrior randomWarriorWithNameExclusions(java.util.Set<String> used) {
-        int t = (int)(Math.random()*6);
-        return randomWarriorOfTypeWithExclusions(t, used);
+    // Случайный тип; имя из колоды deck (уникально в её пределах) или, без колоды, любое имя типа
+    static Warrior randomWarrior(NameDeck deck, Rng rng) {
+        return randomWarriorOfType(rng.nextInt(TYPE_NAMES.length), deck, rng);
     }
 
-    static Warrior randomWarriorOfTypeWithExclusions(int t, java.util.Set<String> used) {
-        String name = null;
-        for (int tries = 0; tries < 60 && name == null; tries++) {
-            String[] pool = (t==0)?NAMES_LANDSKNECHT:(t==1)?NAMES_SWISS:(t==2)?NAMES_SPANIARD:(t==3)?NAMES_GALLOWGLASS:(t==4)?NAMES_REITER:NAMES_CONQUISTADOR;
-            String cand = pool[(int)(Math.random()*pool.length)];
-            if (used == null || !used.contains(cand)) name = cand; else t = (t+1)%6; // смена типа, если имя занято
-        }
-        if (name == null) return randomWarrior();
+    static Warrior randomWarriorOfType(int t, NameDeck deck, Rng rng) {
+        String name = deck != null ? deck.draw(t, rng) : NameDeck.fullName(t, rng.nextInt(NameDeck.POOLS[t].length));
+        Warrior w = ofType(t, name, rng);
+        w.role.applyTo(w); w.weapon.applyTo(w);
+        return w;
+    }
+
+    static final String[] TYPE_NAMES = {"Landsknecht", "Swiss", "Spaniard", "Gallowglass", "Reiter", "Conquistador"};
 
-        // Базовые статы по типу
+    // Базовые статы по типу (0..5) с типовыми ролью и оружием, ещё НЕ применёнными (applyTo делает вызывающий)
+    static Warrior ofType(int t, String name, Rng rng) {
         Warrior w;
         switch (t) {
             case 0: // Landsknecht
                 w = new Warrior(name, 30, 5); w.armor = 2; w.role = Role.TANK; w.weapon = Weapon.ZWEIHANDER; break;
             case 1: // Swiss
-                w = new Warrior(name, 25, 6); w.armor = 1; w.role = Role.TANK; w.weapon = (Math.random()<0.7)?Weapon.PIKE:Weapon.SWORD_BUCKLER; break;
+                w = new Warrior(name, 25, 6); w.armor = 1; w.role = Role.TANK; w.weapon = rng.chance(0.7)?Weapon.PIKE:Weapon.SWORD_BUCKLER; break;
             case 2: // Spaniard
-                w = new Warrior(name, 24 + (int)(Math.random()*8), 5 + (int)(Math.random()*2)); w.role = Role.DUELIST; w.weapon = Weapon.SWORD_BUCKLER; break;
+                w = new Warrior(name, 24 + rng.nextInt(8), 5 + rng.nextInt(2)); w.role = Role.DUELIST; w.weapon = Weapon.SWORD_BUCKLER; break;
             case 3: // Gallowglass
-                w = new Warrior(name, 28 + (int)(Math.random()*6), 5); w.armor = 1; w.role = Role.TANK; w.weapon = Weapon.AXE; break;
+                w = new Warrior(name, 28 + rng.nextInt(6), 5); w.armor = 1; w.role = Role.TANK; w.weapon = Weapon.AXE; break;
             case 4: // Reiter
-                w = new Warrior(name, 24 + (int)(Math.random()*6), 5); w.armor = 1; w.role = Role.SKIRMISHER; w.weapon = Weapon.PISTOL; break;
+                w = new Warrior(name, 24 + rng.nextInt(6), 5); w.armor = 1; w.role = Role.SKIRMISHER; w.weapon = Weapon.PISTOL; break;
             default: // Conquistador
-                w = new Warrior(name, 26 + (int)(Math.random()*6), 6); w.role = Role.DUELIST; w.weapon = Weapon.SWORD_BUCKLER; break;
+                w = new Warrior(name, 26 + rng.nextInt(6), 6); w.role = Role.DUELIST; w.weapon = Weapon.SWORD_BUCKLER; break;
         }
-        String typePrefix = (t==0)?"Landsknecht":(t==1)?"Swiss":(t==2)?"Spaniard":(t==3)?"Gallowglass":(t==4)?"Reiter":"Conquistador";
-        w.name = typePrefix + " " + name;
-        w.role.applyTo(w); w.weapon.applyTo(w);
         return w;
     }
 
     boolean tryStartTurn() {
         if (defenseStance == StanceType.DEFENSIVE) defenseStance = StanceType.NONE;
         if (stunned) {
-            Main.log(Main.NORMAL, "⏸ " + label() + " оглушён и пропускает ход!");
+            CombatLog.Writer rec = CombatLog.active();
+            if (rec != null) rec.skip(this);
+            if (Main.logOn(Main.NORMAL)) Main.log(Main.NORMAL, "⏸ " + label() + " оглушён и пропускает ход!");
             stunned = false;
             return false;
         }
@@ -1731,8 +2116,11 @@ class Warrior {
         int heal = 8;
         int before = hp;
         hp = Math.min(maxHp, hp + heal);
+        if (side != null) side.changed(this, hp - before);
         potions--;
-        Main.log(Main.BRIEF, "🧪 " + label() + " выпил зелье (+" + Main.c(Main.GREEN, String.valueOf(hp - before))
+        CombatLog.Writer rec = CombatLog.active();
+        if (rec != null) rec.potion(this, this, hp - before);
+        if (Main.logOn(Main.BRIEF)) Main.log(Main.BRIEF, "🧪 " + label() + " выпил зелье (+" + Main.c(Main.GREEN, String.valueOf(hp - before))
                 + " hp). Осталось зелий: " + potions + ". Текущее hp: " + hp);
     }
 
@@ -1741,119 +2129,135 @@ class Warrior {
         int heal = 8;
         int before = ally.hp;
         ally.hp = Math.min(ally.maxHp, ally.hp + heal);
+        if (ally.side != null) ally.side.changed(ally, ally.hp - before);
         this.potions--;
-        Main.log(Main.BRIEF, "🧪 " + this.label() + " дал зелье " + ally.label() +
+        CombatLog.Writer rec = CombatLog.active();
+        if (rec != null) rec.potion(this, ally, ally.hp - before);
+        if (Main.logOn(Main.BRIEF)) Main.log(Main.BRIEF, "🧪 " + this.label() + " дал зелье " + ally.label() +
                 " (+" + Main.c(Main.GREEN, String.valueOf(ally.hp - before)) + " hp). " +
                 "У " + this.label() + " осталось зелий: " + this.potions);
     }
 
-    void attack(Warrior enemy) {
-        if (Math.random() < missChance) { Main.log(Main.VERBOSE, "🌀 " + label() + " промахнулся по " + enemy.label() + "!"); return; }
+    // Глубокая копия (все поля — примитивы/enum/String), для симуляций без порчи ростера
+    Warrior copy() {
+        Warrior w = new Warrior(name, maxHp, attack);
+        w.teamTag = teamTag; w.hp = hp;
+        w.potions = potions; w.stunned = stunned; w.fatigue = fatigue;
+        w.armor = armor; w.pierce = pierce; w.minDamage = minDamage;
+        w.missChance = missChance; w.blockChance = blockChance; w.dodgeChance = dodgeChance;
+        w.critChance = critChance; w.stunOnCritChance = stunOnCritChance;
+        w.role = role; w.weapon = weapon;
+        w.level = level; w.experience = experience; w.isRotmeister = isRotmeister;
+        w.battleCryBonus = battleCryBonus; w.pendingLevelUps = pendingLevelUps; w.isRecruited = isRecruited;
+        w.tempArmorBonus = tempArmorBonus;
+        w.nextTurnStance = nextTurnStance; w.defenseStance = defenseStance;
+        w.battleAttackCount = battleAttackCount;
+        return w;
+    }
 
-        double enemyBlock = enemy.blockChance;
-        double enemyDodge = enemy.dodgeChance;
-        if (enemy.defenseStance == StanceType.DEFENSIVE) {
-            enemyBlock = Role.clamp01(enemyBlock + Main.DEF_BLOCK_DELTA(enemy.role));
-            enemyDodge = Role.clamp01(enemyDodge + Main.DEF_DODGE_DELTA(enemy.role));
+    // Все поля, что переносит copy(), совпадают (журнал кампании так находит изменившихся бойцов)
+    boolean sameState(Warrior o) {
+        return o != null && java.util.Objects.equals(name, o.name) && java.util.Objects.equals(teamTag, o.teamTag)
+                && hp == o.hp && maxHp == o.maxHp && attack == o.attack
+                && potions == o.potions && stunned == o.stunned && fatigue == o.fatigue
+                && armor == o.armor && pierce == o.pierce && minDamage == o.minDamage
+                && missChance == o.missChance && blockChance == o.blockChance && dodgeChance == o.dodgeChance
+                && critChance == o.critChance && stunOnCritChance == o.stunOnCritChance
+                && role == o.role && weapon == o.weapon
+                && level == o.level && experience == o.experience && isRotmeister == o.isRotmeister
+                && battleCryBonus == o.battleCryBonus && pendingLevelUps == o.pendingLevelUps && isRecruited == o.isRecruited
+                && tempArmorBonus == o.tempArmorBonus
+                && nextTurnStance == o.nextTurnStance && defenseStance == o.defenseStance
+                && battleAttackCount == o.battleAttackCount;
+    }
+
+    void attack(Warrior enemy) { attack(enemy, Main.rng()); }
+
+    void attack(Warrior enemy, Rng rng) {
+        CombatLog.Writer rec = CombatLog.active();
+        FlightEvents.Attack ev = new FlightEvents.Attack();
+        ev.begin();
+        CombatMods m = CombatMods.of(this);
+        if (rng.nextDouble() < missChance) {
+            if (m.metrics) Metrics.MISSES.inc();
+            if (rec != null) rec.miss(this, enemy);
+            if (Main.logOn(Main.VERBOSE)) Main.log(Main.VERBOSE, "🌀 " + label() + " промахнулся по " + enemy.label() + "!");
+            ev.finish(this, enemy, FlightEvents.Attack.MISS, 0, 0, false, false);
+            return;
         }
-        if (Math.random() < enemyBlock) { Main.log(Main.VERBOSE, "🛡 " + enemy.label() + " заблокировал удар " + label() + "!"); return; }
-        if (Math.random() < enemyDodge) { Main.log(Main.VERBOSE, "💨 " + enemy.label() + " увернулся от удара " + label() + "!"); return; }
 
-        int damage = Math.max(minDamage, this.attack - fatigue);
-
-        double critChanceEff = this.critChance;
-        double stunOnCritEff = this.stunOnCritChance;
-        int damageBonus = 0;
-
-        if (this.nextTurnStance == StanceType.AGGRESSIVE) {
-            damageBonus   += Main.AGG_DMG_BONUS(this.role);
-            critChanceEff  = Role.clamp01(critChanceEff + Main.AGG_CRIT_DELTA(this.role));
-            stunOnCritEff  = Role.clamp01(stunOnCritEff + Main.AGG_STUN_DELTA(this.role));
-            this.nextTurnStance = StanceType.NONE;
+        // Все модификаторы роли/стойки/клича/стратегии — из скомпилированных таблиц (см. CombatMods)
+        CombatMods dm = CombatMods.of(enemy);
+        int ds = enemy.defenseStance == StanceType.DEFENSIVE ? 1 : 0;
+        if (rng.nextDouble() < dm.block[ds]) {
+            if (m.metrics) Metrics.BLOCKS.inc();
+            if (rec != null) rec.block(this, enemy);
+            if (Main.logOn(Main.VERBOSE)) Main.log(Main.VERBOSE, "🛡 " + enemy.label() + " заблокировал удар " + label() + "!");
+            ev.finish(this, enemy, FlightEvents.Attack.BLOCK, 0, 0, false, false);
+            return;
         }
-
-        if (battleCryBonus) {
-            damageBonus += 1;
-            critChanceEff = Role.clamp01(critChanceEff + 0.05);
+        if (rng.nextDouble() < dm.dodge[ds]) {
+            if (m.metrics) Metrics.DODGES.inc();
+            if (rec != null) rec.dodge(this, enemy);
+            if (Main.logOn(Main.VERBOSE)) Main.log(Main.VERBOSE, "💨 " + enemy.label() + " увернулся от удара " + label() + "!");
+            ev.finish(this, enemy, FlightEvents.Attack.DODGE, 0, 0, false, false);
+            return;
         }
 
-        damage += damageBonus;
-
-        // Стратегии
-        boolean attackerIsPlayer = (this.teamTag != null && this.teamTag.contains("[A]"));
-        boolean enemyIsPlayer = (enemy.teamTag != null && enemy.teamTag.contains("[A]"));
-        int extraPierce = 0;
-        double extraStunOnCrit = 0.0;
-        double outgoingDamageMultiplier = 1.0;     // штраф/бонус исходящего урона атакующего
-        double enemyIncomingMultiplier = 1.0;      // мод для входящего урона цели
-
-        if (attackerIsPlayer) {
-            if (Main.CURRENT_STRATEGY == StrategyPlan.AGGRESSIVE && Main.CURRENT_STRATEGY_TIER > 0) {
-                int tier = Main.CURRENT_STRATEGY_TIER;
-                int nextHitIndex = this.battleAttackCount + 1;
-                boolean grantPierce = (tier >= 3) || (tier == 2 && (nextHitIndex % 2 == 1)) || (tier == 1 && (nextHitIndex % 2 == 0));
-                if (grantPierce) extraPierce += 1;
-                extraStunOnCrit += (tier == 1 ? 0.05 : tier == 2 ? 0.07 : 0.10);
-            } else if (Main.CURRENT_STRATEGY == StrategyPlan.CAUTIOUS && Main.CURRENT_STRATEGY_TIER > 0) {
-                int tier = Main.CURRENT_STRATEGY_TIER;
-                outgoingDamageMultiplier *= (tier == 1 ? 0.95 : tier == 2 ? 0.93 : 0.91);
-            }
-        }
+        int as = this.nextTurnStance == StanceType.AGGRESSIVE ? 1 : 0;
+        if (as == 1) this.nextTurnStance = StanceType.NONE;
 
-        if (enemyIsPlayer) {
-            if (Main.CURRENT_STRATEGY == StrategyPlan.AGGRESSIVE && Main.CURRENT_STRATEGY_TIER > 0) {
-                int tier = Main.CURRENT_STRATEGY_TIER;
-                enemyIncomingMultiplier *= (tier == 1 ? 1.10 : tier == 2 ? 1.12 : 1.15);
-            }
-        }
+        int damage = Math.max(minDamage, this.attack - fatigue) + m.dmgBonus[as];
 
-        boolean crit = Math.random() < critChanceEff;
+        boolean crit = rng.nextDouble() < m.crit[as];
         if (crit) {
             damage *= 2;
-            Main.log(Main.BRIEF, "⚡ " + label() + " нанёс " + Main.c(Main.YELLOW, "КРИТИЧЕСКИЙ") + " удар!");
+            if (m.metrics) Metrics.CRITS.inc();
+            if (rec != null) rec.crit(this, enemy);
+            if (Main.logOn(Main.BRIEF)) Main.log(Main.BRIEF, "⚡ " + label() + " нанёс " + Main.c(Main.YELLOW, "КРИТИЧЕСКИЙ") + " удар!");
         }
 
-        int enemyArmor = enemy.armor + enemy.tempArmorBonus;
-        if (enemy.defenseStance == StanceType.DEFENSIVE) enemyArmor += Main.DEF_ARMOR_BONUS(enemy.role);
-        int effectiveArmor = Math.max(0, enemyArmor - (this.pierce + extraPierce));
+        int effectiveArmor = Math.max(0, dm.armor[ds] - m.pierceByParity[(battleAttackCount + 1) & 1]);
         int finalDamage = Math.max(1, damage - effectiveArmor);
 
-        // Снижение урона по цели под Осторожной стратегией (крит-минимайзер)
-        if (enemyIsPlayer && Main.CURRENT_STRATEGY == StrategyPlan.CAUTIOUS && Main.CURRENT_STRATEGY_TIER > 0) {
-            if (crit) {
-                int tier = Main.CURRENT_STRATEGY_TIER;
-                double reduce = (tier == 1 ? 0.15 : tier == 2 ? 0.20 : 0.25);
-                finalDamage = (int)Math.max(1, Math.floor(finalDamage * (1.0 - reduce)));
-            }
-        }
-
-        // Применяем мультипликаторы исходящего и входящего урона
-        finalDamage = (int)Math.max(1, Math.floor(finalDamage * outgoingDamageMultiplier));
-        finalDamage = (int)Math.max(1, Math.floor(finalDamage * enemyIncomingMultiplier));
+        // Множители 1.0 при floor не меняют урон, поэтому применяются без проверок стратегии
+        if (crit) finalDamage = (int)Math.max(1, Math.floor(finalDamage * dm.critKeep));
+        finalDamage = (int)Math.max(1, Math.floor(finalDamage * m.outgoing));
+        finalDamage = (int)Math.max(1, Math.floor(finalDamage * dm.incoming));
 
         int absorbed = damage - Math.max(1, finalDamage);
 
-        enemy.hp -= finalDamage;
+        int hpBefore = enemy.hp;
+        enemy.hp = Math.max(0, enemy.hp - finalDamage);
+        if (enemy.side != null) enemy.side.changed(enemy, enemy.hp - hpBefore);
+        if (m.metrics) Metrics.HITS.inc();
         if (enemy.hp <= 0) {
-            enemy.hp = 0;
-            Main.log(Main.BRIEF, "💀 " + enemy.label() + " умер! Убийца — " + label());
+            if (m.metrics) Metrics.KILLS.inc();
+            if (rec != null) { rec.damage(this, enemy, finalDamage, absorbed); rec.kill(this, enemy); }
+            if (Main.logOn(Main.BRIEF)) Main.log(Main.BRIEF, "💀 " + enemy.label() + " умер! Убийца — " + label());
             fatigue++;
             battleAttackCount++;
-            Main.log(Main.NORMAL, "⚔️ " + label() + " ударил " + enemy.label() +
-                    " на " + Main.c(Main.RED, String.valueOf(finalDamage)) + " урона" +
-                    (absorbed > 0 ? " (🧱 броня поглотила " + absorbed + ")" : "") +
-                    ", у него осталось " + Main.c(Main.RED, String.valueOf(enemy.hp)) + " hp" +
-                    " (усталость " + fatigue + ")");
+            if (Main.logOn(Main.NORMAL)) logHit(enemy, finalDamage, absorbed);
+            ev.finish(this, enemy, FlightEvents.Attack.KILL, finalDamage, absorbed, crit, false);
             return;
         }
 
-        if (crit && Math.random() < Math.min(1.0, stunOnCritEff + extraStunOnCrit)) {
+        boolean stun = crit && rng.nextDouble() < m.stunProb[as];
+        if (stun) {
             enemy.stunned = true;
-            Main.log(Main.NORMAL, "🔔 " + enemy.label() + " оглушён и пропустит следующий ход!");
+            if (m.metrics) Metrics.STUNS.inc();
+            if (rec != null) rec.stun(enemy);
+            if (Main.logOn(Main.NORMAL)) Main.log(Main.NORMAL, "🔔 " + enemy.label() + " оглушён и пропустит следующий ход!");
         }
 
         fatigue++;
         battleAttackCount++;
+        if (rec != null) rec.damage(this, enemy, finalDamage, absorbed);
+        if (Main.logOn(Main.NORMAL)) logHit(enemy, finalDamage, absorbed);
+        ev.finish(this, enemy, FlightEvents.Attack.HIT, finalDamage, absorbed, crit, stun);
+    }
+
+    private void logHit(Warrior enemy, int finalDamage, int absorbed) {
         Main.log(Main.NORMAL, "⚔️ " + label() + " ударил " + enemy.label() +
                 " на " + Main.c(Main.RED, String.valueOf(finalDamage)) + " урона" +
                 (absorbed > 0 ? " (🧱 броня поглотила " + absorbed + ")" : "") +
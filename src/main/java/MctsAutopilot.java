@@ -0,0 +1,348 @@
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// ===================== АВТОПИЛОТ КОМАНДЫ A (MCTS) =====================
+// DecisionProvider, который выбирает действие бойца (ATTACK / POTION_SELF / POTION_ALLY / STANCE_AGGR /
+// STANCE_DEF) поиском по дереву Монте-Карло на настоящих правилах боя (BattleState), а цель фокуса раунда —
+// бандитом UCB1 по вариантам «без приказа / враг №k».
+//   - узлы дерева — ходы бойцов A; ключ узла — хеш состояния боя (hp, зелья, усталость, стойки, оглушение,
+//     чётность удара, кто ходит) в таблице транспозиций: одинаковые позиции из разных веток делят статистику;
+//   - случайность (порядок ходов, броски) разыгрывается при каждом проходе, ходы B и ходы A вне дерева — ИИ;
+//     порядок ходов — как в бою (TurnOrder сессии: перемешивание или инициатива);
+//   - параллельность по корню: на каждое ядро свой поиск со своим BattleState, ГСЧ и таблицей, счётчики корня
+//     складываются; выбирается самое посещаемое действие;
+//   - жёсткий бюджет на решение: дедлайн проверяется каждый раунд симуляции, недоигранный проход отбрасывается.
+// Остаток текущего раунда движок провайдеру не показывает, поэтому после решения симуляция начинает новый раунд.
+final class MctsAutopilot implements DecisionProvider {
+    static final long DEFAULT_BUDGET_MS = 100;
+    static final int MAX_NODES = 200_000;       // на один поиск; дальше проходы идут без расширения дерева
+    static final double UCB_C = 0.7;
+    static final int ACTIONS = PlayerAction.values().length;
+
+    private final long budgetNanos;
+    private final ForkJoinPool pool;
+    private final AiDecisions fallback = new AiDecisions(0);
+
+    long decisions, simulations;  // статистика за время жизни провайдера
+
+    MctsAutopilot(long budgetMs) { this(budgetMs, ForkJoinPool.commonPool()); }
+
+    MctsAutopilot(long budgetMs, ForkJoinPool pool) {
+        this.budgetNanos = Math.max(1, budgetMs) * 1_000_000L;
+        this.pool = pool;
+    }
+
+    String summary() {
+        return "🤖 Автопилот: " + decisions + " решений, " + simulations + " симуляций"
+                + (decisions == 0 ? "" : " (~" + simulations / decisions + " на решение)");
+    }
+
+    // ===================== РЕШЕНИЯ =====================
+    @Override
+    public StrategyPlan strategy(Warrior[] teamA, Warrior[] teamB, int tier) {
+        if (tier <= 0) return StrategyPlan.STANDARD;
+        return StrategyAdvisor.advise(teamA, teamB, tier, budgetNanos / 1_000_000L, Main.rng().split(), pool).best().plan;
+    }
+
+    @Override
+    public RoundOrder roundOrder(Warrior[] teamA, Warrior[] teamB) {
+        RoundOrder ro = new RoundOrder();
+        // Варианты: -1 — без приказа, иначе индекс врага в команде B BattleState (без пустых слотов) и его номер в teamB
+        List<int[]> options = new ArrayList<>();
+        options.add(new int[]{-1, 0});
+        int k = 0;
+        for (int i = 0; i < teamB.length; i++) {
+            if (teamB[i] == null) continue;
+            if (teamB[i].hp > 0) options.add(new int[]{k, i + 1});
+            k++;
+        }
+        if (options.size() <= 2) return ro; // одна цель — фокус ничего не меняет
+
+        long deadline = System.nanoTime() + budgetNanos;
+        List<FocusSearch> tasks = new ArrayList<>();
+        for (int w = 0; w < workers(); w++)
+            tasks.add(new FocusSearch(new BattleState(teamA, teamB), options, Main.rng().split(), deadline));
+        runAll(tasks);
+
+        long[] visits = new long[options.size()];
+        for (FocusSearch t : tasks) for (int o = 0; o < visits.length; o++) visits[o] += t.visits[o];
+        int best = argmax(visits);
+        decisions++;
+        if (visits[best] > 0 && options.get(best)[0] >= 0) ro.focusEnemyIndexB = options.get(best)[1];
+        return ro;
+    }
+
+    @Override
+    public PlayerAction action(Warrior attacker, Warrior[] allies, Warrior[] enemies, Rng rng) {
+        long deadline = System.nanoTime() + budgetNanos;
+        List<TreeSearch> tasks = new ArrayList<>();
+        int slot = -1;
+        for (int w = 0; w < workers(); w++) {
+            BattleState s = new BattleState(allies, enemies);
+            if (slot < 0) for (int i = 0; i < s.n; i++) if (s.source[i] == attacker) slot = i;
+            if (slot < 0) return fallback.action(attacker, allies, enemies, rng);
+            tasks.add(new TreeSearch(s, slot, Main.rng().split(), deadline));
+        }
+        runAll(tasks);
+
+        long[] visits = new long[ACTIONS];
+        for (TreeSearch t : tasks) {
+            if (t.root == null) continue;
+            for (int i = 0; i < t.root.actions.length; i++) visits[t.root.actions[i]] += t.root.visits[i];
+        }
+        decisions++;
+        int best = argmax(visits);
+        if (visits[best] == 0) return fallback.action(attacker, allies, enemies, rng);
+        PlayerAction act = PlayerAction.values()[best];
+        if (Main.logOn(Main.NORMAL)) Main.log(Main.NORMAL, "🤖 " + attacker.label() + ": " + act + " (" + visits[best] + " из " + sum(visits) + " симуляций)");
+        return act;
+    }
+
+    // Самый раненый живой союзник с неполным hp, кроме самого дающего (так же выбирает и симуляция — TreeSearch.potionTarget)
+    @Override
+    public int potionTarget(Warrior giver, Warrior[] allies) {
+        int best = -1;
+        for (int i = 0; i < allies.length; i++) {
+            Warrior w = allies[i];
+            if (w == null || w == giver || w.hp <= 0 || w.hp >= w.maxHp) continue;
+            if (best < 0 || w.hp < allies[best].hp) best = i;
+        }
+        return best;
+    }
+
+    private int workers() { return Math.max(1, pool.getParallelism()); }
+
+    private void runAll(List<? extends Search> tasks) {
+        pool.invoke(new RecursiveAction() {
+            @Override protected void compute() { invokeAll(tasks); }
+        });
+        for (Search t : tasks) simulations += t.iterations;
+    }
+
+    private static int argmax(long[] v) {
+        int best = 0;
+        for (int i = 1; i < v.length; i++) if (v[i] > v[best]) best = i;
+        return best;
+    }
+
+    private static long sum(long[] v) { long s = 0; for (long x : v) s += x; return s; }
+
+    // ===================== ПОИСК =====================
+    private abstract static class Search extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        final BattleState s;
+        final Rng rng;
+        final long deadline;
+        long iterations;
+
+        Search(BattleState s, Rng rng, long deadline) {
+            this.s = s; this.rng = rng; this.deadline = deadline;
+        }
+
+        // Оценка конца прохода: любая победа лучше ничьей, ничья лучше поражения; внутри — по остатку hp
+        double value() {
+            double fracA = (double) s.hpSum(true) / maxHpSum(true);
+            double fracB = (double) s.hpSum(false) / maxHpSum(false);
+            if (s.aliveB == 0 && s.aliveA > 0) return 0.6 + 0.4 * fracA;
+            if (s.aliveA == 0 && s.aliveB > 0) return 0.2 * (1 - fracB);
+            return 0.4;
+        }
+
+        private int maxHpSum(boolean teamA) {
+            int sum = 0;
+            for (int i = teamA ? 0 : s.nA, to = teamA ? s.nA : s.n; i < to; i++) sum += s.maxHp[i];
+            return Math.max(1, sum);
+        }
+    }
+
+    // Фокус раунда: UCB1 по вариантам; проход — бой до конца с фокусом на выбранном враге, пока он жив
+    private static final class FocusSearch extends Search {
+        private static final long serialVersionUID = 1L;
+        final List<int[]> options;
+        final long[] visits;
+        final double[] value;
+
+        FocusSearch(BattleState s, List<int[]> options, Rng rng, long deadline) {
+            super(s, rng, deadline);
+            this.options = options;
+            this.visits = new long[options.size()];
+            this.value = new double[options.size()];
+        }
+
+        @Override
+        protected void compute() {
+            while (System.nanoTime() < deadline) {
+                int o = ucb(visits, value, iterations, visits.length);
+                s.reset();
+                int focus = options.get(o)[0];
+                int rounds = 0;
+                boolean timedOut = false;
+                while (!s.finished() && rounds++ < BattleSimulator.MAX_ROUNDS) {
+                    if (System.nanoTime() >= deadline) { timedOut = true; break; }
+                    s.playRound(rng, focus);
+                }
+                if (timedOut) break;
+                visits[o]++;
+                value[o] += value();
+                iterations++;
+            }
+        }
+    }
+
+    // Узел таблицы транспозиций: статистика по допустимым действиям бойца в позиции
+    private static final class Node {
+        final int[] actions;
+        final long[] visits;
+        final double[] value;
+        long total;
+
+        Node(int[] actions) {
+            this.actions = actions;
+            this.visits = new long[actions.length];
+            this.value = new double[actions.length];
+        }
+    }
+
+    private static final class TreeSearch extends Search {
+        private static final long serialVersionUID = 1L;
+        final int rootSlot;
+        final HashMap<Long, Node> tt = new HashMap<>();
+        final Node[] pathNode = new Node[256];
+        final int[] pathAction = new int[256];
+        Node root;
+
+        TreeSearch(BattleState s, int rootSlot, Rng rng, long deadline) {
+            super(s, rng, deadline);
+            this.rootSlot = rootSlot;
+        }
+
+        @Override
+        protected void compute() {
+            s.reset();
+            root = new Node(legal(rootSlot));
+            tt.put(key(rootSlot), root);
+            while (System.nanoTime() < deadline) {
+                if (!iterate()) break;
+                iterations++;
+            }
+        }
+
+        // Один проход: отбор по дереву → расширение → доигрывание ИИ → обратное распространение
+        private boolean iterate() {
+            s.reset();
+            int depth = 0;
+            int a0 = select(root);
+            apply(rootSlot, root.actions[a0]);
+            pathNode[depth] = root; pathAction[depth++] = a0;
+
+            boolean inTree = true;
+            int rounds = 0;
+            while (!s.finished() && rounds++ < BattleSimulator.MAX_ROUNDS) {
+                if (System.nanoTime() >= deadline) return false;
+                s.beginRound(rng);
+                while (s.hasNextTurn() && !s.finished()) {
+                    int a = s.nextTurn();
+                    if (s.hp[a] <= 0) continue;
+                    if (!inTree || !s.isA(a) || depth == pathNode.length) { s.takeTurn(a, rng, -1); continue; }
+                    if (!s.tryStartTurn(a)) continue;
+                    long key = key(a);
+                    Node node = tt.get(key);
+                    if (node == null) {
+                        inTree = false;
+                        if (tt.size() >= MAX_NODES) { aiAfterStart(a); continue; }
+                        node = new Node(legal(a));
+                        tt.put(key, node);
+                    }
+                    int ai = select(node);
+                    apply(a, node.actions[ai]);
+                    pathNode[depth] = node; pathAction[depth++] = ai;
+                }
+            }
+
+            double v = value();
+            for (int d = 0; d < depth; d++) {
+                Node node = pathNode[d];
+                node.visits[pathAction[d]]++;
+                node.value[pathAction[d]] += v;
+                node.total++;
+            }
+            return true;
+        }
+
+        private int select(Node node) { return ucb(node.visits, node.value, node.total, node.actions.length); }
+
+        // Допустимые действия бойца a (коды = PlayerAction.ordinal())
+        private int[] legal(int a) {
+            int[] out = new int[ACTIONS];
+            int len = 0;
+            out[len++] = PlayerAction.ATTACK.ordinal();
+            if (s.potions[a] > 0 && s.hp[a] < s.maxHp[a]) out[len++] = PlayerAction.POTION_SELF.ordinal();
+            if (s.potions[a] > 0 && potionTarget(a) >= 0) out[len++] = PlayerAction.POTION_ALLY.ordinal();
+            if (s.nextStance[a] != BattleState.ST_AGGR) out[len++] = PlayerAction.STANCE_AGGR.ordinal();
+            if (s.defStance[a] != BattleState.ST_DEF) out[len++] = PlayerAction.STANCE_DEF.ordinal();
+            return Arrays.copyOf(out, len);
+        }
+
+        // Ход по решению (tryStartTurn уже сделан) — как BattleEngine.turn для команды A
+        private void apply(int a, int action) {
+            switch (PlayerAction.values()[action]) {
+                case POTION_SELF -> s.usePotion(a, a);
+                case POTION_ALLY -> { int t = potionTarget(a); if (t >= 0) s.usePotion(a, t); }
+                case STANCE_AGGR -> s.nextStance[a] = BattleState.ST_AGGR;
+                case STANCE_DEF -> s.defStance[a] = BattleState.ST_DEF;
+                default -> {
+                    int t = s.randomAlive(false, rng);
+                    if (t != -1) s.attack(a, t, rng);
+                }
+            }
+        }
+
+        // Ход ИИ для бойца, у которого tryStartTurn уже сделан (таблица заполнена)
+        private void aiAfterStart(int a) {
+            if (s.hp[a] <= Main.LOW_HP_THRESHOLD && s.potions[a] > 0 && rng.chance(Main.TEAM_HEAL_CHANCE)) { s.usePotion(a, a); return; }
+            int t = s.randomAlive(false, rng);
+            if (t != -1) s.attack(a, t, rng);
+        }
+
+        private int potionTarget(int giver) {
+            int best = -1;
+            for (int i = 0; i < s.nA; i++) {
+                if (i == giver || s.hp[i] <= 0 || s.hp[i] >= s.maxHp[i]) continue;
+                if (best < 0 || s.hp[i] < s.hp[best]) best = i;
+            }
+            return best;
+        }
+
+        // Хеш позиции: всё изменяемое состояние слотов + кто ходит (смешивание в духе SplitMix64)
+        private long key(int actor) {
+            long h = 0x9E3779B97F4A7C15L ^ actor;
+            for (int i = 0; i < s.n; i++) {
+                long x = s.hp[i] | (long) s.potions[i] << 12 | (long) Math.min(s.fatigue[i], 255) << 20
+                        | (long) (s.attackCount[i] & 1) << 28 | (s.stunned[i] ? 1L : 0L) << 29
+                        | (long) s.nextStance[i] << 30 | (long) s.defStance[i] << 32;
+                h = mix(h ^ x ^ ((long) i << 40));
+            }
+            return h;
+        }
+
+        private static long mix(long z) {
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+    }
+
+    // UCB1: сначала каждый непосещённый вариант, затем среднее + исследование
+    private static int ucb(long[] visits, double[] value, long total, int n) {
+        for (int i = 0; i < n; i++) if (visits[i] == 0) return i;
+        double logN = Math.log(Math.max(1, total));
+        int best = 0;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            double score = value[i] / visits[i] + UCB_C * Math.sqrt(logN / visits[i]);
+            if (score > bestScore) { bestScore = score; best = i; }
+        }
+        return best;
+    }
+}
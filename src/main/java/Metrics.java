@@ -0,0 +1,268 @@
+import com.sun.net.httpserver.HttpServer;
+
+import javax.management.*;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// ===================== МЕТРИКИ =====================
+// Исходы ударов (Warrior.attack), раунды и время боёв (командная битва, бой кампании), сериализация
+// и запись сейвов (SaveWriter). Удары боёв, сыгранных симуляциями (GameSession.metrics = false),
+// не считаются. Без блокировок: счётчики — LongAdder (полосы на потоки), гистограммы —
+// лог-линейные корзины в духе HDR (16 корзин на октаву, точность ≈6%) в AtomicLongArray.
+// Наружу: JMX (один MBean mercs:type=Metrics, атрибуты только для чтения) и текстовая страница Prometheus
+// на localhost (--metrics[=порт], путь /metrics). -Dmercs.metrics=false выключает запись целиком
+// (ENABLED — константа, JIT выбрасывает вызовы из горячего пути удара).
+final class Metrics {
+    static final boolean ENABLED = !"false".equals(System.getProperty("mercs.metrics"));
+    static final int DEFAULT_PORT = 9464;
+    static final String JMX_NAME = "mercs:type=Metrics";
+
+    private static final List<Counter> COUNTERS = new ArrayList<>();
+    private static final List<Histogram> HISTOGRAMS = new ArrayList<>();
+    private static HttpServer http;
+
+    private Metrics() {}
+
+    // ===================== РЕЕСТР =====================
+    static final Counter HITS    = counter("mercs_attack_hits_total", "Удары, дошедшие до урона");
+    static final Counter MISSES  = counter("mercs_attack_misses_total", "Промахи");
+    static final Counter BLOCKS  = counter("mercs_attack_blocks_total", "Удары, принятые на блок");
+    static final Counter DODGES  = counter("mercs_attack_dodges_total", "Увороты");
+    static final Counter CRITS   = counter("mercs_attack_crits_total", "Критические удары");
+    static final Counter STUNS   = counter("mercs_attack_stuns_total", "Оглушения");
+    static final Counter KILLS   = counter("mercs_attack_kills_total", "Убийства");
+    static final Counter BATTLES = counter("mercs_battles_total", "Завершённые бои (командная битва и кампания)");
+    static final Counter WINS_A  = counter("mercs_battles_won_a_total", "Бои, выигранные командой A");
+
+    static final Histogram BATTLE_ROUNDS  = histogram("mercs_battle_rounds", "Раундов за бой", 1, 10);
+    static final Histogram BATTLE_SECONDS = histogram("mercs_battle_seconds", "Время боя от начала до конца, с учётом ввода", 1e-9, 40);
+    static final Histogram SAVE_SERIALIZE_SECONDS = histogram("mercs_save_serialize_seconds", "Сериализация сейва в байты", 1e-9, 32);
+    static final Histogram SAVE_WRITE_SECONDS     = histogram("mercs_save_write_seconds", "Запись сейва: временный файл и переименование", 1e-9, 32);
+
+    private static Counter counter(String name, String help) {
+        Counter c = new Counter(name, help);
+        COUNTERS.add(c);
+        return c;
+    }
+
+    private static Histogram histogram(String name, String help, double scale, int maxOctave) {
+        Histogram h = new Histogram(name, help, scale, maxOctave);
+        HISTOGRAMS.add(h);
+        return h;
+    }
+
+    // Итог боя: раунды и длительность в наносекундах
+    static void battle(int rounds, long nanos, boolean aWon) {
+        BATTLES.inc();
+        if (aWon) WINS_A.inc();
+        BATTLE_ROUNDS.record(rounds);
+        BATTLE_SECONDS.record(nanos);
+    }
+
+    // ===================== СЧЁТЧИК =====================
+    static final class Counter {
+        final String name, help;
+        private final LongAdder adder = new LongAdder();
+
+        Counter(String name, String help) { this.name = name; this.help = help; }
+
+        void inc() { if (ENABLED) adder.increment(); }
+        long get() { return adder.sum(); }
+    }
+
+    // ===================== ГИСТОГРАММА =====================
+    // Значения < 16 — каждое в своей корзине; дальше октава [2^e, 2^(e+1)) делится на 16 равных корзин.
+    // scale переводит единицы записи в единицы выдачи (нс → с); maxOctave — верхняя граница le для Prometheus.
+    static final class Histogram {
+        static final int SUB_BITS = 4, SUB = 1 << SUB_BITS;
+        static final int BUCKETS = (64 - SUB_BITS) * SUB + SUB;
+
+        final String name, help;
+        final double scale;
+        final int maxOctave;
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder(), sum = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        Histogram(String name, String help, double scale, int maxOctave) {
+            this.name = name; this.help = help; this.scale = scale; this.maxOctave = maxOctave;
+        }
+
+        static int bucket(long v) {
+            if (v < SUB) return (int) Math.max(0, v);
+            int shift = 63 - Long.numberOfLeadingZeros(v) - SUB_BITS;
+            return (shift + 1) * SUB + (int) ((v >>> shift) & (SUB - 1));
+        }
+
+        // Верхняя граница корзины (включительно)
+        static long upper(int b) {
+            if (b < SUB) return b;
+            int shift = b / SUB - 1;
+            return ((long) (SUB + b % SUB) << shift) + (1L << shift) - 1;
+        }
+
+        void record(long v) {
+            if (!ENABLED) return;
+            buckets.incrementAndGet(bucket(v));
+            count.increment();
+            sum.add(v);
+            long m = max.get();
+            while (v > m && !max.compareAndSet(m, v)) m = max.get();
+        }
+
+        long count() { return count.sum(); }
+        double mean() { long n = count(); return n == 0 ? 0 : sum.sum() * scale / n; }
+        double max() { return max.get() * scale; }
+
+        // Квантиль по верхней границе корзины (в единицах выдачи)
+        double quantile(double q) {
+            long[] snap = snapshot();
+            long total = 0;
+            for (long c : snap) total += c;
+            if (total == 0) return 0;
+            long rank = (long) Math.ceil(q * total), seen = 0;
+            for (int b = 0; b < snap.length; b++) {
+                seen += snap[b];
+                if (seen >= Math.max(1, rank)) return Math.min(upper(b), max.get()) * scale;
+            }
+            return max();
+        }
+
+        private long[] snapshot() {
+            long[] snap = new long[BUCKETS];
+            for (int b = 0; b < BUCKETS; b++) snap[b] = buckets.get(b);
+            return snap;
+        }
+    }
+
+    // ===================== PROMETHEUS =====================
+    // Текстовый формат 0.0.4; le гистограмм — по степеням двойки до 2^maxOctave (набор стабилен между опросами)
+    static String prometheusText() {
+        StringBuilder sb = new StringBuilder(4096);
+        for (Counter c : COUNTERS) {
+            sb.append("# HELP ").append(c.name).append(' ').append(c.help).append('\n');
+            sb.append("# TYPE ").append(c.name).append(" counter\n");
+            sb.append(c.name).append(' ').append(c.get()).append('\n');
+        }
+        for (Histogram h : HISTOGRAMS) {
+            long[] snap = h.snapshot();
+            sb.append("# HELP ").append(h.name).append(' ').append(h.help).append('\n');
+            sb.append("# TYPE ").append(h.name).append(" histogram\n");
+            long cumulative = 0;
+            int b = 0;
+            for (int e = 0; e <= h.maxOctave; e++) {
+                long bound = 1L << e;   // значения < 2^e, то есть <= 2^e - 1 (границы корзин совпадают со степенями двойки)
+                while (b < snap.length && Histogram.upper(b) < bound) cumulative += snap[b++];
+                double le = h.scale == 1 ? bound - 1 : bound * h.scale;   // целые (раунды) — точная граница, время — с точностью до 1 нс
+                sb.append(h.name).append("_bucket{le=\"").append(fmt(le)).append("\"} ").append(cumulative).append('\n');
+            }
+            long total = cumulative;
+            while (b < snap.length) total += snap[b++];
+            sb.append(h.name).append("_bucket{le=\"+Inf\"} ").append(total).append('\n');
+            sb.append(h.name).append("_sum ").append(fmt(h.sum.sum() * h.scale)).append('\n');
+            sb.append(h.name).append("_count ").append(total).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static String fmt(double v) {
+        return v == Math.rint(v) && Math.abs(v) < 1e15 ? Long.toString((long) v) : String.format(Locale.ROOT, "%.9g", v);
+    }
+
+    static synchronized void serveHttp(int port) throws IOException {
+        if (http != null) return;
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/metrics", ex -> {
+            byte[] body = prometheusText().getBytes(StandardCharsets.UTF_8);
+            ex.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            ex.sendResponseHeaders(200, body.length);
+            try (OutputStream os = ex.getResponseBody()) { os.write(body); }
+        });
+        server.start();
+        http = server;
+        Main.out().println("📊 Метрики Prometheus: http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/metrics");
+    }
+
+    // Поток HttpServer не демон — без остановки JVM не завершится после выхода из игры
+    static synchronized void stopHttp() {
+        if (http != null) { http.stop(0); http = null; }
+    }
+
+    // ===================== JMX =====================
+    static synchronized void registerJmx() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(JMX_NAME);
+            if (!server.isRegistered(name)) server.registerMBean(new MBean(), name);
+        } catch (JMException e) {
+            Main.out().println("⚠️ JMX-метрики не зарегистрированы: " + e.getMessage());
+        }
+    }
+
+    // Атрибуты: счётчики по имени; у гистограммы — _count, _mean, _p50, _p90, _p99, _max
+    private static final class MBean implements DynamicMBean {
+        private static final String[] SUFFIXES = {"_count", "_mean", "_p50", "_p90", "_p99", "_max"};
+
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            for (Counter c : COUNTERS) if (c.name.equals(attribute)) return c.get();
+            for (Histogram h : HISTOGRAMS) {
+                if (!attribute.startsWith(h.name + "_")) continue;
+                switch (attribute.substring(h.name.length())) {
+                    case "_count": return h.count();
+                    case "_mean":  return h.mean();
+                    case "_p50":   return h.quantile(0.50);
+                    case "_p90":   return h.quantile(0.90);
+                    case "_p99":   return h.quantile(0.99);
+                    case "_max":   return h.max();
+                    default: break;
+                }
+            }
+            throw new AttributeNotFoundException(attribute);
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] attributes) {
+            AttributeList list = new AttributeList();
+            for (String a : attributes) {
+                try { list.add(new Attribute(a, getAttribute(a))); } catch (AttributeNotFoundException ignored) {}
+            }
+            return list;
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+            throw new AttributeNotFoundException("метрики только для чтения: " + attribute.getName());
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) { return new AttributeList(); }
+
+        @Override
+        public Object invoke(String actionName, Object[] params, String[] signature) throws MBeanException {
+            throw new MBeanException(new UnsupportedOperationException(actionName));
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            List<MBeanAttributeInfo> attrs = new ArrayList<>();
+            for (Counter c : COUNTERS)
+                attrs.add(new MBeanAttributeInfo(c.name, "long", c.help, true, false, false));
+            for (Histogram h : HISTOGRAMS)
+                for (String s : SUFFIXES)
+                    attrs.add(new MBeanAttributeInfo(h.name + s, s.equals("_count") ? "long" : "double", h.help, true, false, false));
+            return new MBeanInfo(Metrics.class.getName(), "Метрики боёв и сейвов",
+                    attrs.toArray(new MBeanAttributeInfo[0]), null, null, null);
+        }
+    }
+}
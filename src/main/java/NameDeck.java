@@ -0,0 +1,115 @@
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+// ===================== КОЛОДА ИМЁН =====================
+// Уникальные имена бойцов за O(1). По колоде на тип (пулы Warrior.NAMES_*): карта тянется ленивым
+// Фишером–Йетсом — случайная из невыданных меняется местами с первой невыданной; занятые заранее имена
+// (ростер, резерв) вынимаются тем же обменом через обратную перестановку pos. Раньше имя тянулось наугад
+// с повтором до 60 раз против Set, со сменой типа при коллизии и рекурсией на хвосте.
+// Когда колода типа кончилась, exhausted(t) это сообщает, а draw выдаёт нумерованные варианты
+// («… II», «… III», …) в том же перемешанном порядке — без повторов и без ограничения.
+// Не потокобезопасна: одна колода на одну генерацию (пул найма, список на выбор).
+final class NameDeck {
+    static final String[][] POOLS = {
+            Warrior.NAMES_LANDSKNECHT, Warrior.NAMES_SWISS, Warrior.NAMES_SPANIARD,
+            Warrior.NAMES_GALLOWGLASS, Warrior.NAMES_REITER, Warrior.NAMES_CONQUISTADOR
+    };
+
+    // Полные имена («Тип Имя») собраны один раз; INDEX — полное имя → (тип << 16) | индекс в пуле
+    private static final String[][] FULL = new String[POOLS.length][];
+    private static final Map<String, Integer> INDEX = new HashMap<>();
+    static {
+        for (int t = 0; t < POOLS.length; t++) {
+            FULL[t] = new String[POOLS[t].length];
+            for (int i = 0; i < POOLS[t].length; i++) {
+                FULL[t][i] = Warrior.TYPE_NAMES[t] + " " + POOLS[t][i];
+                INDEX.put(FULL[t][i], (t << 16) | i);
+            }
+        }
+    }
+
+    private final int[][] order = new int[POOLS.length][];  // перестановка пула; [0, dealt) — выданные
+    private final int[][] pos = new int[POOLS.length][];    // обратная перестановка: индекс имени → место в order
+    private final int[] dealt = new int[POOLS.length];
+    private final int[] round = new int[POOLS.length];      // номер варианта после исчерпания (2 — «II»)
+    private final int[] cursor = new int[POOLS.length];     // следующий индекс order для вариантов
+    private Set<String> takenVariants;                      // занятые варианты — их draw пропускает
+
+    static String fullName(int t, int i) { return FULL[t][i]; }
+
+    // Колода без имён уже занятых бойцов (null-массивы и пустые слоты пропускаются)
+    static NameDeck excluding(Warrior[]... teams) {
+        NameDeck deck = new NameDeck();
+        for (Warrior[] team : teams) {
+            if (team == null) continue;
+            for (Warrior w : team) if (w != null) deck.exclude(w.name);
+        }
+        return deck;
+    }
+
+    int size(int t) { return POOLS[t].length; }
+    int remaining(int t) { return size(t) - dealt[t]; }
+    boolean exhausted(int t) { return dealt[t] == size(t); }
+
+    // Пометить имя занятым; имя не из пулов (нумерованный вариант) draw просто пропустит
+    void exclude(String name) {
+        if (name == null) return;
+        Integer code = INDEX.get(name);
+        if (code == null) {
+            if (takenVariants == null) takenVariants = new HashSet<>();
+            takenVariants.add(name);
+            return;
+        }
+        int t = code >>> 16, i = code & 0xFFFF;
+        int[] ord = deck(t);
+        int p = pos[t][i];
+        if (p >= dealt[t]) swap(t, ord, p, dealt[t]++);
+    }
+
+    // Уникальное полное имя типа t: из колоды, а после исчерпания — нумерованный вариант
+    String draw(int t, Rng rng) {
+        int[] ord = deck(t);
+        int n = ord.length;
+        if (dealt[t] < n) {
+            int k = dealt[t] + rng.nextInt(n - dealt[t]);
+            swap(t, ord, k, dealt[t]);
+            return fullName(t, ord[dealt[t]++]);
+        }
+        while (true) {
+            if (cursor[t] == n) { cursor[t] = 0; round[t]++; }
+            String name = fullName(t, ord[cursor[t]++]) + " " + roman(round[t]);
+            if (takenVariants == null || !takenVariants.remove(name)) return name;
+        }
+    }
+
+    private int[] deck(int t) {
+        int[] ord = order[t];
+        if (ord == null) {
+            int n = POOLS[t].length;
+            ord = order[t] = new int[n];
+            pos[t] = new int[n];
+            for (int i = 0; i < n; i++) { ord[i] = i; pos[t][i] = i; }
+            round[t] = 2;
+        }
+        return ord;
+    }
+
+    private void swap(int t, int[] ord, int a, int b) {
+        int x = ord[a], y = ord[b];
+        ord[a] = y; ord[b] = x;
+        pos[t][y] = a; pos[t][x] = b;
+    }
+
+    private static final int[] ROMAN_VALUES = {1000, 900, 500, 400, 100, 90, 50, 40, 10, 9, 5, 4, 1};
+    private static final String[] ROMAN_DIGITS = {"M", "CM", "D", "CD", "C", "XC", "L", "XL", "X", "IX", "V", "IV", "I"};
+
+    static String roman(int n) {
+        if (n <= 0 || n >= 4000) return "#" + n;
+        StringBuilder sb = new StringBuilder();
+        for (int k = 0; k < ROMAN_VALUES.length; k++)
+            while (n >= ROMAN_VALUES[k]) { sb.append(ROMAN_DIGITS[k]); n -= ROMAN_VALUES[k]; }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,49 @@
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// ===================== ГСЧ ДВИЖКА =====================
+// Все броски (удары, цели, карта, генерация бойцов, трофеи) идут через Rng.
+// По умолчанию — свой SplittableRandom на каждый поток (никакого общего синхронизированного
+// генератора, как у Math.random); с фиксированным сидом одинаковый ввод даёт одинаковый бой/кампанию.
+interface Rng {
+    double nextDouble();          // [0, 1)
+    int nextInt(int bound);       // [0, bound)
+    long nextLong();
+    Rng split();                  // независимый поток, детерминированно выведенный из текущего
+
+    default boolean chance(double p) { return nextDouble() < p; }
+
+    // Фишер–Йетс (тот же обход, что у Collections.shuffle)
+    default <T> void shuffle(List<T> list) {
+        for (int i = list.size(); i > 1; i--) Collections.swap(list, i - 1, nextInt(i));
+    }
+
+    static Rng threadLocal() { return ThreadLocalRng.INSTANCE; }
+    static Rng seeded(long seed) { return new SplittableRng(new SplittableRandom(seed)); }
+}
+
+// Один поток чисел; НЕ потокобезопасен — для параллели делайте split()
+final class SplittableRng implements Rng {
+    private final SplittableRandom r;
+
+    SplittableRng(SplittableRandom r) { this.r = r; }
+
+    @Override public double nextDouble() { return r.nextDouble(); }
+    @Override public int nextInt(int bound) { return r.nextInt(bound); }
+    @Override public long nextLong() { return r.nextLong(); }
+    @Override public Rng split() { return new SplittableRng(r.split()); }
+}
+
+// Несидированный режим: у каждого потока свой генератор
+final class ThreadLocalRng implements Rng {
+    static final ThreadLocalRng INSTANCE = new ThreadLocalRng();
+    private static final ThreadLocal<SplittableRandom> LOCAL = ThreadLocal.withInitial(SplittableRandom::new);
+
+    private ThreadLocalRng() {}
+
+    @Override public double nextDouble() { return LOCAL.get().nextDouble(); }
+    @Override public int nextInt(int bound) { return LOCAL.get().nextInt(bound); }
+    @Override public long nextLong() { return LOCAL.get().nextLong(); }
+    @Override public Rng split() { return new SplittableRng(LOCAL.get().split()); }
+}
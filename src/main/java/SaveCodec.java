@@ -0,0 +1,407 @@
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+// ===================== JSON СЕЙВОВ: ОБЩИЕ ПОТОКОВЫЕ АДАПТЕРЫ =====================
+// Один Gson на всё приложение с рукописными TypeAdapter'ами для SaveGame, Warrior, CampaignState,
+// MapNode, RecruitCandidate и SaveMeta — без рефлексии. Имена полей и порядок — те же, что писал
+// рефлективный Gson, поэтому старые сейвы читаются, а новые читаются старой версией.
+// Отсутствующее поле оставляет значение по умолчанию из класса, неизвестное — пропускается.
+// Файлы читаются/пишутся потоком через FileChannel, без промежуточной строки на весь сейв.
+final class SaveCodec {
+    private SaveCodec() {}
+
+    private static GsonBuilder builder() {
+        return new GsonBuilder()
+                .registerTypeAdapter(Warrior.class, WARRIOR)
+                .registerTypeAdapter(MapNode.class, MAP_NODE)
+                .registerTypeAdapter(Main.RecruitCandidate.class, RECRUIT)
+                .registerTypeAdapter(CampaignState.class, CAMPAIGN)
+                .registerTypeAdapter(SaveGame.class, SAVE_GAME)
+                .registerTypeAdapter(SaveMeta.class, SAVE_META);
+    }
+
+    static <T> T read(Path path, Class<T> type) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ);
+             JsonReader r = new JsonReader(new BufferedReader(Channels.newReader(ch, StandardCharsets.UTF_8), 1 << 16))) {
+            return GSON.fromJson(r, type);
+        } catch (com.google.gson.JsonParseException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    static void write(Path path, Object value, boolean pretty) throws IOException {
+        Gson gson = pretty ? PRETTY : GSON;
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             JsonWriter w = gson.newJsonWriter(new BufferedWriter(Channels.newWriter(ch, StandardCharsets.UTF_8), 1 << 16))) {
+            gson.toJson(value, value.getClass(), w);
+        }
+    }
+
+    // Сейв целиком в байты (UTF-8) — для фоновой записи, где сериализация и запись на диск измеряются отдельно
+    static byte[] encode(Object value, boolean pretty) throws IOException {
+        Gson gson = pretty ? PRETTY : GSON;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 14);
+        try (JsonWriter w = gson.newJsonWriter(new BufferedWriter(new OutputStreamWriter(bytes, StandardCharsets.UTF_8), 1 << 16))) {
+            gson.toJson(value, value.getClass(), w);
+        }
+        return bytes.toByteArray();
+    }
+
+    // ===================== АДАПТЕРЫ =====================
+    // nullValue() после name() при serializeNulls=false (как у Gson по умолчанию) пропускает поле целиком
+
+    static final TypeAdapter<Warrior> WARRIOR = new TypeAdapter<>() {
+        @Override
+        public void write(JsonWriter out, Warrior w) throws IOException {
+            if (w == null) { out.nullValue(); return; }
+            out.beginObject();
+            out.name("name").value(w.name);
+            out.name("teamTag").value(w.teamTag);
+            out.name("hp").value(w.hp);
+            out.name("maxHp").value(w.maxHp);
+            out.name("attack").value(w.attack);
+            out.name("potions").value(w.potions);
+            out.name("stunned").value(w.stunned);
+            out.name("fatigue").value(w.fatigue);
+            out.name("armor").value(w.armor);
+            out.name("pierce").value(w.pierce);
+            out.name("minDamage").value(w.minDamage);
+            out.name("missChance").value(w.missChance);
+            out.name("blockChance").value(w.blockChance);
+            out.name("dodgeChance").value(w.dodgeChance);
+            out.name("critChance").value(w.critChance);
+            out.name("stunOnCritChance").value(w.stunOnCritChance);
+            enumValue(out.name("role"), w.role);
+            enumValue(out.name("weapon"), w.weapon);
+            out.name("level").value(w.level);
+            out.name("experience").value(w.experience);
+            out.name("isRotmeister").value(w.isRotmeister);
+            out.name("battleCryBonus").value(w.battleCryBonus);
+            out.name("pendingLevelUps").value(w.pendingLevelUps);
+            out.name("isRecruited").value(w.isRecruited);
+            out.name("tempArmorBonus").value(w.tempArmorBonus);
+            enumValue(out.name("nextTurnStance"), w.nextTurnStance);
+            enumValue(out.name("defenseStance"), w.defenseStance);
+            out.name("battleAttackCount").value(w.battleAttackCount);
+            out.endObject();
+        }
+
+        @Override
+        public Warrior read(JsonReader in) throws IOException {
+            if (nullNext(in)) return null;
+            Warrior w = new Warrior(null, 0, 0);
+            in.beginObject();
+            while (in.hasNext()) {
+                String field = in.nextName();
+                if (nullNext(in)) continue;
+                switch (field) {
+                    case "name" -> w.name = in.nextString();
+                    case "teamTag" -> w.teamTag = in.nextString();
+                    case "hp" -> w.hp = in.nextInt();
+                    case "maxHp" -> w.maxHp = in.nextInt();
+                    case "attack" -> w.attack = in.nextInt();
+                    case "potions" -> w.potions = in.nextInt();
+                    case "stunned" -> w.stunned = in.nextBoolean();
+                    case "fatigue" -> w.fatigue = in.nextInt();
+                    case "armor" -> w.armor = in.nextInt();
+                    case "pierce" -> w.pierce = in.nextInt();
+                    case "minDamage" -> w.minDamage = in.nextInt();
+                    case "missChance" -> w.missChance = in.nextDouble();
+                    case "blockChance" -> w.blockChance = in.nextDouble();
+                    case "dodgeChance" -> w.dodgeChance = in.nextDouble();
+                    case "critChance" -> w.critChance = in.nextDouble();
+                    case "stunOnCritChance" -> w.stunOnCritChance = in.nextDouble();
+                    case "role" -> w.role = enumValue(in, Role.class, Role.NONE);
+                    case "weapon" -> w.weapon = enumValue(in, Weapon.class, Weapon.NONE);
+                    case "level" -> w.level = in.nextInt();
+                    case "experience" -> w.experience = in.nextInt();
+                    case "isRotmeister" -> w.isRotmeister = in.nextBoolean();
+                    case "battleCryBonus" -> w.battleCryBonus = in.nextBoolean();
+                    case "pendingLevelUps" -> w.pendingLevelUps = in.nextInt();
+                    case "isRecruited" -> w.isRecruited = in.nextBoolean();
+                    case "tempArmorBonus" -> w.tempArmorBonus = in.nextInt();
+                    case "nextTurnStance" -> w.nextTurnStance = enumValue(in, StanceType.class, StanceType.NONE);
+                    case "defenseStance" -> w.defenseStance = enumValue(in, StanceType.class, StanceType.NONE);
+                    case "battleAttackCount" -> w.battleAttackCount = in.nextInt();
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return w;
+        }
+    };
+
+    static final TypeAdapter<MapNode> MAP_NODE = new TypeAdapter<>() {
+        @Override
+        public void write(JsonWriter out, MapNode n) throws IOException {
+            if (n == null) { out.nullValue(); return; }
+            out.beginObject();
+            out.name("id").value(n.id);
+            enumValue(out.name("type"), n.type);
+            out.name("desc").value(n.desc);
+            out.name("next1").value(n.next1);
+            out.name("next2").value(n.next2);
+            out.endObject();
+        }
+
+        @Override
+        public MapNode read(JsonReader in) throws IOException {
+            if (nullNext(in)) return null;
+            MapNode n = new MapNode();
+            in.beginObject();
+            while (in.hasNext()) {
+                String field = in.nextName();
+                if (nullNext(in)) continue;
+                switch (field) {
+                    case "id" -> n.id = in.nextInt();
+                    case "type" -> n.type = enumValue(in, NodeType.class, null);
+                    case "desc" -> n.desc = in.nextString();
+                    case "next1" -> n.next1 = in.nextInt();
+                    case "next2" -> n.next2 = in.nextInt();
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return n;
+        }
+    };
+
+    static final TypeAdapter<Main.RecruitCandidate> RECRUIT = new TypeAdapter<>() {
+        @Override
+        public void write(JsonWriter out, Main.RecruitCandidate c) throws IOException {
+            if (c == null) { out.nullValue(); return; }
+            out.beginObject();
+            WARRIOR.write(out.name("warrior"), c.warrior);
+            out.name("costG").value(c.costG);
+            out.name("costT").value(c.costT);
+            out.name("costD").value(c.costD);
+            out.endObject();
+        }
+
+        @Override
+        public Main.RecruitCandidate read(JsonReader in) throws IOException {
+            if (nullNext(in)) return null;
+            Main.RecruitCandidate c = new Main.RecruitCandidate(null, 0, 0, 0);
+            in.beginObject();
+            while (in.hasNext()) {
+                String field = in.nextName();
+                if (nullNext(in)) continue;
+                switch (field) {
+                    case "warrior" -> c.warrior = WARRIOR.read(in);
+                    case "costG" -> c.costG = in.nextInt();
+                    case "costT" -> c.costT = in.nextInt();
+                    case "costD" -> c.costD = in.nextInt();
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return c;
+        }
+    };
+
+    static final TypeAdapter<CampaignState> CAMPAIGN = new TypeAdapter<>() {
+        @Override
+        public void write(JsonWriter out, CampaignState cs) throws IOException {
+            if (cs == null) { out.nullValue(); return; }
+            out.beginObject();
+            out.name("day").value(cs.day);
+            out.name("difficulty").value(cs.difficulty);
+            out.name("gulden").value(cs.gulden);
+            out.name("thaler").value(cs.thaler);
+            out.name("ducat").value(cs.ducat);
+            out.name("stashPotions").value(cs.stashPotions);
+            out.name("stashArmorPatches").value(cs.stashArmorPatches);
+            out.name("stashLightArmor").value(cs.stashLightArmor);
+            out.name("stashBasicWeapons").value(cs.stashBasicWeapons);
+            writeWarriors(out.name("roster"), cs.roster);
+            writeWarriors(out.name("reserve"), cs.reserve);
+            writeList(out.name("recruitPool"), cs.recruitPool, RECRUIT);
+            out.name("recruitPoolDay").value(cs.recruitPoolDay);
+            out.name("focusTarget").value(cs.focusTarget);
+            writeList(out.name("path"), cs.path, MAP_NODE);
+            out.name("currentNodeIndex").value(cs.currentNodeIndex);
+            out.name("campaignId").value(cs.campaignId);
+            out.endObject();
+        }
+
+        @Override
+        public CampaignState read(JsonReader in) throws IOException {
+            if (nullNext(in)) return null;
+            CampaignState cs = new CampaignState();
+            in.beginObject();
+            while (in.hasNext()) {
+                String field = in.nextName();
+                if (nullNext(in)) continue;
+                switch (field) {
+                    case "day" -> cs.day = in.nextInt();
+                    case "difficulty" -> cs.difficulty = in.nextInt();
+                    case "gulden" -> cs.gulden = in.nextInt();
+                    case "thaler" -> cs.thaler = in.nextInt();
+                    case "ducat" -> cs.ducat = in.nextInt();
+                    case "stashPotions" -> cs.stashPotions = in.nextInt();
+                    case "stashArmorPatches" -> cs.stashArmorPatches = in.nextInt();
+                    case "stashLightArmor" -> cs.stashLightArmor = in.nextInt();
+                    case "stashBasicWeapons" -> cs.stashBasicWeapons = in.nextInt();
+                    case "roster" -> cs.roster = readWarriors(in, cs.roster.length);
+                    case "reserve" -> cs.reserve = readWarriors(in, cs.reserve.length);
+                    case "recruitPool" -> cs.recruitPool = readList(in, RECRUIT);
+                    case "recruitPoolDay" -> cs.recruitPoolDay = in.nextInt();
+                    case "focusTarget" -> cs.focusTarget = in.nextBoolean();
+                    case "path" -> cs.path = readList(in, MAP_NODE);
+                    case "currentNodeIndex" -> cs.currentNodeIndex = in.nextInt();
+                    case "campaignId" -> cs.campaignId = in.nextString();
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return cs;
+        }
+    };
+
+    static final TypeAdapter<SaveGame> SAVE_GAME = new TypeAdapter<>() {
+        @Override
+        public void write(JsonWriter out, SaveGame sg) throws IOException {
+            if (sg == null) { out.nullValue(); return; }
+            out.beginObject();
+            writeWarriors(out.name("teamA"), sg.teamA);
+            writeWarriors(out.name("teamB"), sg.teamB);
+            out.name("round").value(sg.round);
+            out.name("logLevel").value(sg.logLevel);
+            out.name("color").value(sg.color);
+            out.name("saveName").value(sg.saveName);
+            out.name("savedAtEpochMillis").value(sg.savedAtEpochMillis);
+            CAMPAIGN.write(out.name("campaign"), sg.campaign);
+            out.endObject();
+        }
+
+        @Override
+        public SaveGame read(JsonReader in) throws IOException {
+            if (nullNext(in)) return null;
+            SaveGame sg = new SaveGame();
+            in.beginObject();
+            while (in.hasNext()) {
+                String field = in.nextName();
+                if (nullNext(in)) continue;
+                switch (field) {
+                    case "teamA" -> sg.teamA = readWarriors(in, 0);
+                    case "teamB" -> sg.teamB = readWarriors(in, 0);
+                    case "round" -> sg.round = in.nextInt();
+                    case "logLevel" -> sg.logLevel = in.nextInt();
+                    case "color" -> sg.color = in.nextBoolean();
+                    case "saveName" -> sg.saveName = in.nextString();
+                    case "savedAtEpochMillis" -> sg.savedAtEpochMillis = in.nextLong();
+                    case "campaign" -> sg.campaign = CAMPAIGN.read(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return sg;
+        }
+    };
+
+    static final TypeAdapter<SaveMeta> SAVE_META = new TypeAdapter<>() {
+        @Override
+        public void write(JsonWriter out, SaveMeta m) throws IOException {
+            if (m == null) { out.nullValue(); return; }
+            out.beginObject();
+            out.name("id").value(m.id);
+            out.name("saveName").value(m.saveName);
+            out.name("savedAt").value(m.savedAt);
+            out.name("path").value(m.path);
+            out.name("format").value(m.format);
+            out.endObject();
+        }
+
+        @Override
+        public SaveMeta read(JsonReader in) throws IOException {
+            if (nullNext(in)) return null;
+            SaveMeta m = new SaveMeta();
+            in.beginObject();
+            while (in.hasNext()) {
+                String field = in.nextName();
+                if (nullNext(in)) continue;
+                switch (field) {
+                    case "id" -> m.id = in.nextString();
+                    case "saveName" -> m.saveName = in.nextString();
+                    case "savedAt" -> m.savedAt = in.nextLong();
+                    case "path" -> m.path = in.nextString();
+                    case "format" -> m.format = in.nextString();
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return m;
+        }
+    };
+
+    // Объявлены после адаптеров: статическая инициализация идёт по порядку текста
+    static final Gson GSON = builder().create();
+    static final Gson PRETTY = builder().setPrettyPrinting().create();
+
+    // ===================== ВСПОМОГАТЕЛЬНОЕ =====================
+    private static boolean nullNext(JsonReader in) throws IOException {
+        if (in.peek() != JsonToken.NULL) return false;
+        in.nextNull();
+        return true;
+    }
+
+    private static void enumValue(JsonWriter out, Enum<?> e) throws IOException {
+        if (e == null) out.nullValue(); else out.value(e.name());
+    }
+
+    // Неизвестное имя константы (сейв новой версии) — значение по умолчанию вместо ошибки
+    private static <E extends Enum<E>> E enumValue(JsonReader in, Class<E> type, E fallback) throws IOException {
+        String s = in.nextString();
+        try {
+            return Enum.valueOf(type, s);
+        } catch (IllegalArgumentException e) {
+            return fallback;
+        }
+    }
+
+    private static void writeWarriors(JsonWriter out, Warrior[] arr) throws IOException {
+        if (arr == null) { out.nullValue(); return; }
+        out.beginArray();
+        for (Warrior w : arr) WARRIOR.write(out, w);
+        out.endArray();
+    }
+
+    // minLength — размер слотов отряда/резерва: короткий массив из старого сейва дополняется null
+    private static Warrior[] readWarriors(JsonReader in, int minLength) throws IOException {
+        List<Warrior> list = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) list.add(WARRIOR.read(in));
+        in.endArray();
+        Warrior[] arr = new Warrior[Math.max(minLength, list.size())];
+        for (int i = 0; i < list.size(); i++) arr[i] = list.get(i);
+        return arr;
+    }
+
+    private static <T> void writeList(JsonWriter out, List<T> list, TypeAdapter<T> adapter) throws IOException {
+        if (list == null) { out.nullValue(); return; }
+        out.beginArray();
+        for (T t : list) adapter.write(out, t);
+        out.endArray();
+    }
+
+    private static <T> List<T> readList(JsonReader in, TypeAdapter<T> adapter) throws IOException {
+        List<T> list = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) list.add(adapter.read(in));
+        in.endArray();
+        return list;
+    }
+}
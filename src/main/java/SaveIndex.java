@@ -0,0 +1,135 @@
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+
+// ===================== ИНДЕКС СЛОТОВ (КЭШ В ПАМЯТИ) =====================
+// index.json читается один раз; дальше список живёт в памяти, отсортированный по времени
+// (внутри — от старых к новым, чтобы новый слот дописывался в конец; наружу — от новых к старым,
+// как раньше показывало меню). Следующий id выдаётся из счётчика за O(1).
+// Запись — во временный файл и атомарное переименование, так что index.json никогда не бывает
+// наполовину записанным. Если файл поменяли снаружи (другой процесс, ручная чистка), кэш
+// перечитывается по изменившемуся времени модификации/размеру. Счётчик id при этом не откатывается,
+// а без index.json (удалён, не читается) продолжается от старших save-NNN, уже лежащих в каталоге, —
+// иначе фоновая запись затёрла бы существующие слоты.
+final class SaveIndex {
+    private static SaveIndex shared;
+
+    private final Path path;
+    private final ArrayList<SaveMeta> byTime = new ArrayList<>(); // по возрастанию savedAt
+    private final HashMap<String, SaveMeta> byId = new HashMap<>();
+    private int maxId = 0;
+    private long seenModified = Long.MIN_VALUE, seenSize = -2;  // -2 — ещё не смотрели (-1 — файла нет)
+
+    SaveIndex(Path path) { this.path = path; }
+
+    static synchronized SaveIndex shared() {
+        if (shared == null) shared = new SaveIndex(Path.of(Main.INDEX_PATH));
+        return shared;
+    }
+
+    // Слоты от новых к старым (номер в меню = индекс + 1)
+    synchronized List<SaveMeta> list() {
+        refreshIfChanged();
+        List<SaveMeta> out = new ArrayList<>(byTime.size());
+        for (int i = byTime.size() - 1; i >= 0; i--) out.add(byTime.get(i));
+        return out;
+    }
+
+    // Слот по номеру из меню (1 — самый новый); null — нет такого
+    synchronized SaveMeta byNumber(int number) {
+        refreshIfChanged();
+        if (number < 1 || number > byTime.size()) return null;
+        return byTime.get(byTime.size() - number);
+    }
+
+    // Зарезервировать следующий id (save-NNN); повторно не выдаётся даже без add
+    synchronized String nextId() {
+        refreshIfChanged();
+        return String.format("save-%03d", ++maxId);
+    }
+
+    synchronized void add(SaveMeta m) throws IOException {
+        addAll(List.of(m));
+    }
+
+    // Пачка слотов — одна запись index.json. Слот с уже известным id (автосейв) заменяется.
+    synchronized void addAll(List<SaveMeta> metas) throws IOException {
+        refreshIfChanged();
+        for (SaveMeta m : metas) {
+            SaveMeta old = byId.put(m.id, m);
+            if (old != null) byTime.remove(old);
+            int pos = byTime.size();
+            while (pos > 0 && byTime.get(pos - 1).savedAt > m.savedAt) pos--; // обычно новый слот — последний
+            byTime.add(pos, m);
+            noteId(m.id);
+        }
+        persist();
+    }
+
+    private void noteId(String id) {
+        if (id == null || !id.startsWith("save-")) return;
+        try {
+            maxId = Math.max(maxId, Integer.parseInt(id.substring(5)));
+        } catch (NumberFormatException ignored) {}
+    }
+
+    private void refreshIfChanged() {
+        long mod = Long.MIN_VALUE, size = -1;
+        try {
+            if (Files.exists(path)) {
+                mod = Files.getLastModifiedTime(path).toMillis();
+                size = Files.size(path);
+            }
+        } catch (IOException ignored) {}
+        if (mod == seenModified && size == seenSize) return;
+
+        int keepMax = maxId; // выданные, но ещё не записанные id не должны повториться
+        byTime.clear();
+        byId.clear();
+        maxId = 0;
+        boolean indexed = false;
+        if (size >= 0) {
+            try {
+                SaveMeta[] arr = SaveCodec.read(path, SaveMeta[].class);
+                if (arr != null) Collections.addAll(byTime, arr);
+                byTime.sort(Comparator.comparingLong(m -> m.savedAt));
+                for (SaveMeta m : byTime) { noteId(m.id); if (m.id != null) byId.put(m.id, m); }
+                indexed = true;
+            } catch (Exception e) {
+                Main.out().println("⚠️ Не удалось прочитать index.json: " + e.getMessage());
+            }
+        }
+        if (!indexed) scanSlotFiles();
+        maxId = Math.max(maxId, keepMax);
+        seenModified = mod;
+        seenSize = size;
+    }
+
+    // Старший id по файлам слотов рядом с индексом (save-NNN.json, save-NNN.msb)
+    private void scanSlotFiles() {
+        Path dir = path.toAbsolutePath().getParent();
+        if (dir == null || !Files.isDirectory(dir)) return;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "save-*")) {
+            for (Path f : files) {
+                String name = f.getFileName().toString();
+                int dot = name.indexOf('.');
+                noteId(dot < 0 ? name : name.substring(0, dot));
+            }
+        } catch (IOException ignored) {}
+    }
+
+    private void persist() throws IOException {
+        if (path.getParent() != null) Files.createDirectories(path.getParent());
+        List<SaveMeta> newestFirst = new ArrayList<>(byTime.size());
+        for (int i = byTime.size() - 1; i >= 0; i--) newestFirst.add(byTime.get(i));
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        SaveCodec.write(tmp, newestFirst.toArray(new SaveMeta[0]), true);
+        try {
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+        seenModified = Files.getLastModifiedTime(path).toMillis();
+        seenSize = Files.size(path);
+    }
+}
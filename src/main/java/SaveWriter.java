@@ -0,0 +1,138 @@
+import java.io.PrintStream;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+// ===================== ФОНОВАЯ ЗАПИСЬ СЕЙВОВ (WRITE-BEHIND) =====================
+// Игровой поток только снимает неизменяемую копию (SaveGame с копиями бойцов/кампании) и кладёт её
+// в очередь; сериализацию и запись делает отдельный поток-демон.
+//   - очередь ключуется по файлу: повторный сейв в тот же файл (автосейв) до записи заменяет предыдущий;
+//   - каждый файл пишется во временный и атомарно переименовывается поверх целевого;
+//   - index.json обновляется один раз на пачку, а не на каждый слот;
+//   - при MAX_PENDING ожидающих записей submit ждёт (обратное давление), очередь не растёт без предела;
+//   - при выходе из JVM хук дописывает всё, что осталось в очереди;
+//   - сбой одного сейва (включая Error — например, OOM при кодировании) не останавливает поток записи:
+//     очередь всегда доходит до конца и ожидающие awaitIdle отпускаются;
+//   - сейв сначала кодируется в байты, потом пишется: время обеих фаз идёт в Metrics,
+//     а вся запись с размером файла — событием JFR mercs.Save.
+final class SaveWriter {
+    static final int MAX_PENDING = 64;
+
+    private static SaveWriter shared;
+
+    private final LinkedHashMap<String, Job> pending = new LinkedHashMap<>();
+    private boolean busy = false;
+
+    private static final class Job {
+        final SaveGame snapshot;
+        final SaveMeta meta;
+        final boolean binary;
+        final String errMsg;
+        final PrintStream out;  // вывод сессии, поставившей запись (ошибка уйдёт её игроку)
+
+        Job(SaveGame snapshot, SaveMeta meta, boolean binary, String errMsg, PrintStream out) {
+            this.snapshot = snapshot; this.meta = meta; this.binary = binary; this.errMsg = errMsg; this.out = out;
+        }
+    }
+
+    private SaveWriter() {
+        // На Java 17 виртуальных потоков нет — один платформенный поток-демон на всё приложение
+        Thread t = new Thread(this::runLoop, "save-writer");
+        t.setDaemon(true);
+        t.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::awaitIdle, "save-writer-flush"));
+    }
+
+    static synchronized SaveWriter shared() {
+        if (shared == null) shared = new SaveWriter();
+        return shared;
+    }
+
+    // snapshot не должен больше меняться вызывающим (см. Main.snapshotOf)
+    synchronized void submit(SaveGame snapshot, SaveMeta meta, boolean binary, String errMsg) {
+        while (pending.size() >= MAX_PENDING && !pending.containsKey(meta.path)) {
+            try { wait(); } catch (InterruptedException e) { Thread.currentThread().interrupt(); break; }
+        }
+        pending.remove(meta.path); // новый снимок того же файла уходит в конец очереди
+        pending.put(meta.path, new Job(snapshot, meta, binary, errMsg, Main.out()));
+        notifyAll();
+    }
+
+    // Дождаться, пока всё поставленное в очередь окажется на диске (перед загрузкой/списком слотов)
+    synchronized void awaitIdle() {
+        while (!pending.isEmpty() || busy) {
+            try { wait(); } catch (InterruptedException e) { Thread.currentThread().interrupt(); return; }
+        }
+    }
+
+    private void runLoop() {
+        while (true) {
+            List<Job> batch;
+            synchronized (this) {
+                while (pending.isEmpty()) {
+                    try { wait(); } catch (InterruptedException e) { return; }
+                }
+                batch = new ArrayList<>(pending.values());
+                pending.clear();
+                busy = true;
+                notifyAll(); // место в очереди освободилось
+            }
+            try {
+                writeBatch(batch);
+            } catch (Throwable t) {
+                // writeBatch ловит сбои сам; сюда не должно дойти, но поток записи обязан жить
+                batch.get(batch.size() - 1).out.println("❌ Сбой фоновой записи сейвов: " + t);
+            } finally {
+                synchronized (this) {
+                    busy = false;
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    private static void writeBatch(List<Job> batch) {
+        List<SaveMeta> written = new ArrayList<>(batch.size());
+        for (Job job : batch) {
+            try {
+                Path target = Path.of(job.meta.path);
+                if (target.getParent() != null) Files.createDirectories(target.getParent());
+                Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+                FlightEvents.Save ev = new FlightEvents.Save();
+                ev.begin();
+                long t0 = System.nanoTime();
+                byte[] bytes = job.binary ? BinarySave.encode(job.snapshot, true) : SaveCodec.encode(job.snapshot, true);
+                long t1 = System.nanoTime();
+                Files.write(tmp, bytes);
+                try {
+                    Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+                Metrics.SAVE_SERIALIZE_SECONDS.record(t1 - t0);
+                Metrics.SAVE_WRITE_SECONDS.record(System.nanoTime() - t1);
+                if (ev.shouldCommit()) {
+                    ev.path = job.meta.path;
+                    ev.format = job.binary ? SaveMeta.BIN : SaveMeta.JSON;
+                    ev.bytes = bytes.length;
+                    ev.serializeNanos = t1 - t0;
+                    ev.commit();
+                }
+                written.add(job.meta);
+            } catch (Exception e) {
+                job.out.println(job.errMsg + e.getMessage());
+            } catch (Throwable e) {  // Error — этот сейв потерян, остальные пишутся дальше
+                job.out.println(job.errMsg + e);
+            }
+        }
+        if (written.isEmpty()) return;
+        try {
+            SaveIndex.shared().addAll(written);
+        } catch (Exception e) {
+            batch.get(batch.size() - 1).out.println("⚠️ Не удалось записать index.json: " + e.getMessage());
+        } catch (Throwable e) {
+            batch.get(batch.size() - 1).out.println("⚠️ Не удалось записать index.json: " + e);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+import java.io.PrintStream;
+
+// ===================== ЭКРАН: ЗАКРЕПЛЁННАЯ ПАНЕЛЬ =====================
+// Сводка раунда и карта маршрута раньше перепечатывались целиком после каждого раунда/шага, по println
+// на строку — по SSH вывод стоил больше, чем сам ход. Теперь в ANSI-терминале (цветной вывод включён)
+// они живут в панели, закреплённой вверху экрана: область прокрутки (DECSTBM) начинается под панелью,
+// лог боя и меню прокручиваются ниже, а панель не уезжает. Экран хранит модель — что нарисовано в каждой
+// строке панели — и кадр перерисовывает только изменившиеся строки (hp, стойка, оглушение, указатель
+// на карте): курсор сохраняется (ESC 7), строка пишется по абсолютной позиции, курсор восстанавливается.
+// Кадр — одна запись в поток. Без ANSI (цвет выключен) или с -Dmercs.pinned=false вызывающий печатает
+// по-старому, но тоже одной записью. Экран свой у каждой сессии (GameSession.screen()).
+final class Screen {
+    static final boolean PINNED = !"false".equals(System.getProperty("mercs.pinned"));
+    static final String NL = System.lineSeparator();
+    static final String BATTLE = "battle", MAP = "map";
+
+    private static final String CSI = "\u001B[";
+    private static final String SAVE_CURSOR = "\u001B7", RESTORE_CURSOR = "\u001B8";
+    private static boolean resetHookInstalled;
+
+    private String kind;                    // что сейчас в панели; null — панели нет (обычная прокрутка)
+    private String[] rows = new String[0];  // модель: строки 1..rows.length экрана; высота панели только растёт
+
+    // Панель используется, если терминал понимает ANSI (тот же признак, что и для цвета)
+    boolean pinned() {
+        return PINNED && Main.session().color;
+    }
+
+    // Кадр в панель: изменившиеся строки на своих местах. Панель растёт под кадр и не сжимается —
+    // иначе курсор мог бы оказаться внутри панели; лишние строки остаются пустыми.
+    void show(String kind, String[] frame) {
+        PrintStream out = Main.out();
+        StringBuilder sb = new StringBuilder(256);
+        if (this.kind == null || frame.length > rows.length) {
+            open(sb, Math.max(frame.length, rows.length), out);
+            this.kind = null;
+        }
+        boolean redrawAll = !kind.equals(this.kind);
+        sb.append(SAVE_CURSOR);
+        for (int i = 0; i < rows.length; i++) {
+            String line = i < frame.length ? frame[i] : "";
+            if (!redrawAll && line.equals(rows[i])) continue;
+            sb.append(CSI).append(i + 1).append(";1H").append(line).append(CSI).append('K');
+            rows[i] = line;
+        }
+        sb.append(RESTORE_CURSOR);
+        this.kind = kind;
+        out.print(sb);
+        out.flush();
+    }
+
+    // Открыть панель высотой height: экран очищается (раскладка становится известной), область прокрутки —
+    // от строки height+1 до низа экрана, курсор — в её начало
+    private void open(StringBuilder sb, int height, PrintStream out) {
+        rows = new String[height];
+        java.util.Arrays.fill(rows, "");
+        sb.append(CSI).append("2J");
+        sb.append(CSI).append(height + 1).append('r');
+        sb.append(CSI).append(height + 1).append(";1H");
+        if (out == System.out) installResetHook();
+    }
+
+    // Вернуть обычную прокрутку; содержимое панели остаётся на экране как обычный текст
+    void close() {
+        if (kind == null) return;
+        kind = null;
+        rows = new String[0];
+        PrintStream out = Main.out();
+        out.print(SAVE_CURSOR + CSI + "r" + RESTORE_CURSOR);
+        out.flush();
+    }
+
+    // Область прокрутки переживает процесс: при выходе по Ctrl+C терминал иначе останется с урезанным экраном
+    private static synchronized void installResetHook() {
+        if (resetHookInstalled) return;
+        resetHookInstalled = true;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            System.out.print(SAVE_CURSOR + CSI + "r" + RESTORE_CURSOR);
+            System.out.flush();
+        }, "screen-reset"));
+    }
+}
@@ -0,0 +1,142 @@
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// ===================== СОВЕТНИК ПО СТРАТЕГИИ (СИМУЛЯЦИЯ С БЮДЖЕТОМ) =====================
+// Перед выбором стратегии гоняет бои текущего отряда против реального teamB для каждого StrategyPlan
+// (STANDARD без тира, CAUTIOUS/AGGRESSIVE — с тиром Ротмистра) и оценивает шанс победы и ожидаемые потери.
+// Бои идут волнами на всех ядрах (fork-join, BattleState на задачу); после каждой волны проверяется
+// бюджет по времени и отрыв лидера: если лидер опережает каждого соперника больше чем на Z_CLEAR
+// стандартных ошибок разности долей — дальше не считаем. Игрок за A моделируется тем же ИИ, что и в симуляторе.
+final class StrategyAdvisor {
+    static final long DEFAULT_BUDGET_MS = 200;
+    static final int BATCH = 64;           // боёв на задачу в волне
+    static final int MIN_PER_PLAN = 256;   // раньше этого отрыв не проверяем
+    static final double Z_CLEAR = 3.0;
+
+    private StrategyAdvisor() {}
+
+    // Оценка одного варианта стратегии
+    static final class Estimate {
+        final StrategyPlan plan;
+        final int tier;
+        long battles, wins, lostFighters;
+
+        Estimate(StrategyPlan plan, int tier) { this.plan = plan; this.tier = tier; }
+
+        double winRate() { return battles == 0 ? 0 : (double) wins / battles; }
+        double expectedLosses() { return battles == 0 ? 0 : (double) lostFighters / battles; }
+        double stdErr() { double p = winRate(); return battles == 0 ? 1 : Math.sqrt(p * (1 - p) / battles); }
+
+        String label() { return plan == StrategyPlan.STANDARD ? "Стандарт" : plan + " (Tier " + tier + ")"; }
+    }
+
+    static final class Advice {
+        final List<Estimate> estimates; // по убыванию шанса победы
+        final TurnOrder turnOrder;      // порядок ходов в симуляциях
+        final long elapsedMs;
+        final boolean clear;            // лидер статистически отделился до истечения бюджета
+
+        Advice(List<Estimate> estimates, TurnOrder turnOrder, long elapsedMs, boolean clear) {
+            this.estimates = estimates; this.turnOrder = turnOrder; this.elapsedMs = elapsedMs; this.clear = clear;
+        }
+
+        Estimate best() { return estimates.get(0); }
+
+        String format() {
+            long total = 0;
+            for (Estimate e : estimates) total += e.battles;
+            StringBuilder sb = new StringBuilder();
+            sb.append("\n🧮 Советник: ").append(total).append(" симуляций за ").append(elapsedMs).append(" мс, ").append(turnOrder.label)
+              .append(clear ? " (лидер ясен)" : " (бюджет исчерпан)").append('\n');
+            for (Estimate e : estimates) {
+                sb.append(String.format(Locale.ROOT, "  %s %-24s победа %5.1f%% ±%.1f | потери ~%.2f бойца%n",
+                        e == best() ? "★" : " ", e.label(), e.winRate() * 100, 1.96 * e.stdErr() * 100, e.expectedLosses()));
+            }
+            return sb.toString();
+        }
+    }
+
+    static Advice advise(Warrior[] teamA, Warrior[] teamB, int tier) {
+        return advise(teamA, teamB, tier, DEFAULT_BUDGET_MS, Main.rng().split(), ForkJoinPool.commonPool());
+    }
+
+    static Advice advise(Warrior[] teamA, Warrior[] teamB, int tier, long budgetMs, Rng rng, ForkJoinPool pool) {
+        long start = System.nanoTime();
+        long deadline = start + budgetMs * 1_000_000L;
+        Warrior[] protoA = BattleSimulator.copyTeam(teamA, "[A]");
+        Warrior[] protoB = BattleSimulator.copyTeam(teamB, "[B]");
+        TurnOrder order = Main.session().turnOrder;  // потоки пула не привязаны к сессии
+
+        List<Estimate> est = new ArrayList<>();
+        est.add(new Estimate(StrategyPlan.STANDARD, 0));
+        if (tier > 0) {
+            est.add(new Estimate(StrategyPlan.CAUTIOUS, tier));
+            est.add(new Estimate(StrategyPlan.AGGRESSIVE, tier));
+        }
+
+        int tasksPerPlan = Math.max(1, pool.getParallelism());
+        boolean clear = false;
+        while (System.nanoTime() < deadline) {
+            List<Wave> wave = new ArrayList<>();
+            for (Estimate e : est) for (int t = 0; t < tasksPerPlan; t++) wave.add(new Wave(protoA, protoB, e, order, rng.split(), deadline));
+            pool.invoke(new RecursiveAction() {
+                @Override protected void compute() { invokeAll(wave); }
+            });
+            for (Wave w : wave) { w.target.battles += w.battles; w.target.wins += w.wins; w.target.lostFighters += w.lost; }
+            if (leaderClear(est)) { clear = true; break; }
+        }
+
+        est.sort((x, y) -> Double.compare(y.winRate(), x.winRate()));
+        return new Advice(est, order, (System.nanoTime() - start) / 1_000_000L, clear);
+    }
+
+    // Лидер впереди каждого соперника на Z_CLEAR стандартных ошибок разности (равные доли — не отрыв)
+    static boolean leaderClear(List<Estimate> est) {
+        if (est.size() < 2) return est.get(0).battles >= MIN_PER_PLAN;
+        Estimate lead = est.get(0);
+        for (Estimate e : est) {
+            if (e.battles < MIN_PER_PLAN) return false;
+            if (e.winRate() > lead.winRate()) lead = e;
+        }
+        for (Estimate e : est) {
+            if (e == lead) continue;
+            double se = Math.sqrt(lead.stdErr() * lead.stdErr() + e.stdErr() * e.stdErr());
+            double diff = lead.winRate() - e.winRate();
+            if (se == 0 ? diff <= 0 : diff / se < Z_CLEAR) return false;
+        }
+        return true;
+    }
+
+    // Задача волны: BATCH боёв одной стратегии на своём BattleState; итоги складываются после invokeAll
+    private static final class Wave extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        final Warrior[] protoA, protoB;
+        final Estimate target;
+        final TurnOrder turnOrder;
+        final Rng rng;
+        final long deadline;
+        long battles, wins, lost;
+
+        Wave(Warrior[] protoA, Warrior[] protoB, Estimate target, TurnOrder turnOrder, Rng rng, long deadline) {
+            this.protoA = protoA; this.protoB = protoB; this.target = target; this.turnOrder = turnOrder;
+            this.rng = rng; this.deadline = deadline;
+        }
+
+        @Override
+        protected void compute() {
+            BattleState s = new BattleState(protoA, protoB);
+            s.strategy = target.plan;
+            s.tier = target.tier;
+            s.turnOrder = turnOrder;
+            for (int i = 0; i < BATCH; i++) {
+                if ((i & 15) == 0 && System.nanoTime() >= deadline) break;
+                s.reset();
+                s.playBattle(rng.split(), BattleSimulator.MAX_ROUNDS);
+                battles++;
+                if (s.aliveA > 0 && s.aliveB == 0) wins++;
+                lost += s.nA - s.aliveA;
+            }
+        }
+    }
+}
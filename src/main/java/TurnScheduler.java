@@ -0,0 +1,189 @@
+// ===================== ПОРЯДОК ХОДОВ В РАУНДЕ =====================
+// Раньше каждый раунд собирал новый List<Actor> по живым и перемешивал его (buildRandomOrder).
+// Планировщик создаётся на бой и переиспользует свои массивы: за раунд — ни одной аллокации,
+// в массовом бою списки порядка не пересобираются. Выбирается на бой (BattleEngine.turnOrder):
+//   SHUFFLE    — равномерное перемешивание, как раньше (тот же обход Фишера–Йетса и те же броски ГСЧ);
+//   INITIATIVE — индексированная куча по инициативе: вес оружия, усталость и стойка, ничьи — случайно.
+enum TurnOrder {
+    SHUFFLE("случайный порядок"), INITIATIVE("по инициативе");
+
+    final String label;
+    TurnOrder(String label) { this.label = label; }
+}
+
+interface TurnScheduler {
+    void beginRound(Rng rng);                  // очередь раунда из живых на начало раунда
+    boolean hasNext();
+    Warrior next();                            // следующий по очереди (может оказаться уже убитым)
+    default void removed(boolean sideA, int index) {}  // боец стороны (индекс в команде) погиб посреди раунда
+
+    static TurnScheduler of(TurnOrder order, Warrior[] teamA, Warrior[] teamB) {
+        return order == TurnOrder.INITIATIVE ? new InitiativeTurns(teamA, teamB) : new ShuffleTurns(teamA, teamB);
+    }
+}
+
+// Живые A, затем живые B, перемешанные на месте; убитые по ходу раунда пропускает движок
+final class ShuffleTurns implements TurnScheduler {
+    private final Warrior[] teamA, teamB;
+    private final Warrior[] order;
+    private int size, next;
+
+    ShuffleTurns(Warrior[] teamA, Warrior[] teamB) {
+        this.teamA = teamA; this.teamB = teamB;
+        this.order = new Warrior[teamA.length + teamB.length];
+    }
+
+    @Override
+    public void beginRound(Rng rng) {
+        size = 0; next = 0;
+        for (Warrior w : teamA) if (w != null && w.hp > 0) order[size++] = w;
+        for (Warrior w : teamB) if (w != null && w.hp > 0) order[size++] = w;
+        for (int i = size; i > 1; i--) {  // как Rng.shuffle
+            int j = rng.nextInt(i);
+            Warrior t = order[i - 1]; order[i - 1] = order[j]; order[j] = t;
+        }
+    }
+
+    @Override public boolean hasNext() { return next < size; }
+    @Override public Warrior next() { return order[next++]; }
+}
+
+// Очередь по инициативе: боец — id (индекс в A или A.length + индекс в B), порядок держит InitiativeQueue
+final class InitiativeTurns implements TurnScheduler {
+    static final int BASE = 10;
+
+    private final Warrior[] fighters;
+    private final int offsetB;
+    private final InitiativeQueue queue;
+
+    InitiativeTurns(Warrior[] teamA, Warrior[] teamB) {
+        int n = teamA.length + teamB.length;
+        this.fighters = new Warrior[n];
+        System.arraycopy(teamA, 0, fighters, 0, teamA.length);
+        System.arraycopy(teamB, 0, fighters, teamA.length, teamB.length);
+        this.offsetB = teamA.length;
+        this.queue = new InitiativeQueue(n);
+    }
+
+    // Больше — раньше: тяжёлое оружие и усталость замедляют, атакующая стойка ускоряет, защитная — наоборот
+    static int initiative(Warrior w) {
+        return initiative(w.weapon.weight, w.fatigue, w.nextTurnStance == StanceType.AGGRESSIVE, w.defenseStance == StanceType.DEFENSIVE);
+    }
+
+    // То же по полям (BattleState хранит бойцов в массивах)
+    static int initiative(int weight, int fatigue, boolean aggressive, boolean defensive) {
+        int v = BASE - 2 * weight - Math.min(fatigue, BASE / 2);
+        if (aggressive) v += 2;
+        if (defensive) v -= 1;
+        return Math.max(0, v);
+    }
+
+    @Override
+    public void beginRound(Rng rng) {
+        queue.clear();
+        for (int id = 0; id < fighters.length; id++) {
+            Warrior w = fighters[id];
+            if (w != null && w.hp > 0) queue.add(id, initiative(w), rng);
+        }
+        queue.build();
+    }
+
+    @Override public boolean hasNext() { return !queue.isEmpty(); }
+    @Override public Warrior next() { return fighters[queue.poll()]; }
+
+    @Override
+    public void removed(boolean sideA, int index) {
+        int id = sideA ? index : offsetB + index;
+        if (id < fighters.length) queue.remove(id);
+    }
+}
+
+// Двоичная max-куча id по ключу (инициатива << 32 | случайная ничья); общая для движка (InitiativeTurns)
+// и симуляций (BattleState), поэтому при одном сиде порядок ходов у них один и тот же.
+// pos[id] — место в куче, поэтому погибший убирается из очереди сразу за O(log n), а не всплывает трупом.
+// Ключи лежат в порядке кучи (keys[i] — ключ heap[i]): просеивание не прыгает по памяти через id.
+// Куча раунда строится Флойдом за O(n).
+final class InitiativeQueue {
+    private final long[] keys;
+    private final int[] heap, pos;
+    private int size;
+
+    InitiativeQueue(int capacity) {
+        this.keys = new long[capacity];
+        this.heap = new int[capacity];
+        this.pos = new int[capacity];
+        java.util.Arrays.fill(pos, -1);
+    }
+
+    void clear() {
+        for (int i = 0; i < size; i++) pos[heap[i]] = -1;
+        size = 0;
+    }
+
+    // Добавить без просеивания; ничья — случайные 32 бита (один nextLong на бойца, в порядке id)
+    void add(int id, int initiative, Rng rng) {
+        keys[size] = ((long) initiative << 32) | (rng.nextLong() >>> 32);
+        heap[size] = id;
+        pos[id] = size++;
+    }
+
+    // После серии add: куча Флойдом
+    void build() {
+        for (int i = (size >>> 1) - 1; i >= 0; i--) siftDown(i);
+    }
+
+    boolean isEmpty() { return size == 0; }
+
+    int poll() {
+        int id = heap[0];
+        removeAt(0);
+        return id;
+    }
+
+    void remove(int id) {
+        if (pos[id] >= 0) removeAt(pos[id]);
+    }
+
+    private void removeAt(int i) {
+        pos[heap[i]] = -1;
+        int last = heap[--size];
+        if (i == size) return;
+        heap[i] = last;
+        keys[i] = keys[size];
+        pos[last] = i;
+        siftDown(i);
+        siftUp(pos[last]);
+    }
+
+    private void siftUp(int i) {
+        int id = heap[i];
+        long k = keys[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (keys[parent] >= k) break;
+            move(parent, i);
+            i = parent;
+        }
+        heap[i] = id; keys[i] = k; pos[id] = i;
+    }
+
+    private void siftDown(int i) {
+        int id = heap[i];
+        long k = keys[i];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < size && keys[right] > keys[child]) child = right;
+            if (k >= keys[child]) break;
+            move(child, i);
+            i = child;
+        }
+        heap[i] = id; keys[i] = k; pos[id] = i;
+    }
+
+    private void move(int from, int to) {
+        int id = heap[from];
+        heap[to] = id; keys[to] = keys[from]; pos[id] = to;
+    }
+}